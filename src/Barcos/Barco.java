@@ -1,37 +1,71 @@
 package Barcos;
-import java.util.ArrayList;
-import java.util.List;
 
-import Tablero.Casilla;
+import Sistema.TipoBarco;
 
 /**
  * Clase abstracta que representa un barco genérico en el juego Hundir la Flota.
  * Todos los tipos de barcos específicos deben heredar de esta clase.
  * 
+ * El barco no guarda sus casillas: es una fachada sobre la fila que ocupa
+ * en la TablaBarcos del tablero, donde se almacenan su tipo, su posición
+ * y las casillas tocadas.
+ * 
  * @author Sistema Hundir la Flota
  * @version 1.0
  */
 public abstract class Barco {
     
+    /** Tabla de barcos del tablero al que pertenece el barco */
+    protected final transient TablaBarcos tabla;
+    /** Identificador del barco dentro de la tabla */
+    protected final int id;
+
     /**
-     * Lista de casillas que ocupa el barco en el tablero.
-     * Cada casilla representa una posición del barco.
+     * Constructor que asocia el barco a su entrada en la tabla del tablero.
+     * 
+     * @param tabla Tabla de barcos del tablero
+     * @param id Identificador del barco en la tabla
      */
-    protected List<Casilla> posiciones;
+    protected Barco(TablaBarcos tabla, int id) {
+        this.tabla = tabla;
+        this.id = id;
+    }
     
     /**
-     * Método abstracto que determina si el barco está completamente hundido.
-     * Debe ser implementado por cada tipo específico de barco.
+     * Determina si el barco está completamente hundido.
+     * Un barco está hundido cuando todas sus casillas han sido tocadas.
      * 
      * @return true si el barco está hundido, false en caso contrario
      */
-    public abstract boolean estaHundido();
+    public boolean estaHundido() {
+        return tabla.estaHundido(id);
+    }
+
+    /**
+     * Registra que una de las casillas del barco ha sido tocada.
+     * 
+     * @param fila Fila de la casilla tocada
+     * @param columna Columna de la casilla tocada
+     */
+    public void registrarImpacto(int fila, int columna) {
+        tabla.registrarImpacto(fila, columna);
+    }
+
+    /**
+     * Obtiene el identificador del barco dentro de la tabla de su tablero.
+     * 
+     * @return Identificador del barco
+     */
+    public int getId() {
+        return id;
+    }
 
     /**
-     * Constructor por defecto que inicializa la lista de posiciones.
-     * Crea una lista vacía de casillas que será llenada por las subclases.
+     * Obtiene el tipo del barco.
+     * 
+     * @return Tipo de barco
      */
-    public Barco() {
-        this.posiciones = new ArrayList<>();
+    public TipoBarco getTipo() {
+        return tabla.getTipo(id);
     }
 }
@@ -1,8 +1,5 @@
 package Barcos;
 
-import Estados.Tocado;
-import Tablero.Casilla;
-
 /**
  * Clase que representa una Fragata en el juego Hundir la Flota.
  * Es el barco más pequeño del juego, ocupando solamente 1 casilla.
@@ -12,39 +9,14 @@ import Tablero.Casilla;
  */
 public class Fragata extends Barco {
     
-    /** Tamaño de la fragata en número de casillas */
-    private int tamaño = 1;
-    
-    /**
-     * Constructor que crea una fragata ocupando 1 casilla específica.
-     * Establece la relación bidireccional entre el barco y su casilla.
-     * 
-     * @param cas1 Única casilla que ocupa la fragata
-     */
-    public Fragata(Casilla cas1) {
-        super();
-        this.posiciones.add(cas1);
-        cas1.setBarco(this);
-    }
-    
     /**
-     * Determina si la fragata está completamente hundida.
-     * Una fragata está hundida cuando su única casilla ha sido tocada.
+     * Constructor que crea una fragata a partir de su entrada en la tabla de barcos.
+     * Las casillas que ocupa se registran en la tabla al colocarlo.
      * 
-     * @return true si la casilla está en estado Tocado, false en caso contrario
+     * @param tabla Tabla de barcos del tablero
+     * @param id Identificador de la fragata en la tabla
      */
-    @Override
-    public boolean estaHundido() {
-        int total = 0;
-        for (Casilla cas : posiciones) {
-            if (cas.getEstado().equals(Tocado.getInstancia())) {
-                total += 1;
-            }
-        }
-        if (total >= tamaño) {
-            return true;
-        } else {
-            return false;
-        }
+    public Fragata(TablaBarcos tabla, int id) {
+        super(tabla, id);
     }
 }
@@ -1,8 +1,5 @@
 package Barcos;
 
-import Estados.Tocado;
-import Tablero.Casilla;
-
 /**
  * Clase que representa un Submarino en el juego Hundir la Flota.
  * Es un barco de tamaño medio, ocupando 3 casillas.
@@ -12,45 +9,14 @@ import Tablero.Casilla;
  */
 public class Submarino extends Barco {
     
-    /** Tamaño del submarino en número de casillas */
-    private int tamaño = 3;
-    
-    /**
-     * Constructor que crea un submarino ocupando 3 casillas específicas.
-     * Establece la relación bidireccional entre el barco y sus casillas.
-     * 
-     * @param cas1 Primera casilla del submarino
-     * @param cas2 Segunda casilla del submarino
-     * @param cas3 Tercera casilla del submarino
-     */
-    public Submarino(Casilla cas1, Casilla cas2, Casilla cas3) {
-        super();
-        this.posiciones.add(cas1);
-        cas1.setBarco(this);
-        this.posiciones.add(cas2);
-        cas2.setBarco(this);
-        this.posiciones.add(cas3);
-        cas3.setBarco(this);
-    }
-    
     /**
-     * Determina si el submarino está completamente hundido.
-     * Un submarino está hundido cuando todas sus 3 casillas han sido tocadas.
+     * Constructor que crea un submarino a partir de su entrada en la tabla de barcos.
+     * Las casillas que ocupa se registran en la tabla al colocarlo.
      * 
-     * @return true si todas las casillas están en estado Tocado, false en caso contrario
+     * @param tabla Tabla de barcos del tablero
+     * @param id Identificador del submarino en la tabla
      */
-    @Override
-    public boolean estaHundido() {
-        int total = 0;
-        for (Casilla cas : posiciones) {
-            if (cas.getEstado().equals(Tocado.getInstancia())) {
-                total += 1;
-            }
-        }
-        if (total >= tamaño) {
-            return true;
-        } else {
-            return false;
-        }
+    public Submarino(TablaBarcos tabla, int id) {
+        super(tabla, id);
     }
 }
@@ -0,0 +1,241 @@
+package Barcos;
+
+import java.util.Arrays;
+
+import Sistema.TipoBarco;
+
+/**
+ * Tabla de barcos de un tablero organizada como estructura de arrays.
+ * Cada barco se identifica por un índice pequeño y sus datos (tipo, casilla
+ * de anclaje, orientación, casillas que ocupa y casillas tocadas) se guardan
+ * en arrays paralelos. Cada casilla del tablero guarda el identificador del
+ * barco que la ocupa, de modo que no hace falta mantener listas de casillas
+ * por barco y las consultas sobre toda la flota son bucles sobre arrays.
+ *
+ * Las casillas se indexan como f * n + c para la casilla de fila f y columna c
+ * de un tablero de lado n (como máximo 8, para caber en una máscara de 64 bits).
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class TablaBarcos {
+
+    /** Identificador que indica que una casilla no contiene barco */
+    public static final int SIN_BARCO = -1;
+    /** Capacidad inicial, suficiente para la flota estándar de 10 barcos */
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    /** Lado del tablero */
+    private final int tamaño;
+    /** Número de barcos registrados */
+    private int numBarcos;
+    /** Tipo de cada barco (ordinal de TipoBarco) */
+    private byte[] tipos;
+    /** Casilla de anclaje de cada barco */
+    private byte[] anclajes;
+    /** Orientación de cada barco (true si es horizontal) */
+    private boolean[] horizontales;
+    /** Casillas ocupadas por cada barco */
+    private long[] huellas;
+    /** Casillas tocadas de cada barco */
+    private long[] impactos;
+    /** Identificador más uno del barco de cada casilla (0 si no hay barco) */
+    private final byte[] barcoPorCasilla;
+
+    /**
+     * Constructor que crea una tabla vacía para un tablero del lado indicado.
+     *
+     * @param tamaño Lado del tablero (entre 1 y 8)
+     * @throws IllegalArgumentException Si el tablero no cabe en una máscara de 64 bits
+     */
+    public TablaBarcos(int tamaño) {
+        if (tamaño < 1 || tamaño > 8) {
+            throw new IllegalArgumentException("Tamaño de tablero no soportado: " + tamaño);
+        }
+        this.tamaño = tamaño;
+        this.tipos = new byte[CAPACIDAD_INICIAL];
+        this.anclajes = new byte[CAPACIDAD_INICIAL];
+        this.horizontales = new boolean[CAPACIDAD_INICIAL];
+        this.huellas = new long[CAPACIDAD_INICIAL];
+        this.impactos = new long[CAPACIDAD_INICIAL];
+        this.barcoPorCasilla = new byte[tamaño * tamaño];
+    }
+
+    /**
+     * Registra un nuevo barco en la tabla.
+     *
+     * @param tipo Tipo de barco
+     * @param fila Fila de anclaje
+     * @param columna Columna de anclaje
+     * @param esHorizontal true si el barco es horizontal
+     * @param huella Casillas que ocupa el barco
+     * @return Identificador asignado al barco
+     */
+    public int añadir(TipoBarco tipo, int fila, int columna, boolean esHorizontal, long huella) {
+        if (numBarcos == tipos.length) {
+            int capacidad = tipos.length * 2;
+            tipos = Arrays.copyOf(tipos, capacidad);
+            anclajes = Arrays.copyOf(anclajes, capacidad);
+            horizontales = Arrays.copyOf(horizontales, capacidad);
+            huellas = Arrays.copyOf(huellas, capacidad);
+            impactos = Arrays.copyOf(impactos, capacidad);
+        }
+
+        int id = numBarcos++;
+        tipos[id] = (byte) tipo.ordinal();
+        anclajes[id] = (byte) (fila * tamaño + columna);
+        horizontales[id] = esHorizontal;
+        huellas[id] = huella;
+        impactos[id] = 0L;
+
+        long pendientes = huella;
+        while (pendientes != 0L) {
+            barcoPorCasilla[Long.numberOfTrailingZeros(pendientes)] = (byte) (id + 1);
+            pendientes &= pendientes - 1;
+        }
+        return id;
+    }
+
+    /**
+     * Registra un impacto en la casilla indicada.
+     *
+     * @param fila Fila de la casilla
+     * @param columna Columna de la casilla
+     * @return Identificador del barco tocado o SIN_BARCO si la casilla es agua
+     */
+    public int registrarImpacto(int fila, int columna) {
+        int casilla = fila * tamaño + columna;
+        int id = barcoPorCasilla[casilla] - 1;
+        if (id != SIN_BARCO) {
+            impactos[id] |= 1L << casilla;
+        }
+        return id;
+    }
+
+    /**
+     * Obtiene el identificador del barco que ocupa una casilla.
+     *
+     * @param fila Fila de la casilla
+     * @param columna Columna de la casilla
+     * @return Identificador del barco o SIN_BARCO si no hay ninguno
+     */
+    public int getBarco(int fila, int columna) {
+        return barcoPorCasilla[fila * tamaño + columna] - 1;
+    }
+
+    /**
+     * Indica si un barco tiene todas sus casillas tocadas.
+     *
+     * @param id Identificador del barco
+     * @return true si el barco está hundido
+     */
+    public boolean estaHundido(int id) {
+        return (huellas[id] & ~impactos[id]) == 0L;
+    }
+
+    /**
+     * Indica si todos los barcos de la tabla están hundidos.
+     * Una tabla sin barcos se considera hundida.
+     *
+     * @return true si no queda ningún barco a flote
+     */
+    public boolean todosHundidos() {
+        long aFlote = 0L;
+        for (int id = 0; id < numBarcos; id++) {
+            aFlote |= huellas[id] & ~impactos[id];
+        }
+        return aFlote == 0L;
+    }
+
+    /**
+     * Cuenta los barcos hundidos de la tabla.
+     *
+     * @return Número de barcos con todas sus casillas tocadas
+     */
+    public int contarHundidos() {
+        int hundidos = 0;
+        for (int id = 0; id < numBarcos; id++) {
+            if ((huellas[id] & ~impactos[id]) == 0L) {
+                hundidos++;
+            }
+        }
+        return hundidos;
+    }
+
+    /**
+     * Obtiene el número de barcos registrados.
+     *
+     * @return Cantidad de barcos de la tabla
+     */
+    public int getNumeroBarcos() {
+        return numBarcos;
+    }
+
+    /**
+     * Obtiene el tipo de un barco.
+     *
+     * @param id Identificador del barco
+     * @return Tipo del barco
+     */
+    public TipoBarco getTipo(int id) {
+        return TipoBarco.values()[tipos[id]];
+    }
+
+    /**
+     * Obtiene la fila de anclaje de un barco.
+     *
+     * @param id Identificador del barco
+     * @return Fila de la primera casilla del barco
+     */
+    public int getFila(int id) {
+        return anclajes[id] / tamaño;
+    }
+
+    /**
+     * Obtiene la columna de anclaje de un barco.
+     *
+     * @param id Identificador del barco
+     * @return Columna de la primera casilla del barco
+     */
+    public int getColumna(int id) {
+        return anclajes[id] % tamaño;
+    }
+
+    /**
+     * Indica si un barco está colocado en horizontal.
+     *
+     * @param id Identificador del barco
+     * @return true si es horizontal, false si es vertical
+     */
+    public boolean esHorizontal(int id) {
+        return horizontales[id];
+    }
+
+    /**
+     * Obtiene las casillas que ocupa un barco.
+     *
+     * @param id Identificador del barco
+     * @return Máscara de casillas del barco
+     */
+    public long getHuella(int id) {
+        return huellas[id];
+    }
+
+    /**
+     * Obtiene las casillas tocadas de un barco.
+     *
+     * @param id Identificador del barco
+     * @return Máscara de casillas tocadas del barco
+     */
+    public long getImpactos(int id) {
+        return impactos[id];
+    }
+
+    /**
+     * Elimina todos los barcos de la tabla para poder reutilizarla.
+     */
+    public void limpiar() {
+        numBarcos = 0;
+        Arrays.fill(barcoPorCasilla, (byte) 0);
+    }
+}
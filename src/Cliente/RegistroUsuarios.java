@@ -0,0 +1,114 @@
+package Cliente;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro que asigna a cada nombre de usuario un identificador entero denso.
+ * Los identificadores empiezan en 1 y se asignan en orden la primera vez que se
+ * registra un nombre; así, comparar dos usuarios es comparar dos enteros.
+ *
+ * Solo se registran cuentas reales: al cargar los usuarios, al crear una cuenta
+ * y al iniciar sesión. Consultar el ID de un Usuario no lo registra, de modo que
+ * el registro no crece con los nombres que aparecen en partidas leídas de disco
+ * o en peticiones con credenciales incorrectas; su tamaño está acotado por el
+ * número de cuentas.
+ *
+ * Implementa el patrón Singleton: todo el proceso comparte los mismos IDs.
+ * Los IDs no se guardan: son válidos mientras dura el proceso.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class RegistroUsuarios {
+
+    /** Valor devuelto para los nombres que no están registrados */
+    public static final int SIN_ID = -1;
+
+    /** Instancia única del registro */
+    private static final RegistroUsuarios instancia = new RegistroUsuarios();
+
+    /** ID asignado a cada nombre */
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    /** Nombre de cada ID; la posición 0 no se usa */
+    private String[] nombres = new String[64];
+    /** Siguiente ID a asignar */
+    private int siguiente = 1;
+
+    /**
+     * Constructor privado para el patrón Singleton.
+     */
+    private RegistroUsuarios() {
+    }
+
+    /**
+     * Obtiene la instancia única del registro.
+     *
+     * @return Instancia única de RegistroUsuarios
+     */
+    public static RegistroUsuarios getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * Registra un nombre de usuario y devuelve su ID.
+     * Si el nombre ya estaba registrado, devuelve el ID que ya tenía.
+     *
+     * @param nombre Nombre del usuario
+     * @return ID entero del usuario
+     */
+    public int registrar(String nombre) {
+        Integer id = ids.get(nombre);
+        return id != null ? id : asignar(nombre);
+    }
+
+    /**
+     * Asigna el siguiente ID libre a un nombre que aún no lo tiene.
+     *
+     * @param nombre Nombre del usuario
+     * @return ID asignado
+     */
+    private synchronized int asignar(String nombre) {
+        Integer existente = ids.get(nombre);
+        if (existente != null) {
+            return existente;
+        }
+        int id = siguiente++;
+        if (id >= nombres.length) {
+            nombres = Arrays.copyOf(nombres, nombres.length * 2);
+        }
+        nombres[id] = nombre;
+        ids.put(nombre, id);
+        return id;
+    }
+
+    /**
+     * Obtiene el ID de un nombre sin registrarlo.
+     *
+     * @param nombre Nombre del usuario
+     * @return ID del usuario o SIN_ID si no está registrado
+     */
+    public int getId(String nombre) {
+        Integer id = ids.get(nombre);
+        return id != null ? id : SIN_ID;
+    }
+
+    /**
+     * Obtiene el nombre registrado con un ID.
+     *
+     * @param id ID del usuario
+     * @return Nombre del usuario o null si el ID no está asignado
+     */
+    public synchronized String getNombre(int id) {
+        return id > 0 && id < siguiente ? nombres[id] : null;
+    }
+
+    /**
+     * Obtiene el número de nombres registrados desde que arrancó el proceso.
+     *
+     * @return Número de usuarios registrados
+     */
+    public int getTamaño() {
+        return ids.size();
+    }
+}
@@ -16,6 +16,8 @@ public class Usuario {
     private String password;
     /** Indica si es un usuario nuevo (registro) o existente (login) */
     private boolean esNuevo;
+    /** ID entero asignado por RegistroUsuarios (0 mientras no se ha encontrado) */
+    private transient int id;
     
     /**
      * Constructor que crea un usuario con nombre y contraseña.
@@ -46,6 +48,37 @@ public class Usuario {
      */
     public void setName(String name) {
         this.name = name;
+        this.id = 0;
+    }
+
+    /**
+     * Obtiene el ID entero del usuario sin registrar su nombre.
+     * Dos usuarios registrados con el mismo nombre tienen siempre el mismo ID;
+     * el ID se guarda la primera vez que se encuentra.
+     * 
+     * @return ID del usuario, 0 si no tiene nombre o RegistroUsuarios.SIN_ID si su nombre no está registrado
+     */
+    public int getId() {
+        int actual = this.id;
+        if (actual == 0 && name != null) {
+            actual = RegistroUsuarios.getInstancia().getId(name);
+            if (actual > 0) {
+                this.id = actual;
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Registra el nombre del usuario y guarda su ID.
+     * Solo debe llamarse para cuentas reales: al cargarlas, al crearlas o al iniciar sesión.
+     * 
+     * @return ID del usuario
+     */
+    public int registrar() {
+        int actual = RegistroUsuarios.getInstancia().registrar(name);
+        this.id = actual;
+        return actual;
     }
     
     /**
@@ -96,7 +129,9 @@ public class Usuario {
     
     /**
      * Compara dos usuarios por igualdad.
-     * Dos usuarios son iguales si tienen el mismo nombre.
+     * Dos usuarios son iguales si tienen el mismo nombre, lo que se comprueba
+     * comparando sus IDs enteros cuando ambos están registrados y sus nombres
+     * en caso contrario.
      * 
      * @param obj Objeto a comparar
      * @return true si los usuarios son iguales, false en caso contrario
@@ -107,7 +142,15 @@ public class Usuario {
         if (obj == null || getClass() != obj.getClass()) return false;
         
         Usuario usuario = (Usuario) obj;
-        return name != null ? name.equals(usuario.name) : usuario.name == null;
+        if (name == null || usuario.name == null) {
+            return name == usuario.name;
+        }
+        int propio = getId();
+        int otro = usuario.getId();
+        if (propio > 0 && otro > 0) {
+            return propio == otro;
+        }
+        return name.equals(usuario.name);
     }
     
     /**
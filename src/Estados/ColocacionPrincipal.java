@@ -13,18 +13,15 @@ import Cliente.Usuario;
 public class ColocacionPrincipal implements EstadoPartida {
     
     /** Única instancia de la clase (patrón Singleton) */
-    private static EstadoPartida instancia;
+    private static final EstadoPartida instancia = new ColocacionPrincipal();
     
     /**
      * Obtiene la única instancia de la clase ColocacionPrincipal.
-     * Implementa el patrón Singleton de forma lazy.
+     * La instancia se crea al cargar la clase, por lo que es segura entre hilos.
      * 
      * @return La instancia única de ColocacionPrincipal
      */
     public static EstadoPartida getInstancia() {
-        if (instancia == null) {
-            instancia = new ColocacionPrincipal();
-        }
         return instancia;
     }
     
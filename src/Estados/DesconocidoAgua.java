@@ -11,18 +11,15 @@ package Estados;
 public class DesconocidoAgua implements Estado {
     
     /** Única instancia de la clase (patrón Singleton) */
-    private static Estado instancia;
+    private static final Estado instancia = new DesconocidoAgua();
     
     /**
      * Obtiene la única instancia de la clase DesconocidoAgua.
-     * Implementa el patrón Singleton de forma lazy.
+     * La instancia se crea al cargar la clase, por lo que es segura entre hilos.
      * 
      * @return La instancia única de DesconocidoAgua
      */
     public static Estado getInstancia() {
-        if (instancia == null) {
-            instancia = new DesconocidoAgua();
-        }
         return instancia;
     }
     
@@ -13,18 +13,15 @@ import Cliente.Usuario;
 public class EsperandoRival implements EstadoPartida {
     
     /** Única instancia de la clase (patrón Singleton) */
-    private static EstadoPartida instancia;
+    private static final EstadoPartida instancia = new EsperandoRival();
     
     /**
      * Obtiene la única instancia de la clase EsperandoRival.
-     * Implementa el patrón Singleton de forma lazy.
+     * La instancia se crea al cargar la clase, por lo que es segura entre hilos.
      * 
      * @return La instancia única de EsperandoRival
      */
     public static EstadoPartida getInstancia() {
-        if (instancia == null) {
-            instancia = new EsperandoRival();
-        }
         return instancia;
     }
     
@@ -13,18 +13,15 @@ import Cliente.Usuario;
 public class PartidaLista implements EstadoPartida {
     
     /** Única instancia de la clase (patrón Singleton) */
-    private static EstadoPartida instancia;
+    private static final EstadoPartida instancia = new PartidaLista();
     
     /**
      * Obtiene la única instancia de la clase PartidaLista.
-     * Implementa el patrón Singleton de forma lazy.
+     * La instancia se crea al cargar la clase, por lo que es segura entre hilos.
      * 
      * @return La instancia única de PartidaLista
      */
     public static EstadoPartida getInstancia() {
-        if (instancia == null) {
-            instancia = new PartidaLista();
-        }
         return instancia;
     }
     
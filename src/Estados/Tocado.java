@@ -11,18 +11,15 @@ package Estados;
 public class Tocado implements Estado {
     
     /** Única instancia de la clase (patrón Singleton) */
-    private static Estado instancia;
+    private static final Estado instancia = new Tocado();
     
     /**
      * Obtiene la única instancia de la clase Tocado.
-     * Implementa el patrón Singleton de forma lazy.
+     * La instancia se crea al cargar la clase, por lo que es segura entre hilos.
      * 
      * @return La instancia única de Tocado
      */
     public static Estado getInstancia() {
-        if (instancia == null) {
-            instancia = new Tocado();
-        }
         return instancia;
     }
     
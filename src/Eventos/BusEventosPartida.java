@@ -0,0 +1,287 @@
+package Eventos;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import Cliente.Usuario;
+import Partida.Partida;
+
+/**
+ * Bus de eventos de partida basado en un buffer circular preasignado.
+ * Varios hilos de juego publican eventos y cada consumidor los lee desde su
+ * propio hilo y a su propio ritmo, de modo que el hilo que procesa un comando
+ * solo reserva una posición, rellena el evento y lo publica.
+ *
+ * Funcionamiento:
+ * - Los productores reservan números de secuencia con un contador atómico.
+ * - La posición de una secuencia es secuencia & (capacidad - 1); cada posición
+ *   guarda la última secuencia publicada en ella, lo que marca el evento como visible.
+ * - Un productor no reutiliza una posición hasta que todos los consumidores han
+ *   pasado por ella; si el buffer está lleno, espera.
+ * - Cada consumidor procesa de una vez todos los eventos disponibles (un lote).
+ * - Un consumidor sin eventos hace unas pocas esperas activas y después se
+ *   bloquea; el productor que publica despierta a los consumidores bloqueados.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class BusEventosPartida {
+
+    /** Capacidad por defecto del buffer */
+    public static final int CAPACIDAD_POR_DEFECTO = 1024;
+    /** Esperas activas de un consumidor sin eventos antes de bloquearse */
+    private static final int ESPERAS_ACTIVAS = 128;
+    /** Espera de un productor con el buffer lleno, en nanosegundos */
+    private static final long ESPERA_PRODUCTOR = 1_000L;
+
+    /** Eventos preasignados, uno por posición */
+    private final EventoPartida[] eventos;
+    /** Última secuencia publicada en cada posición */
+    private final AtomicLongArray publicados;
+    /** Máscara para obtener la posición de una secuencia */
+    private final int mascara;
+    /** Última secuencia reservada por un productor */
+    private final AtomicLong cursor = new AtomicLong(-1L);
+    /** Procesadores registrados; el array se sustituye al registrar uno nuevo */
+    private volatile Procesador[] procesadores = new Procesador[0];
+    /** Indica si el bus se ha detenido */
+    private volatile boolean detenido;
+
+    /**
+     * Constructor que crea un bus con la capacidad por defecto.
+     */
+    public BusEventosPartida() {
+        this(CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que crea un bus con la capacidad indicada.
+     *
+     * @param capacidad Número de posiciones del buffer (potencia de dos)
+     * @throws IllegalArgumentException Si la capacidad no es una potencia de dos positiva
+     */
+    public BusEventosPartida(int capacidad) {
+        if (capacidad <= 0 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de dos: " + capacidad);
+        }
+        this.eventos = new EventoPartida[capacidad];
+        for (int i = 0; i < capacidad; i++) {
+            eventos[i] = new EventoPartida();
+        }
+        this.publicados = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            publicados.set(i, -1L);
+        }
+        this.mascara = capacidad - 1;
+    }
+
+    /**
+     * Registra un consumidor y arranca su hilo.
+     * El consumidor recibe los eventos publicados a partir de este momento.
+     *
+     * @param nombre Nombre del consumidor, usado en el nombre del hilo
+     * @param consumidor Consumidor a registrar
+     */
+    public synchronized void registrar(String nombre, ConsumidorEventos consumidor) {
+        Procesador procesador = new Procesador(consumidor, cursor.get());
+        Procesador[] actuales = procesadores;
+        Procesador[] nuevos = Arrays.copyOf(actuales, actuales.length + 1);
+        nuevos[actuales.length] = procesador;
+        procesadores = nuevos;
+
+        Thread hilo = new Thread(procesador, "Eventos-" + nombre);
+        hilo.setDaemon(true);
+        procesador.hilo = hilo;
+        hilo.start();
+    }
+
+    /**
+     * Publica un evento de partida.
+     * Si el buffer está lleno, espera a que el consumidor más lento libere una posición.
+     * Después despierta a los consumidores que se hayan bloqueado sin eventos.
+     *
+     * @param tipo Tipo del evento
+     * @param idPartida ID de la partida
+     * @param partida Partida que publica el evento
+     * @param actor Usuario que ha realizado la acción
+     * @param fila Fila afectada o -1
+     * @param columna Columna afectada o -1
+     * @param resultado Resultado o dato adicional, o null
+     * @return Secuencia asignada al evento
+     */
+    public long publicar(TipoEvento tipo, String idPartida, Partida partida, Usuario actor,
+                         int fila, int columna, String resultado) {
+        long secuencia = cursor.incrementAndGet();
+        long limite = secuencia - eventos.length;
+        while (minimoConsumido() < limite && !detenido) {
+            LockSupport.parkNanos(ESPERA_PRODUCTOR);
+        }
+
+        int posicion = (int) (secuencia & mascara);
+        eventos[posicion].rellenar(tipo, idPartida, partida, actor, fila, columna, resultado);
+        // Escritura volátil completa: debe ser visible antes de leer si el consumidor duerme
+        publicados.set(posicion, secuencia);
+        despertar();
+        return secuencia;
+    }
+
+    /**
+     * Publica un evento que no afecta a ninguna casilla.
+     *
+     * @param tipo Tipo del evento
+     * @param idPartida ID de la partida
+     * @param partida Partida que publica el evento
+     * @param actor Usuario que ha realizado la acción
+     * @return Secuencia asignada al evento
+     */
+    public long publicar(TipoEvento tipo, String idPartida, Partida partida, Usuario actor) {
+        return publicar(tipo, idPartida, partida, actor, -1, -1, null);
+    }
+
+    /**
+     * Despierta a los consumidores bloqueados por falta de eventos.
+     */
+    private void despertar() {
+        for (Procesador procesador : procesadores) {
+            if (procesador.bloqueado) {
+                LockSupport.unpark(procesador.hilo);
+            }
+        }
+    }
+
+    /**
+     * Obtiene la secuencia más baja procesada por todos los consumidores.
+     * Sin consumidores, ningún evento retiene posiciones del buffer.
+     *
+     * @return Secuencia mínima procesada
+     */
+    private long minimoConsumido() {
+        Procesador[] actuales = procesadores;
+        long minimo = Long.MAX_VALUE;
+        for (Procesador procesador : actuales) {
+            minimo = Math.min(minimo, procesador.procesado.get());
+        }
+        return actuales.length == 0 ? cursor.get() : minimo;
+    }
+
+    /**
+     * Obtiene el número de eventos publicados que algún consumidor aún no ha procesado.
+     *
+     * @return Eventos pendientes del consumidor más lento
+     */
+    public long getPendientes() {
+        return Math.max(0L, cursor.get() - minimoConsumido());
+    }
+
+    /**
+     * Obtiene la capacidad del buffer.
+     *
+     * @return Número de posiciones del buffer
+     */
+    public int getCapacidad() {
+        return eventos.length;
+    }
+
+    /**
+     * Detiene los hilos consumidores después de su lote actual.
+     */
+    public void detener() {
+        detenido = true;
+        for (Procesador procesador : procesadores) {
+            LockSupport.unpark(procesador.hilo);
+        }
+    }
+
+    /**
+     * Hilo consumidor asociado a un consumidor registrado.
+     * Lleva su propia secuencia procesada, que los productores consultan
+     * para no sobrescribir eventos que aún no ha leído.
+     */
+    private final class Procesador implements Runnable {
+
+        /** Consumidor al que se entregan los eventos */
+        private final ConsumidorEventos consumidor;
+        /** Última secuencia procesada por este consumidor */
+        private final AtomicLong procesado;
+        /** Hilo del consumidor, al que despiertan los productores */
+        private volatile Thread hilo;
+        /** Indica si el consumidor está bloqueado o a punto de bloquearse */
+        private volatile boolean bloqueado;
+
+        /**
+         * Constructor que crea el procesador a partir de una secuencia inicial.
+         *
+         * @param consumidor Consumidor al que se entregan los eventos
+         * @param inicial Última secuencia que este consumidor no debe procesar
+         */
+        Procesador(ConsumidorEventos consumidor, long inicial) {
+            this.consumidor = consumidor;
+            this.procesado = new AtomicLong(inicial);
+        }
+
+        /**
+         * Bucle del consumidor: procesa lotes de eventos contiguos publicados;
+         * cuando no hay ninguno, espera activamente unas pocas veces y después
+         * se bloquea hasta que un productor lo despierta.
+         */
+        @Override
+        public void run() {
+            long siguiente = procesado.get() + 1;
+            int esperas = 0;
+            while (!detenido) {
+                long disponible = ultimoDisponible(siguiente);
+                if (disponible < siguiente) {
+                    if (esperas++ < ESPERAS_ACTIVAS) {
+                        Thread.onSpinWait();
+                    } else {
+                        bloquear(siguiente);
+                    }
+                    continue;
+                }
+                esperas = 0;
+
+                for (long secuencia = siguiente; secuencia <= disponible; secuencia++) {
+                    try {
+                        consumidor.alEvento(eventos[(int) (secuencia & mascara)], secuencia, secuencia == disponible);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error procesando evento " + secuencia + ": " + e.getMessage());
+                    }
+                }
+                procesado.lazySet(disponible);
+                siguiente = disponible + 1;
+            }
+        }
+
+        /**
+         * Busca el último evento publicado de forma contigua a partir de una secuencia.
+         *
+         * @param siguiente Primera secuencia sin procesar
+         * @return Última secuencia publicada, o siguiente - 1 si no hay ninguna
+         */
+        private long ultimoDisponible(long siguiente) {
+            long disponible = siguiente - 1;
+            while (publicados.get((int) ((disponible + 1) & mascara)) == disponible + 1) {
+                disponible++;
+            }
+            return disponible;
+        }
+
+        /**
+         * Bloquea el hilo hasta que se publique la secuencia indicada.
+         * Se marca como bloqueado antes de volver a comprobar el buffer: un
+         * productor que publique entretanto ve la marca y lo despierta, y si el
+         * aviso llega antes de bloquearse, park vuelve en seguida.
+         *
+         * @param siguiente Primera secuencia sin procesar
+         */
+        private void bloquear(long siguiente) {
+            bloqueado = true;
+            if (ultimoDisponible(siguiente) < siguiente && !detenido) {
+                LockSupport.park(this);
+            }
+            bloqueado = false;
+        }
+    }
+}
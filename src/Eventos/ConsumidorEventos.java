@@ -0,0 +1,23 @@
+package Eventos;
+
+/**
+ * Interfaz que deben implementar los consumidores del bus de eventos de partida.
+ * Cada consumidor se ejecuta en su propio hilo y recibe los eventos en orden
+ * de publicación, agrupados en lotes: el último evento de cada lote se marca
+ * para que el consumidor pueda acumular trabajo y hacerlo una sola vez.
+ * 
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public interface ConsumidorEventos {
+
+    /**
+     * Procesa un evento publicado en el bus.
+     * El evento se reutiliza después de la llamada, por lo que no debe guardarse.
+     * 
+     * @param evento Evento a procesar
+     * @param secuencia Número de secuencia del evento en el bus
+     * @param finDeLote true si es el último evento disponible en este momento
+     */
+    void alEvento(EventoPartida evento, long secuencia, boolean finDeLote);
+}
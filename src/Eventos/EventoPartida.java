@@ -0,0 +1,123 @@
+package Eventos;
+
+import Cliente.Usuario;
+import Partida.Partida;
+
+/**
+ * Evento de partida almacenado en una posición del bus de eventos.
+ * Las instancias se reservan una sola vez al crear el bus y se reutilizan:
+ * cada publicación sobrescribe todos los campos de la posición que le toca,
+ * por lo que los consumidores no deben conservar la referencia al evento
+ * después de procesarlo.
+ * 
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class EventoPartida {
+
+    /** Tipo del evento */
+    private TipoEvento tipo;
+    /** ID de la partida que publica el evento */
+    private String idPartida;
+    /** Partida que publica el evento */
+    private Partida partida;
+    /** Usuario que ha realizado la acción */
+    private Usuario actor;
+    /** Fila afectada (-1 si no aplica) */
+    private int fila;
+    /** Columna afectada (-1 si no aplica) */
+    private int columna;
+    /** Resultado o dato adicional de la acción (null si no aplica) */
+    private String resultado;
+
+    /**
+     * Constructor de paquete: solo el bus crea eventos.
+     */
+    EventoPartida() {
+    }
+
+    /**
+     * Sobrescribe todos los campos del evento.
+     * 
+     * @param tipo Tipo del evento
+     * @param idPartida ID de la partida
+     * @param partida Partida que publica el evento
+     * @param actor Usuario que ha realizado la acción
+     * @param fila Fila afectada
+     * @param columna Columna afectada
+     * @param resultado Resultado o dato adicional
+     */
+    void rellenar(TipoEvento tipo, String idPartida, Partida partida, Usuario actor,
+                  int fila, int columna, String resultado) {
+        this.tipo = tipo;
+        this.idPartida = idPartida;
+        this.partida = partida;
+        this.actor = actor;
+        this.fila = fila;
+        this.columna = columna;
+        this.resultado = resultado;
+    }
+
+    /**
+     * Obtiene el tipo del evento.
+     * 
+     * @return Tipo del evento
+     */
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Obtiene el ID de la partida que publica el evento.
+     * 
+     * @return ID de la partida
+     */
+    public String getIdPartida() {
+        return idPartida;
+    }
+
+    /**
+     * Obtiene la partida que publica el evento.
+     * 
+     * @return Partida del evento
+     */
+    public Partida getPartida() {
+        return partida;
+    }
+
+    /**
+     * Obtiene el usuario que ha realizado la acción.
+     * 
+     * @return Usuario actor del evento
+     */
+    public Usuario getActor() {
+        return actor;
+    }
+
+    /**
+     * Obtiene la fila afectada por la acción.
+     * 
+     * @return Fila o -1 si no aplica
+     */
+    public int getFila() {
+        return fila;
+    }
+
+    /**
+     * Obtiene la columna afectada por la acción.
+     * 
+     * @return Columna o -1 si no aplica
+     */
+    public int getColumna() {
+        return columna;
+    }
+
+    /**
+     * Obtiene el resultado o dato adicional de la acción.
+     * 
+     * @return Resultado o null si no aplica
+     */
+    public String getResultado() {
+        return resultado;
+    }
+}
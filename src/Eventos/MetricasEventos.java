@@ -0,0 +1,85 @@
+package Eventos;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Consumidor de eventos que cuenta los eventos procesados por tipo
+ * y el tamaño de los lotes entregados por el bus.
+ * Los contadores se pueden leer desde cualquier hilo.
+ * 
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class MetricasEventos implements ConsumidorEventos {
+
+    /** Número de eventos procesados por tipo (índice: ordinal de TipoEvento) */
+    private final AtomicLongArray eventosPorTipo = new AtomicLongArray(TipoEvento.values().length);
+    /** Número de lotes procesados */
+    private volatile long lotes;
+    /** Tamaño del mayor lote procesado */
+    private volatile long loteMaximo;
+    /** Eventos acumulados en el lote en curso (solo lo usa el hilo consumidor) */
+    private long loteActual;
+
+    /**
+     * Cuenta el evento y, al final de cada lote, actualiza las métricas de lotes.
+     * 
+     * @param evento Evento a procesar
+     * @param secuencia Número de secuencia del evento
+     * @param finDeLote true si es el último evento del lote
+     */
+    @Override
+    public void alEvento(EventoPartida evento, long secuencia, boolean finDeLote) {
+        eventosPorTipo.incrementAndGet(evento.getTipo().ordinal());
+        loteActual++;
+        if (finDeLote) {
+            lotes++;
+            if (loteActual > loteMaximo) {
+                loteMaximo = loteActual;
+            }
+            loteActual = 0;
+        }
+    }
+
+    /**
+     * Obtiene el número de eventos procesados de un tipo.
+     * 
+     * @param tipo Tipo de evento
+     * @return Eventos de ese tipo procesados
+     */
+    public long getEventos(TipoEvento tipo) {
+        return eventosPorTipo.get(tipo.ordinal());
+    }
+
+    /**
+     * Obtiene el número de lotes procesados.
+     * 
+     * @return Cantidad de lotes
+     */
+    public long getLotes() {
+        return lotes;
+    }
+
+    /**
+     * Obtiene el tamaño del mayor lote procesado.
+     * 
+     * @return Eventos del mayor lote
+     */
+    public long getLoteMaximo() {
+        return loteMaximo;
+    }
+
+    /**
+     * Obtiene un resumen legible de las métricas.
+     * 
+     * @return String con los eventos por tipo y las métricas de lotes
+     */
+    public String getResumen() {
+        StringBuilder resumen = new StringBuilder("Eventos:");
+        for (TipoEvento tipo : TipoEvento.values()) {
+            resumen.append(' ').append(tipo.name()).append('=').append(getEventos(tipo));
+        }
+        resumen.append(" | Lotes: ").append(lotes).append(" | Lote máximo: ").append(loteMaximo);
+        return resumen.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package Eventos;
+
+import java.io.IOException;
+
+import Partida.SesionJugador;
+
+/**
+ * Consumidor de eventos que avisa al rival de lo que hace su oponente.
+ * Envía los ataques recibidos y el aviso de derrota a través de la sesión
+ * del rival guardada en la partida, fuera del hilo del atacante.
+ * 
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class NotificadorRival implements ConsumidorEventos {
+
+    /**
+     * Notifica al rival los ataques y el final de la partida.
+     * 
+     * @param evento Evento a procesar
+     * @param secuencia Número de secuencia del evento
+     * @param finDeLote true si es el último evento del lote
+     */
+    @Override
+    public void alEvento(EventoPartida evento, long secuencia, boolean finDeLote) {
+        if (evento.getTipo() != TipoEvento.ATAQUE && evento.getTipo() != TipoEvento.FIN_PARTIDA) {
+            return;
+        }
+
+        SesionJugador rival = evento.getPartida().getSesionRival(evento.getActor());
+        if (rival == null) {
+            return;
+        }
+
+        if (evento.getTipo() == TipoEvento.ATAQUE) {
+            rival.notificarAtaqueRecibido(evento.getFila(), evento.getColumna(), evento.getResultado());
+        } else {
+            try {
+                rival.enviarMensaje("fin_partida:¡Has perdido! Todos tus barcos han sido hundidos.");
+            } catch (IOException e) {
+                System.err.println("Error notificando fin de partida al rival: " + e.getMessage());
+            }
+        }
+    }
+}
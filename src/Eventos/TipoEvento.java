@@ -0,0 +1,24 @@
+package Eventos;
+
+/**
+ * Enumeración que define los tipos de evento que publica una partida.
+ * Cada comando de juego que modifica una partida publica uno de estos eventos
+ * en el bus, y los consumidores deciden a cuáles reaccionan.
+ * 
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public enum TipoEvento {
+    /** Se ha creado una partida que espera rival */
+    PARTIDA_CREADA,
+    /** Un segundo jugador se ha unido a la partida */
+    RIVAL_UNIDO,
+    /** Un jugador ha colocado un barco (resultado: tipo de barco) */
+    BARCO_COLOCADO,
+    /** Ambas flotas están colocadas y empieza el combate */
+    COMBATE_INICIADO,
+    /** Un jugador ha atacado una casilla del rival (resultado: agua, tocado, hundido o error) */
+    ATAQUE,
+    /** La partida ha terminado (actor: ganador) */
+    FIN_PARTIDA
+}
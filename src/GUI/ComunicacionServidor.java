@@ -10,6 +10,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.concurrent.atomic.AtomicReference;
 
+import Sistema.AmbitoTareas;
+
 /**
  * Clase que gestiona la comunicación bidireccional con el servidor del juego.
  * Utiliza threads separados para envío y recepción de mensajes, garantizando
@@ -32,10 +34,8 @@ public class ComunicacionServidor {
     /** Referencia al comando actualmente siendo procesado */
     private final AtomicReference<ComandoPendiente> comandoActual;
     
-    /** Thread dedicado a escuchar mensajes del servidor */
-    private final Thread threadEscucha;
-    /** Thread dedicado a enviar comandos al servidor */
-    private final Thread threadEnvio;
+    /** Ámbito de los threads de escucha, envío y auxiliares; se cancela al cerrar */
+    private final AmbitoTareas tareas = new AmbitoTareas("Thread");
     
     /** Manejador de mensajes recibidos del servidor */
     private Consumer<String> manejadorMensajes;
@@ -44,7 +44,7 @@ public class ComunicacionServidor {
     
     /**
      * Constructor que inicializa la comunicación con el servidor.
-     * Crea los threads de envío y recepción pero no los inicia hasta
+     * Los threads de envío y recepción no se inician hasta
      * recibir confirmación inicial del servidor.
      * 
      * @param entrada Flujo de entrada desde el servidor
@@ -57,9 +57,6 @@ public class ComunicacionServidor {
         this.colaComandos = new LinkedBlockingQueue<>();
         this.comandoActual = new AtomicReference<>();
         
-        this.threadEscucha = new Thread(this::escucharServidor, "Thread-Escucha");
-        this.threadEnvio = new Thread(this::procesarComandos, "Thread-Envio");
-        
         esperarConfirmacionInicial();
     }
     
@@ -68,18 +65,18 @@ public class ComunicacionServidor {
      * Garantiza que la comunicación esté establecida correctamente.
      */
     private void esperarConfirmacionInicial() {
-        new Thread(() -> {
+        tareas.lanzar("Confirmacion", () -> {
             try {
                 String mensaje = entrada.readUTF();
                 System.out.println("[INIT] Mensaje inicial del servidor: " + mensaje);
                 
-                threadEscucha.start();
-                threadEnvio.start();
+                tareas.lanzar("Escucha", this::escucharServidor);
+                tareas.lanzar("Envio", this::procesarComandos);
                 
             } catch (IOException e) {
                 conexionActiva.set(false);
             }
-        }, "Thread-Confirmacion").start();
+        });
     }
     
     /**
@@ -255,7 +252,7 @@ public class ComunicacionServidor {
                                      Consumer<String> callback, 
                                      Consumer<String> errorCallback) {
         
-        new Thread(() -> {
+        boolean lanzada = tareas.lanzar("ColocacionBarco", () -> {
             try {
                 synchronized(this) {
                     salida.writeUTF("colocar_barco");
@@ -294,13 +291,19 @@ public class ComunicacionServidor {
                     });
                 }
             } catch (Exception e) {
+                if (tareas.isCancelado()) {
+                    return;
+                }
                 e.printStackTrace();
                 
                 SwingUtilities.invokeLater(() -> {
                     errorCallback.accept("Error de comunicación: " + e.getMessage());
                 });
             }
-        }, "Thread-ColocacionBarco").start();
+        });
+        if (!lanzada) {
+            SwingUtilities.invokeLater(() -> errorCallback.accept("Conexión no activa"));
+        }
     }
     
     /**
@@ -309,7 +312,7 @@ public class ComunicacionServidor {
      * @param callback Función para procesar el mensaje leído
      */
     public void leerSiguienteMensaje(Consumer<String> callback) {
-        new Thread(() -> {
+        boolean lanzada = tareas.lanzar("LecturaMensaje", () -> {
             try {
                 Thread.sleep(200);
                 
@@ -329,11 +332,17 @@ public class ComunicacionServidor {
                     });
                 }
             } catch (Exception e) {
+                if (tareas.isCancelado()) {
+                    return;
+                }
                 SwingUtilities.invokeLater(() -> {
                     callback.accept("error:" + e.getMessage());
                 });
             }
-        }, "Thread-LecturaMensaje").start();
+        });
+        if (!lanzada) {
+            SwingUtilities.invokeLater(() -> callback.accept("error:Conexión no activa"));
+        }
     }
     
     /**
@@ -345,9 +354,19 @@ public class ComunicacionServidor {
         return conexionActiva.get();
     }
     
+    /**
+     * Obtiene el ámbito de los threads de esta comunicación.
+     * Sus contadores permiten comprobar que no quedan threads vivos tras cerrar.
+     * 
+     * @return Ámbito de tareas de la comunicación
+     */
+    public AmbitoTareas getTareas() {
+        return tareas;
+    }
+    
     /**
      * Cierra la comunicación con el servidor de forma ordenada.
-     * Envía comando de terminación y detiene los threads.
+     * Envía comando de terminación y cancela todos los threads de la comunicación.
      */
     public void cerrar() {
         conexionActiva.set(false);
@@ -361,12 +380,7 @@ public class ComunicacionServidor {
             // Ignorar errores al cerrar
         }
         
-        if (threadEscucha != null && threadEscucha.isAlive()) {
-            threadEscucha.interrupt();
-        }
-        if (threadEnvio != null && threadEnvio.isAlive()) {
-            threadEnvio.interrupt();
-        }
+        tareas.cancelar();
     }
     
     /**
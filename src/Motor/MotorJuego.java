@@ -0,0 +1,243 @@
+package Motor;
+
+import Barcos.Barco;
+import Cliente.Usuario;
+import Estados.Agua;
+import Estados.DesconocidoAgua;
+import Estados.DesconocidoBarco;
+import Estados.Estado;
+import Estados.Tocado;
+import Partida.FasePartida;
+import Partida.Partida;
+import Tablero.Casilla;
+import Tablero.Tablero;
+
+/**
+ * Fachada del motor de juego, independiente de la capa de red.
+ * Aplica las reglas de un ataque sobre una Partida y devuelve el resultado como
+ * un código entero, de modo que el servidor, los bots y las pruebas pueden usar
+ * las reglas sin pasar por los métodos estáticos del servidor ni por cadenas.
+ *
+ * Las coordenadas son las de la matriz del tablero: fila y columna de cas[fila][columna].
+ * El ataque no reserva objetos temporales: accede a la casilla por índice,
+ * consulta el hundimiento en la tabla de barcos, traduce los resultados a
+ * textos constantes y los recuerda en arrays ya reservados de la partida.
+ * Cada ataque aceptado reserva solo lo que queda en la partida: el Movimiento
+ * de su historial (y, de vez en cuando, el crecimiento de la lista) y la única
+ * InstantaneaPartida que se publica al final.
+ *
+ * Implementa el patrón Singleton.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class MotorJuego {
+
+    /** El ataque ha caído en agua */
+    public static final int AGUA = 0;
+    /** El ataque ha tocado un barco */
+    public static final int TOCADO = 1;
+    /** El ataque ha hundido un barco */
+    public static final int HUNDIDO = 2;
+    /** El ataque ha hundido el último barco del rival y ha terminado la partida */
+    public static final int VICTORIA = 3;
+    /** La coordenada está fuera del tablero */
+    public static final int ERROR_COORDENADA = -1;
+    /** La casilla ya había sido atacada */
+    public static final int ERROR_YA_ATACADA = -2;
+    /** El atacante no participa en la partida o su rival aún no tiene tablero */
+    public static final int ERROR_JUGADOR = -3;
+    /** No es el turno del atacante o la secuencia de turno no coincide */
+    public static final int ERROR_TURNO = -4;
+
+    /** Instancia única del motor */
+    private static final MotorJuego instancia = new MotorJuego();
+
+    /**
+     * Constructor privado para el patrón Singleton.
+     */
+    private MotorJuego() {
+    }
+
+    /**
+     * Obtiene la instancia única del motor.
+     *
+     * @return Instancia única de MotorJuego
+     */
+    public static MotorJuego getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * Aplica un ataque sobre el tablero del rival del atacante, sin comprobar el turno.
+     *
+     * @param partida Partida en la que se ataca
+     * @param atacante Usuario que ataca
+     * @param fila Fila de la casilla atacada
+     * @param columna Columna de la casilla atacada
+     * @return AGUA, TOCADO o HUNDIDO, o un código de error negativo
+     */
+    public int atacar(Partida partida, Usuario atacante, int fila, int columna) {
+        int error = validar(partida, atacante, fila, columna);
+        if (error != 0) {
+            return error;
+        }
+        int codigo = aplicar(partida, atacante, fila, columna);
+        partida.publicarInstantanea();
+        return codigo;
+    }
+
+    /**
+     * Aplica un ataque en el turno indicado.
+     * La casilla se valida antes de tocar el turno: una casilla repetida o fuera
+     * del tablero devuelve su error sin consumir la secuencia, de modo que el
+     * siguiente ataque del cliente con la misma secuencia sigue siendo válido.
+     * Un ataque válido solo se aplica si el atacante reclama el turno
+     * (secuencia, atacante), lo que además pasa el turno al rival. El resultado
+     * se recuerda para responder a reintentos y, si hunde el último barco del
+     * rival, termina la partida. La partida publica una sola instantánea, al
+     * final, con el turno, el daño y el resultado ya aplicados.
+     *
+     * @param partida Partida en la que se ataca
+     * @param atacante Usuario que ataca
+     * @param fila Fila de la casilla atacada
+     * @param columna Columna de la casilla atacada
+     * @param secuencia Secuencia del turno en el que ataca el usuario
+     * @return AGUA, TOCADO, HUNDIDO o VICTORIA, o un código de error negativo
+     */
+    public int atacar(Partida partida, Usuario atacante, int fila, int columna, long secuencia) {
+        if (partida.getSecuenciaTurno() != secuencia || !puedeAtacar(partida, atacante)) {
+            return ERROR_TURNO;
+        }
+        int error = validar(partida, atacante, fila, columna);
+        if (error != 0) {
+            return error;
+        }
+        if (!partida.reclamarTurno(secuencia, atacante)) {
+            return ERROR_TURNO;
+        }
+        int codigo = aplicar(partida, atacante, fila, columna);
+        if (codigo == HUNDIDO) {
+            Tablero tablero = partida.getTableroJugador(partida.getRival(atacante));
+            if (tablero.todosBarcosHundidos() && partida.terminar(atacante)) {
+                codigo = VICTORIA;
+            }
+        }
+        partida.registrarResultadoAtaque(secuencia, atacante, describir(codigo));
+        partida.publicarInstantanea();
+        return codigo;
+    }
+
+    /**
+     * Comprueba que un ataque cae en una casilla aún no atacada del tablero del rival.
+     * No modifica la partida.
+     *
+     * @param partida Partida en la que se ataca
+     * @param atacante Usuario que ataca
+     * @param fila Fila de la casilla atacada
+     * @param columna Columna de la casilla atacada
+     * @return 0 si el ataque es válido, o un código de error negativo
+     */
+    private int validar(Partida partida, Usuario atacante, int fila, int columna) {
+        Usuario defensor = partida.getRival(atacante);
+        Tablero tablero = defensor != null ? partida.getTableroJugador(defensor) : null;
+        if (tablero == null || tablero.cas == null) {
+            return ERROR_JUGADOR;
+        }
+        if (fila < 0 || fila >= tablero.cas.length || columna < 0 || columna >= tablero.cas[fila].length) {
+            return ERROR_COORDENADA;
+        }
+        Estado estado = tablero.cas[fila][columna].getEstado();
+        if (estado == Agua.getInstancia() || estado == Tocado.getInstancia()) {
+            return ERROR_YA_ATACADA;
+        }
+        return 0;
+    }
+
+    /**
+     * Aplica el daño de un ataque ya validado y lo añade al historial de la partida.
+     * Tras validar, la casilla solo puede ser agua o barco sin atacar, así que
+     * el ataque siempre se aplica.
+     *
+     * @param partida Partida en la que se ataca
+     * @param atacante Usuario que ataca
+     * @param fila Fila de la casilla atacada
+     * @param columna Columna de la casilla atacada
+     * @return AGUA, TOCADO o HUNDIDO
+     */
+    private int aplicar(Partida partida, Usuario atacante, int fila, int columna) {
+        Casilla casilla = partida.getTableroJugador(partida.getRival(atacante)).cas[fila][columna];
+        Estado antes = casilla.getEstado();
+        assert antes == DesconocidoAgua.getInstancia() || antes == DesconocidoBarco.getInstancia() : antes;
+        casilla.getDaño();
+        partida.registrarAtaque(atacante, casilla);
+
+        if (antes == DesconocidoAgua.getInstancia()) {
+            return AGUA;
+        }
+        Barco barco = casilla.getBarco();
+        return barco != null && barco.estaHundido() ? HUNDIDO : TOCADO;
+    }
+
+    /**
+     * Indica si la partida está en combate y es el turno del usuario.
+     *
+     * @param partida Partida a consultar
+     * @param usuario Usuario a comprobar
+     * @return true si el usuario puede atacar
+     */
+    public boolean puedeAtacar(Partida partida, Usuario usuario) {
+        return partida.getFase() == FasePartida.PLAYING && partida.esTurnoDe(usuario);
+    }
+
+    /**
+     * Indica si un código de resultado es un error.
+     *
+     * @param codigo Código devuelto por atacar
+     * @return true si el código es negativo
+     */
+    public static boolean esError(int codigo) {
+        return codigo < 0;
+    }
+
+    /**
+     * Indica si un código de resultado corresponde a un ataque rechazado, que
+     * no ha modificado la partida ni consumido el turno.
+     *
+     * @param codigo Código devuelto por atacar
+     * @return true si el ataque no se ha aplicado
+     */
+    public static boolean esRechazado(int codigo) {
+        return codigo == ERROR_COORDENADA || codigo == ERROR_YA_ATACADA
+            || codigo == ERROR_JUGADOR || codigo == ERROR_TURNO;
+    }
+
+    /**
+     * Traduce un código de resultado al texto del protocolo del servidor.
+     * Los textos son constantes, de modo que la traducción no reserva memoria.
+     *
+     * @param codigo Código devuelto por atacar
+     * @return "agua", "tocado", "hundido" o un mensaje "error:..."
+     */
+    public static String describir(int codigo) {
+        switch (codigo) {
+            case AGUA:
+                return "agua";
+            case TOCADO:
+                return "tocado";
+            case HUNDIDO:
+            case VICTORIA:
+                return "hundido";
+            case ERROR_COORDENADA:
+                return "error:Coordenada inválida";
+            case ERROR_YA_ATACADA:
+                return "error:Casilla ya atacada";
+            case ERROR_JUGADOR:
+                return "error:Jugador no encontrado en la partida";
+            case ERROR_TURNO:
+                return "error:No es tu turno";
+            default:
+                return "error:Estado inesperado";
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package Partida;
+
+import Cliente.Usuario;
+
+/**
+ * Clase que representa la colocación inicial de un barco por parte de un usuario.
+ * Guarda el tipo, la posición de anclaje y la orientación tal y como se recibieron
+ * en el servidor, de forma que la flota de cada jugador pueda reconstruirse
+ * a partir de la partida guardada.
+ * 
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class Colocacion {
+    
+    /** Usuario que colocó el barco */
+    private Usuario usuario;
+    /** Tipo de barco colocado (PORTAVIONES, SUBMARINO, DESTRUCTOR o FRAGATA) */
+    private String tipoBarco;
+    /** Fila de la casilla inicial del barco */
+    private int fila;
+    /** Columna de la casilla inicial del barco */
+    private int columna;
+    /** Orientación del barco ("HORIZONTAL" o "VERTICAL") */
+    private String orientacion;
+
+    /**
+     * Constructor que crea una nueva colocación con los datos especificados.
+     * 
+     * @param usuario Usuario que coloca el barco
+     * @param tipoBarco Tipo de barco colocado
+     * @param fila Fila de la casilla inicial
+     * @param columna Columna de la casilla inicial
+     * @param orientacion Orientación del barco
+     */
+    public Colocacion(Usuario usuario, String tipoBarco, int fila, int columna, String orientacion) {
+        this.usuario = usuario;
+        this.tipoBarco = tipoBarco;
+        this.fila = fila;
+        this.columna = columna;
+        this.orientacion = orientacion;
+    }
+
+    /**
+     * Obtiene el usuario que colocó el barco.
+     * 
+     * @return Usuario propietario del barco
+     */
+    public Usuario getUsuario() {
+        return this.usuario;
+    }
+
+    /**
+     * Obtiene el tipo de barco colocado.
+     * 
+     * @return Nombre del tipo de barco
+     */
+    public String getTipoBarco() {
+        return this.tipoBarco;
+    }
+
+    /**
+     * Obtiene la fila de la casilla inicial del barco.
+     * 
+     * @return Fila de anclaje
+     */
+    public int getFila() {
+        return this.fila;
+    }
+
+    /**
+     * Obtiene la columna de la casilla inicial del barco.
+     * 
+     * @return Columna de anclaje
+     */
+    public int getColumna() {
+        return this.columna;
+    }
+
+    /**
+     * Obtiene la orientación del barco.
+     * 
+     * @return "HORIZONTAL" o "VERTICAL"
+     */
+    public String getOrientacion() {
+        return this.orientacion;
+    }
+}
@@ -0,0 +1,42 @@
+package Partida;
+
+/**
+ * Enumeración que define las fases del ciclo de vida de una partida.
+ * Una partida solo avanza hacia delante: LOBBY, PLACING, READY, PLAYING y FINISHED.
+ * Las transiciones se realizan con una operación compare-and-set sobre la fase
+ * de la partida, de modo que cada transición la gana exactamente un hilo.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public enum FasePartida {
+    /** La partida está creada y espera a que se una un rival */
+    LOBBY,
+    /** Ambos jugadores están en la partida y colocan sus barcos */
+    PLACING,
+    /** Ambos jugadores han colocado toda su flota; el combate aún no ha empezado */
+    READY,
+    /** Fase de combate: los jugadores se atacan por turnos */
+    PLAYING,
+    /** La partida ha terminado y tiene ganador */
+    FINISHED;
+
+    /**
+     * Indica si en esta fase se pueden colocar barcos.
+     *
+     * @return true en LOBBY y PLACING, false en el resto
+     */
+    public boolean permiteColocacion() {
+        return this == LOBBY || this == PLACING;
+    }
+
+    /**
+     * Indica si la partida ha alcanzado al menos la fase indicada.
+     *
+     * @param fase Fase con la que comparar
+     * @return true si esta fase es igual o posterior a la indicada
+     */
+    public boolean alcanzada(FasePartida fase) {
+        return compareTo(fase) >= 0;
+    }
+}
@@ -0,0 +1,220 @@
+package Partida;
+
+/**
+ * Instantánea inmutable y versionada del estado de una partida.
+ * La partida publica una nueva instantánea después de cada comando aplicado,
+ * de modo que la persistencia, los espectadores y las estadísticas pueden leer
+ * una vista coherente sin bloquear la partida ni hacer esperar al jugador.
+ *
+ * Los tableros se representan con máscaras de 64 bits: el bit f * 8 + c
+ * corresponde a la casilla cas[f][c].
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class InstantaneaPartida {
+
+    /** Versión de la instantánea, creciente dentro de la misma partida */
+    private final long version;
+    /** Fase de la partida */
+    private final FasePartida fase;
+    /** Nombre del usuario principal */
+    private final String nombrePrincipal;
+    /** Nombre del usuario rival (null si aún no se ha unido) */
+    private final String nombreRival;
+    /** Nombre del usuario con el turno (null si no se han inicializado los turnos) */
+    private final String nombreTurno;
+    /** Nombre del ganador (null si la partida no ha terminado) */
+    private final String nombreGanador;
+    /** Nombre del perdedor (null si la partida no ha terminado) */
+    private final String nombrePerdedor;
+    /** Número de movimientos realizados */
+    private final int numeroMovimientos;
+    /** Casillas con barco del tablero principal */
+    private final long barcosPrincipal;
+    /** Casillas atacadas del tablero principal */
+    private final long impactosPrincipal;
+    /** Casillas con barco del tablero rival */
+    private final long barcosRival;
+    /** Casillas atacadas del tablero rival */
+    private final long impactosRival;
+
+    /**
+     * Constructor que crea una instantánea con los valores ya copiados de la partida.
+     *
+     * @param version Versión de la instantánea
+     * @param fase Fase de la partida
+     * @param nombrePrincipal Nombre del usuario principal
+     * @param nombreRival Nombre del usuario rival o null
+     * @param nombreTurno Nombre del usuario con el turno o null
+     * @param nombreGanador Nombre del ganador o null
+     * @param nombrePerdedor Nombre del perdedor o null
+     * @param numeroMovimientos Número de movimientos realizados
+     * @param barcosPrincipal Casillas con barco del tablero principal
+     * @param impactosPrincipal Casillas atacadas del tablero principal
+     * @param barcosRival Casillas con barco del tablero rival
+     * @param impactosRival Casillas atacadas del tablero rival
+     */
+    InstantaneaPartida(long version, FasePartida fase, String nombrePrincipal, String nombreRival, String nombreTurno,
+                       String nombreGanador, String nombrePerdedor, int numeroMovimientos, long barcosPrincipal,
+                       long impactosPrincipal, long barcosRival, long impactosRival) {
+        this.version = version;
+        this.fase = fase;
+        this.nombrePrincipal = nombrePrincipal;
+        this.nombreRival = nombreRival;
+        this.nombreTurno = nombreTurno;
+        this.nombreGanador = nombreGanador;
+        this.nombrePerdedor = nombrePerdedor;
+        this.numeroMovimientos = numeroMovimientos;
+        this.barcosPrincipal = barcosPrincipal;
+        this.impactosPrincipal = impactosPrincipal;
+        this.barcosRival = barcosRival;
+        this.impactosRival = impactosRival;
+    }
+
+    /**
+     * Obtiene la versión de la instantánea.
+     *
+     * @return Versión creciente dentro de la partida
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene la fase de la partida en el momento de la instantánea.
+     *
+     * @return Fase de la partida
+     */
+    public FasePartida getFase() {
+        return fase;
+    }
+
+    /**
+     * Obtiene el nombre del usuario principal.
+     *
+     * @return Nombre del usuario principal
+     */
+    public String getNombrePrincipal() {
+        return nombrePrincipal;
+    }
+
+    /**
+     * Obtiene el nombre del usuario rival.
+     *
+     * @return Nombre del rival o null si la partida espera rival
+     */
+    public String getNombreRival() {
+        return nombreRival;
+    }
+
+    /**
+     * Obtiene el nombre del usuario que tiene el turno.
+     *
+     * @return Nombre del usuario con el turno o null si no se ha iniciado el combate
+     */
+    public String getNombreTurno() {
+        return nombreTurno;
+    }
+
+    /**
+     * Obtiene el nombre del ganador.
+     *
+     * @return Nombre del ganador o null si la partida no ha terminado
+     */
+    public String getNombreGanador() {
+        return nombreGanador;
+    }
+
+    /**
+     * Obtiene el nombre del perdedor.
+     *
+     * @return Nombre del perdedor o null si la partida no ha terminado
+     */
+    public String getNombrePerdedor() {
+        return nombrePerdedor;
+    }
+
+    /**
+     * Obtiene el número de movimientos realizados.
+     *
+     * @return Cantidad de ataques de ambos jugadores
+     */
+    public int getNumeroMovimientos() {
+        return numeroMovimientos;
+    }
+
+    /**
+     * Obtiene las casillas con barco del tablero principal.
+     *
+     * @return Máscara de barcos del tablero principal
+     */
+    public long getBarcosPrincipal() {
+        return barcosPrincipal;
+    }
+
+    /**
+     * Obtiene las casillas atacadas del tablero principal.
+     *
+     * @return Máscara de impactos del tablero principal
+     */
+    public long getImpactosPrincipal() {
+        return impactosPrincipal;
+    }
+
+    /**
+     * Obtiene las casillas con barco del tablero rival.
+     *
+     * @return Máscara de barcos del tablero rival
+     */
+    public long getBarcosRival() {
+        return barcosRival;
+    }
+
+    /**
+     * Obtiene las casillas atacadas del tablero rival.
+     *
+     * @return Máscara de impactos del tablero rival
+     */
+    public long getImpactosRival() {
+        return impactosRival;
+    }
+
+    /**
+     * Indica si la partida espera todavía a un segundo jugador.
+     *
+     * @return true si no hay usuario rival
+     */
+    public boolean estaDisponible() {
+        return nombreRival == null;
+    }
+
+    /**
+     * Indica si la partida ha terminado.
+     *
+     * @return true si hay ganador y perdedor
+     */
+    public boolean haTerminado() {
+        return nombreGanador != null && nombrePerdedor != null;
+    }
+
+    /**
+     * Obtiene estadísticas básicas de la partida en el momento de la instantánea.
+     *
+     * @return String con información resumida de la partida
+     */
+    public String getEstadisticas() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("Partida: ").append(nombrePrincipal).append("vs").append(nombreRival).append("\n");
+        stats.append("Movimientos totales: ").append(numeroMovimientos).append("\n");
+        stats.append("Estado: ");
+
+        if (haTerminado()) {
+            stats.append("Terminada - Ganador: ").append(nombreGanador);
+        } else {
+            stats.append("En curso - Turno: ").append(nombreTurno != null ? nombreTurno : "No iniciado");
+        }
+
+        return stats.toString();
+    }
+}
@@ -2,9 +2,12 @@ package Partida;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import Cliente.Usuario;
 import Tablero.Casilla;
 import Tablero.Coordenadas;
+import Tablero.PoolTableros;
 import Tablero.Tablero;
 
 /**
@@ -18,6 +21,21 @@ import Tablero.Tablero;
  */
 public class Partida {
     
+    /** Acceso atómico a la fase de la partida sin reservar un objeto por partida */
+    private static final AtomicReferenceFieldUpdater<Partida, FasePartida> FASE =
+        AtomicReferenceFieldUpdater.newUpdater(Partida.class, FasePartida.class, "fase");
+    /** Acceso atómico al turno codificado de la partida */
+    private static final AtomicLongFieldUpdater<Partida> TURNO =
+        AtomicLongFieldUpdater.newUpdater(Partida.class, "turno");
+    /** Valor del turno cuando aún no se han inicializado los turnos */
+    private static final long SIN_TURNO = 0L;
+    /** Índice del usuario principal en el turno codificado */
+    private static final int PRINCIPAL = 0;
+    /** Índice del usuario rival en el turno codificado */
+    private static final int RIVAL = 1;
+    /** Número de resultados de ataque recordados para responder a reintentos */
+    private static final int ATAQUES_RECORDADOS = 8;
+    
     /** Usuario principal de la partida (jugador que creó la partida) */
     private Usuario usuarioPrincipal;
     /** Usuario rival (jugador que se unió a la partida) */
@@ -28,28 +46,124 @@ public class Partida {
     private Tablero tableroRival;
     /** Lista de todos los movimientos realizados en la partida */
     private List<Movimiento> movimientos;
+    /** Lista de las colocaciones de barcos de ambos jugadores, en orden de llegada */
+    private List<Colocacion> colocaciones;
     /** Usuario ganador de la partida (null si no ha terminado) */
     private Usuario ganador;
     /** Usuario perdedor de la partida (null si no ha terminado) */
     private Usuario perdedor;
-    /** Usuario que tiene el turno actual para atacar */
-    private Usuario turnoActual;
+    /**
+     * Turno actual codificado como (secuencia << 1) | jugador, donde jugador es 0
+     * para el principal y 1 para el rival. La secuencia empieza en 1 y crece con
+     * cada ataque; 0 indica que no se han inicializado los turnos.
+     */
+    private volatile long turno;
+    /** Turno codificado de cada ataque recordado (anillo indexado por secuencia) */
+    private transient long[] turnosAtaque;
+    /** Resultado de cada ataque recordado */
+    private transient String[] resultadosAtaque;
+    /** Fase actual del ciclo de vida; solo cambia mediante compare-and-set */
+    private volatile FasePartida fase;
+    /** Sesión del usuario principal (null si no está conectado) */
+    private transient volatile SesionJugador sesionPrincipal;
+    /** Sesión del usuario rival (null si no está conectado) */
+    private transient volatile SesionJugador sesionRival;
+    /** Última instantánea publicada, leída sin bloqueos por persistencia y estadísticas */
+    private transient volatile InstantaneaPartida instantanea;
 
     /**
      * Constructor que crea una nueva partida entre dos usuarios.
-     * Inicializa los tableros vacíos para ambos jugadores y la lista de movimientos.
+     * Sin rival, la partida queda en LOBBY y aún no reserva tableros; con rival,
+     * entra directamente en colocación y obtiene sus tableros del pool.
      * 
      * @param usuarioPrincipal Usuario que creó la partida
-     * @param usuarioRival Usuario que se unió a la partida
+     * @param usuarioRival Usuario que se unió a la partida, o null si aún no hay rival
      */
     public Partida(Usuario usuarioPrincipal, Usuario usuarioRival) {
+        this(usuarioPrincipal, usuarioRival, true);
+    }
+
+    /**
+     * Constructor que crea una partida eligiendo de dónde salen sus tableros.
+     * Las partidas que se leen de disco o se reproducen para consultarlas usan
+     * tableros nuevos, fuera del pool: nadie las libera al terminar, y si
+     * tomaran tableros del pool lo irían vaciando.
+     * 
+     * @param usuarioPrincipal Usuario que creó la partida
+     * @param usuarioRival Usuario que se unió a la partida, o null si aún no hay rival
+     * @param tablerosDelPool true para obtener los tableros del pool, false para crearlos nuevos
+     */
+    public Partida(Usuario usuarioPrincipal, Usuario usuarioRival, boolean tablerosDelPool) {
         this.usuarioPrincipal = usuarioPrincipal;
         this.usuarioRival = usuarioRival;
-        this.tableroPrincipal = new Tablero();
-        this.tableroPrincipal.RellenaTablero();
-        this.tableroRival = new Tablero();
-        this.tableroRival.RellenaTablero();
         this.movimientos = new ArrayList<Movimiento>();
+        this.colocaciones = new ArrayList<Colocacion>();
+        if (usuarioRival != null) {
+            if (tablerosDelPool) {
+                asignarTableros();
+            } else {
+                this.tableroPrincipal = crearTablero();
+                this.tableroRival = crearTablero();
+            }
+        }
+        this.fase = usuarioRival == null ? FasePartida.LOBBY : FasePartida.PLACING;
+        publicarInstantanea();
+    }
+
+    /**
+     * Une un rival a una partida en LOBBY y la pasa a la fase de colocación.
+     * Los tableros se obtienen del pool en este momento, de modo que las
+     * partidas que nunca reciben rival no llegan a reservarlos.
+     * 
+     * @param rival Usuario que se une a la partida
+     * @return true si el rival se ha unido, false si la partida ya tenía rival
+     */
+    public synchronized boolean unirRival(Usuario rival) {
+        if (this.usuarioRival != null || getFase() != FasePartida.LOBBY) {
+            return false;
+        }
+        this.usuarioRival = rival;
+        asignarTableros();
+        return cambiarFase(FasePartida.LOBBY, FasePartida.PLACING);
+    }
+
+    /**
+     * Devuelve los tableros de una partida terminada al pool para reutilizarlos.
+     * Debe llamarse después de guardar la partida: a partir de aquí la partida
+     * ya no tiene tableros.
+     * 
+     * @return true si se han devuelto los tableros, false si la partida no ha terminado o ya no los tenía
+     */
+    public synchronized boolean liberarTableros() {
+        if (getFase() != FasePartida.FINISHED || this.tableroPrincipal == null) {
+            return false;
+        }
+        PoolTableros pool = PoolTableros.getInstancia();
+        pool.liberar(this.tableroPrincipal);
+        pool.liberar(this.tableroRival);
+        this.tableroPrincipal = null;
+        this.tableroRival = null;
+        return true;
+    }
+
+    /**
+     * Obtiene del pool los tableros vacíos de ambos jugadores.
+     */
+    private void asignarTableros() {
+        PoolTableros pool = PoolTableros.getInstancia();
+        this.tableroPrincipal = pool.obtener();
+        this.tableroRival = pool.obtener();
+    }
+
+    /**
+     * Crea un tablero vacío fuera del pool.
+     * 
+     * @return Tablero vacío con sus casillas creadas
+     */
+    private static Tablero crearTablero() {
+        Tablero tablero = new Tablero();
+        tablero.RellenaTablero();
+        return tablero;
     }
 
     /**
@@ -61,17 +175,61 @@ public class Partida {
      * @throws IllegalArgumentException Si el usuario no participa en esta partida
      */
     public void addMovimiento(Usuario usuario, Coordenadas id) {
-        if (usuario.equals(this.usuarioPrincipal)) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
             Casilla casilla = this.tableroPrincipal.getCasilla(id);
             this.tableroPrincipal.getDaño(id);
             this.movimientos.add(new Movimiento(usuario, casilla));
-        } else if (usuario.equals(this.usuarioRival)) {
+        } else if (esUsuario(usuario, this.usuarioRival)) {
             Casilla casilla = this.tableroRival.getCasilla(id);
             this.tableroRival.getDaño(id);
             this.movimientos.add(new Movimiento(usuario, casilla));
         } else {
             throw new IllegalArgumentException("Ese usuario no se encuentra en la partida.");
         }
+        publicarInstantanea();
+    }
+
+    /**
+     * Registra en el historial un ataque que ya ha sido aplicado sobre el tablero del rival.
+     * A diferencia de addMovimiento, no modifica ningún tablero ni publica una
+     * instantánea: quien aplica el ataque la publica al terminar el comando.
+     * 
+     * @param atacante Usuario que realizó el ataque
+     * @param casilla Casilla del tablero rival que recibió el ataque
+     */
+    public void registrarAtaque(Usuario atacante, Casilla casilla) {
+        this.movimientos.add(new Movimiento(atacante, casilla));
+    }
+
+    /**
+     * Registra la colocación de un barco que ya ha sido situado en el tablero del usuario.
+     * Junto con el historial de movimientos permite reconstruir la partida completa.
+     * 
+     * @param usuario Usuario que colocó el barco
+     * @param tipoBarco Tipo de barco colocado
+     * @param fila Fila de la casilla inicial
+     * @param columna Columna de la casilla inicial
+     * @param orientacion Orientación del barco
+     */
+    public void addColocacion(Usuario usuario, String tipoBarco, int fila, int columna, String orientacion) {
+        if (this.colocaciones == null) {
+            this.colocaciones = new ArrayList<Colocacion>();
+        }
+        this.colocaciones.add(new Colocacion(usuario, tipoBarco, fila, columna, orientacion));
+        publicarInstantanea();
+    }
+
+    /**
+     * Obtiene las colocaciones de barcos registradas en la partida.
+     * Las partidas guardadas antes de registrar colocaciones devuelven una lista vacía.
+     * 
+     * @return Lista de colocaciones ordenadas cronológicamente
+     */
+    public List<Colocacion> getColocaciones() {
+        if (this.colocaciones == null) {
+            this.colocaciones = new ArrayList<Colocacion>();
+        }
+        return this.colocaciones;
     }
 
     /**
@@ -118,8 +276,7 @@ public class Partida {
      * Automáticamente marca al usuario rival como perdedor.
      */
     public void setGanadorPrincipal() {
-        setGanador(this.usuarioPrincipal);
-        setPerdedorRival();
+        setResultado(this.usuarioPrincipal, this.usuarioRival);
     }
 
     /**
@@ -127,40 +284,56 @@ public class Partida {
      * Automáticamente marca al usuario principal como perdedor.
      */
     public void setGanadorRival() {
-        setGanador(this.usuarioRival);
-        setPerdedorPrincipal();
+        setResultado(this.usuarioRival, this.usuarioPrincipal);
+    }
+
+    /**
+     * Establece el ganador y el perdedor de la partida a la vez y publica una
+     * única instantánea, de modo que nadie ve una partida con ganador y sin perdedor.
+     * 
+     * @param ganador Usuario que ganó la partida
+     * @param perdedor Usuario que perdió la partida
+     */
+    public synchronized void setResultado(Usuario ganador, Usuario perdedor) {
+        this.ganador = ganador;
+        this.perdedor = perdedor;
+        publicarInstantanea();
     }
 
     /**
      * Establece un usuario específico como ganador de la partida.
+     * Su rival queda como perdedor.
      * 
      * @param usuario Usuario que ganó la partida
      */
     public void setGanador(Usuario usuario) {
-        this.ganador = usuario;
+        setResultado(usuario, getRival(usuario));
     }
 
     /**
      * Establece al usuario principal como perdedor de la partida.
+     * Automáticamente marca al usuario rival como ganador.
      */
     public void setPerdedorPrincipal() {
-        setPerdedor(this.usuarioPrincipal);
+        setResultado(this.usuarioRival, this.usuarioPrincipal);
     }
 
     /**
      * Establece al usuario rival como perdedor de la partida.
+     * Automáticamente marca al usuario principal como ganador.
      */
     public void setPerdedorRival() {
-        setPerdedor(this.usuarioRival);
+        setResultado(this.usuarioPrincipal, this.usuarioRival);
     }
 
     /**
      * Establece un usuario específico como perdedor de la partida.
+     * Su rival queda como ganador.
      * 
      * @param usuario Usuario que perdió la partida
      */
     public void setPerdedor(Usuario usuario) {
-        this.perdedor = usuario;
+        setResultado(getRival(usuario), usuario);
     }
 
     /**
@@ -207,9 +380,9 @@ public class Partida {
      * @return Tablero del usuario especificado o null si no participa en la partida
      */
     public Tablero getTableroJugador(Usuario usuario) {
-        if (usuario.equals(this.usuarioPrincipal)) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
             return this.tableroPrincipal;
-        } else if (usuario.equals(this.usuarioRival)) {
+        } else if (esUsuario(usuario, this.usuarioRival)) {
             return this.tableroRival;
         } else {
             return null;
@@ -221,7 +394,8 @@ public class Partida {
      * Debe llamarse al comenzar la fase de combate de la partida.
      */
     public void inicializarTurno() {
-        this.turnoActual = usuarioPrincipal;
+        TURNO.set(this, codificarTurno(1L, PRINCIPAL));
+        publicarInstantanea();
     }
 
     /**
@@ -230,7 +404,21 @@ public class Partida {
      * @return Usuario con el turno actual o null si no se han inicializado los turnos
      */
     public Usuario getTurnoActual() {
-        return turnoActual;
+        long actual = this.turno;
+        if (actual == SIN_TURNO) {
+            return null;
+        }
+        return jugadorDeTurno(actual) == PRINCIPAL ? usuarioPrincipal : usuarioRival;
+    }
+
+    /**
+     * Obtiene el número de secuencia del turno actual.
+     * Cada ataque aceptado incrementa la secuencia en uno.
+     * 
+     * @return Secuencia del turno actual o 0 si no se han inicializado los turnos
+     */
+    public long getSecuenciaTurno() {
+        return this.turno >>> 1;
     }
 
     /**
@@ -239,11 +427,231 @@ public class Partida {
      * Si es turno del principal, cambia al rival y viceversa.
      */
     public void cambiarTurno() {
-        if (turnoActual.equals(usuarioPrincipal)) {
-            turnoActual = usuarioRival;
-        } else {
-            turnoActual = usuarioPrincipal;
+        long actual;
+        do {
+            actual = this.turno;
+        } while (!TURNO.compareAndSet(this, actual, siguienteTurno(actual)));
+        publicarInstantanea();
+    }
+
+    /**
+     * Reclama el turno indicado para realizar un ataque y se lo pasa al rival.
+     * Solo tiene éxito si la partida está en combate y el turno actual es
+     * exactamente (secuencia, atacante); en ese caso pasa de forma atómica a
+     * (secuencia + 1, defensor). Un ataque duplicado o reintentado con la misma
+     * secuencia no puede aplicarse dos veces. No publica una instantánea: el
+     * turno cambia antes de aplicar el daño, y quien aplica el ataque publica
+     * una sola al terminarlo.
+     * 
+     * @param secuencia Secuencia del turno en el que ataca el usuario
+     * @param atacante Usuario que realiza el ataque
+     * @return true si el ataque ha sido aceptado
+     */
+    public boolean reclamarTurno(long secuencia, Usuario atacante) {
+        int jugador = indiceJugador(atacante);
+        if (jugador < 0 || this.fase != FasePartida.PLAYING) {
+            return false;
+        }
+        long esperado = codificarTurno(secuencia, jugador);
+        return TURNO.compareAndSet(this, esperado, siguienteTurno(esperado));
+    }
+
+    /**
+     * Recuerda el resultado de un ataque aceptado para responder a sus reintentos.
+     * Solo se conservan los últimos ataques de la partida.
+     * 
+     * @param secuencia Secuencia del turno en el que se atacó
+     * @param atacante Usuario que realizó el ataque
+     * @param resultado Resultado enviado al atacante
+     */
+    public synchronized void registrarResultadoAtaque(long secuencia, Usuario atacante, String resultado) {
+        if (turnosAtaque == null) {
+            turnosAtaque = new long[ATAQUES_RECORDADOS];
+            resultadosAtaque = new String[ATAQUES_RECORDADOS];
+        }
+        int posicion = (int) (secuencia % ATAQUES_RECORDADOS);
+        turnosAtaque[posicion] = codificarTurno(secuencia, indiceJugador(atacante));
+        resultadosAtaque[posicion] = resultado;
+    }
+
+    /**
+     * Obtiene el resultado de un ataque ya aceptado en el turno indicado.
+     * 
+     * @param secuencia Secuencia del turno en el que se atacó
+     * @param atacante Usuario que realizó el ataque
+     * @return Resultado del ataque o null si no se recuerda ningún ataque de ese usuario en ese turno
+     */
+    public synchronized String getResultadoAtaque(long secuencia, Usuario atacante) {
+        if (turnosAtaque == null || secuencia <= 0) {
+            return null;
+        }
+        int posicion = (int) (secuencia % ATAQUES_RECORDADOS);
+        if (turnosAtaque[posicion] != codificarTurno(secuencia, indiceJugador(atacante))) {
+            return null;
         }
+        return resultadosAtaque[posicion];
+    }
+
+    /**
+     * Codifica un turno a partir de su secuencia y del jugador que ataca.
+     * 
+     * @param secuencia Secuencia del turno
+     * @param jugador 0 para el principal, 1 para el rival
+     * @return Turno codificado
+     */
+    private static long codificarTurno(long secuencia, int jugador) {
+        return secuencia << 1 | jugador;
+    }
+
+    /**
+     * Obtiene el jugador de un turno codificado.
+     * 
+     * @param turno Turno codificado
+     * @return 0 para el principal, 1 para el rival
+     */
+    private static int jugadorDeTurno(long turno) {
+        return (int) (turno & 1L);
+    }
+
+    /**
+     * Calcula el turno siguiente: incrementa la secuencia y cambia de jugador.
+     * 
+     * @param turno Turno codificado actual
+     * @return Turno codificado siguiente
+     */
+    private static long siguienteTurno(long turno) {
+        return codificarTurno((turno >>> 1) + 1, jugadorDeTurno(turno) ^ 1);
+    }
+
+    /**
+     * Obtiene el índice de un usuario en el turno codificado.
+     * 
+     * @param usuario Usuario de la partida
+     * @return 0 para el principal, 1 para el rival o -1 si no participa
+     */
+    private int indiceJugador(Usuario usuario) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
+            return PRINCIPAL;
+        } else if (esUsuario(usuario, this.usuarioRival)) {
+            return RIVAL;
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene la fase actual de la partida con una única lectura volátil.
+     * Las partidas guardadas antes de registrar la fase se consideran
+     * terminadas si tienen ganador y en colocación en caso contrario.
+     * 
+     * @return Fase actual de la partida
+     */
+    public FasePartida getFase() {
+        FasePartida actual = this.fase;
+        if (actual == null) {
+            return ganador != null ? FasePartida.FINISHED : FasePartida.PLACING;
+        }
+        return actual;
+    }
+
+    /**
+     * Cambia la fase de la partida solo si la fase actual es la esperada.
+     * Si varios hilos intentan la misma transición, solo uno tiene éxito.
+     * 
+     * @param esperada Fase en la que debe estar la partida
+     * @param nueva Fase a la que pasa la partida
+     * @return true si este hilo ha realizado la transición
+     */
+    public boolean cambiarFase(FasePartida esperada, FasePartida nueva) {
+        if (!FASE.compareAndSet(this, esperada, nueva)) {
+            return false;
+        }
+        publicarInstantanea();
+        return true;
+    }
+
+    /**
+     * Marca la partida como lista para el combate tras colocar ambas flotas.
+     * El turno inicial se fija antes de publicar la fase READY, de modo que
+     * quien lea una fase de combate siempre vea también el turno.
+     * 
+     * @return true si este hilo ha realizado la transición a READY
+     */
+    public boolean marcarLista() {
+        if (getFase() != FasePartida.PLACING) {
+            return false;
+        }
+        TURNO.set(this, codificarTurno(1L, PRINCIPAL));
+        return cambiarFase(FasePartida.PLACING, FasePartida.READY);
+    }
+
+    /**
+     * Inicia la fase de combate si la partida está lista.
+     * Puede invocarse desde las conexiones de ambos jugadores: solo la
+     * primera llamada cambia de fase, las demás no tienen efecto.
+     * 
+     * @return true si este hilo ha iniciado el combate
+     */
+    public boolean iniciarCombate() {
+        return cambiarFase(FasePartida.READY, FasePartida.PLAYING);
+    }
+
+    /**
+     * Termina la partida con el ganador indicado.
+     * Solo la primera llamada durante el combate tiene efecto. La fase y el
+     * resultado cambian bajo el mismo cerrojo que publica las instantáneas,
+     * así que ninguna instantánea muestra la partida terminada sin resultado.
+     * No publica una instantánea: la publica quien termina el comando.
+     * 
+     * @param ganador Usuario que ha ganado la partida
+     * @return true si este hilo ha terminado la partida
+     */
+    public synchronized boolean terminar(Usuario ganador) {
+        if (!FASE.compareAndSet(this, FasePartida.PLAYING, FasePartida.FINISHED)) {
+            return false;
+        }
+        this.ganador = ganador;
+        this.perdedor = getRival(ganador);
+        return true;
+    }
+
+    /**
+     * Restablece la fase, el turno y el resultado de una partida guardada.
+     * Solo debe usarse al reconstruir una partida desde disco, antes de
+     * compartirla con otros hilos.
+     *
+     * @param fase Fase guardada
+     * @param turno Turno codificado guardado
+     * @param ganador Usuario ganador o null
+     * @param perdedor Usuario perdedor o null
+     */
+    public synchronized void restaurar(FasePartida fase, long turno, Usuario ganador, Usuario perdedor) {
+        this.fase = fase;
+        this.turno = turno;
+        this.ganador = ganador;
+        this.perdedor = perdedor;
+        publicarInstantanea();
+    }
+
+    /**
+     * Obtiene el turno codificado como (secuencia << 1) | jugador.
+     * Pensado para guardar la partida; para jugar usar getTurnoActual y getSecuenciaTurno.
+     *
+     * @return Turno codificado o 0 si no se han inicializado los turnos
+     */
+    public long getTurnoCodificado() {
+        return this.turno;
+    }
+
+    /**
+     * Verifica si la partida está en combate y es el turno del usuario indicado.
+     * 
+     * @param usuario Usuario a verificar
+     * @return true si el usuario puede atacar
+     */
+    public boolean esTurnoDe(Usuario usuario) {
+        long actual = this.turno;
+        return this.fase == FasePartida.PLAYING && actual != SIN_TURNO
+            && jugadorDeTurno(actual) == indiceJugador(usuario);
     }
 
     /**
@@ -263,15 +671,89 @@ public class Partida {
      * @return Usuario rival o null si el usuario no participa en la partida
      */
     public Usuario getRival(Usuario usuario) {
-        if (usuario.equals(this.usuarioPrincipal)) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
             return this.usuarioRival;
-        } else if (usuario.equals(this.usuarioRival)) {
+        } else if (esUsuario(usuario, this.usuarioRival)) {
             return this.usuarioPrincipal;
         } else {
             return null;
         }
     }
 
+    /**
+     * Asocia la sesión de red de un usuario a la partida.
+     * Se invoca al crear la partida, al unirse el rival y al reconectarse un jugador.
+     * 
+     * @param usuario Usuario de la partida
+     * @param sesion Sesión del usuario
+     */
+    public void setSesion(Usuario usuario, SesionJugador sesion) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
+            this.sesionPrincipal = sesion;
+        } else if (esUsuario(usuario, this.usuarioRival)) {
+            this.sesionRival = sesion;
+        }
+    }
+
+    /**
+     * Desasocia una sesión de la partida cuando su conexión se cierra.
+     * Solo se borra si sigue siendo la sesión registrada, para no borrar
+     * la de una reconexión posterior.
+     * 
+     * @param sesion Sesión que se cierra
+     */
+    public void eliminarSesion(SesionJugador sesion) {
+        if (this.sesionPrincipal == sesion) {
+            this.sesionPrincipal = null;
+        }
+        if (this.sesionRival == sesion) {
+            this.sesionRival = null;
+        }
+    }
+
+    /**
+     * Obtiene la sesión de un usuario de la partida.
+     * 
+     * @param usuario Usuario de la partida
+     * @return Sesión del usuario o null si no está conectado o no participa
+     */
+    public SesionJugador getSesion(Usuario usuario) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
+            return this.sesionPrincipal;
+        } else if (esUsuario(usuario, this.usuarioRival)) {
+            return this.sesionRival;
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene la sesión del rival de un usuario.
+     * 
+     * @param usuario Usuario de la partida
+     * @return Sesión del rival o null si no está conectado o el usuario no participa
+     */
+    public SesionJugador getSesionRival(Usuario usuario) {
+        if (esUsuario(usuario, this.usuarioPrincipal)) {
+            return this.sesionRival;
+        } else if (esUsuario(usuario, this.usuarioRival)) {
+            return this.sesionPrincipal;
+        }
+        return null;
+    }
+
+    /**
+     * Compara dos usuarios comprobando primero la identidad, que es el caso
+     * habitual porque la conexión y la partida comparten el mismo objeto,
+     * y después con equals, que compara sus IDs enteros si están registrados.
+     * 
+     * @param usuario Usuario a comparar
+     * @param participante Usuario de la partida (puede ser null)
+     * @return true si son el mismo usuario
+     */
+    private static boolean esUsuario(Usuario usuario, Usuario participante) {
+        return usuario == participante || (participante != null && participante.equals(usuario));
+    }
+
     /**
      * Verifica si un usuario específico participa en esta partida.
      * 
@@ -279,7 +761,7 @@ public class Partida {
      * @return true si el usuario participa en la partida, false en caso contrario
      */
     public boolean participaUsuario(Usuario usuario) {
-        return usuario.equals(this.usuarioPrincipal) || usuario.equals(this.usuarioRival);
+        return esUsuario(usuario, this.usuarioPrincipal) || esUsuario(usuario, this.usuarioRival);
     }
 
     /**
@@ -309,23 +791,61 @@ public class Partida {
 
     /**
      * Obtiene estadísticas básicas de la partida.
+     * Se calculan a partir de la última instantánea publicada.
      * 
      * @return String con información resumida de la partida
      */
     public String getEstadisticas() {
-        StringBuilder stats = new StringBuilder();
-        stats.append("Partida: ").append(toString()).append("\n");
-        stats.append("Movimientos totales: ").append(getNumeroMovimientos()).append("\n");
-        stats.append("Estado: ");
-        
-        if (haTerminado()) {
-            stats.append("Terminada - Ganador: ").append(ganador.getName());
-        } else {
-            stats.append("En curso - Turno: ").append(
-                turnoActual != null ? turnoActual.getName() : "No iniciado"
-            );
+        return getInstantanea().getEstadisticas();
+    }
+
+    /**
+     * Obtiene la última instantánea publicada de la partida.
+     * No bloquea a quien está modificando la partida; si la partida se acaba
+     * de cargar desde disco y aún no tiene instantánea, se publica una.
+     * 
+     * @return Instantánea inmutable más reciente
+     */
+    public InstantaneaPartida getInstantanea() {
+        InstantaneaPartida actual = this.instantanea;
+        if (actual == null) {
+            publicarInstantanea();
+            actual = this.instantanea;
         }
-        
-        return stats.toString();
+        return actual;
+    }
+
+    /**
+     * Publica una nueva instantánea inmutable con el estado actual de la partida.
+     * Se invoca al final de cada operación que modifica la partida; las escrituras
+     * se serializan entre sí para que las versiones sean crecientes.
+     */
+    public synchronized void publicarInstantanea() {
+        InstantaneaPartida anterior = this.instantanea;
+        long version = anterior == null ? 1L : anterior.getVersion() + 1;
+        this.instantanea = new InstantaneaPartida(
+            version,
+            getFase(),
+            nombre(usuarioPrincipal),
+            nombre(usuarioRival),
+            nombre(getTurnoActual()),
+            nombre(ganador),
+            nombre(perdedor),
+            movimientos == null ? 0 : movimientos.size(),
+            tableroPrincipal == null ? 0L : tableroPrincipal.getMascaraBarcos(),
+            tableroPrincipal == null ? 0L : tableroPrincipal.getMascaraImpactos(),
+            tableroRival == null ? 0L : tableroRival.getMascaraBarcos(),
+            tableroRival == null ? 0L : tableroRival.getMascaraImpactos()
+        );
+    }
+
+    /**
+     * Obtiene el nombre de un usuario admitiendo valores nulos.
+     * 
+     * @param usuario Usuario del que obtener el nombre
+     * @return Nombre del usuario o null
+     */
+    private static String nombre(Usuario usuario) {
+        return usuario != null ? usuario.getName() : null;
     }
 }
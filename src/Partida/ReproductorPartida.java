@@ -0,0 +1,302 @@
+package Partida;
+
+import java.util.List;
+
+import Cliente.Usuario;
+import Sistema.FabricaBarcos;
+import Sistema.TipoBarco;
+import Tablero.Casilla;
+import Tablero.Tablero;
+
+/**
+ * Motor de reproducción determinista de una partida.
+ * A partir de la colocación inicial de las flotas y del historial de movimientos
+ * reconstruye el estado de ambos tableros en cualquier punto de la partida.
+ *
+ * Como los estados de las casillas no se conservan en el JSON guardado, el
+ * estado de cada tablero se representa como una máscara de 64 bits con las
+ * casillas atacadas. Cada cierto número de movimientos se guarda una instantánea
+ * de ambas máscaras, de modo que avanzar hasta el movimiento N solo requiere
+ * aplicar los movimientos posteriores a la instantánea más cercana.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class ReproductorPartida {
+
+    /** Tamaño del lado del tablero */
+    private static final int TAMAÑO = 8;
+    /** Bit que indica que el movimiento afecta al tablero del usuario rival */
+    private static final int TABLERO_RIVAL = 1 << 6;
+    /** Intervalo de instantáneas por defecto */
+    private static final int INTERVALO_POR_DEFECTO = 16;
+
+    /** Partida original que se reproduce */
+    private final Partida partida;
+    /** Número de movimientos entre dos instantáneas consecutivas */
+    private final int intervalo;
+    /** Objetivo de cada movimiento: índice de casilla y bit de tablero */
+    private final int[] objetivos;
+    /** Casillas atacadas del tablero principal en cada instantánea */
+    private final long[] instantaneasPrincipal;
+    /** Casillas atacadas del tablero rival en cada instantánea */
+    private final long[] instantaneasRival;
+
+    /**
+     * Constructor que prepara la reproducción con el intervalo de instantáneas por defecto.
+     *
+     * @param partida Partida a reproducir
+     */
+    public ReproductorPartida(Partida partida) {
+        this(partida, INTERVALO_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que prepara la reproducción de una partida.
+     * Decodifica una sola vez el historial de movimientos y calcula las instantáneas.
+     *
+     * @param partida Partida a reproducir
+     * @param intervaloInstantaneas Número de movimientos entre instantáneas
+     * @throws IllegalArgumentException Si la partida es null o el intervalo no es positivo
+     */
+    public ReproductorPartida(Partida partida, int intervaloInstantaneas) {
+        if (partida == null) {
+            throw new IllegalArgumentException("La partida no puede ser null");
+        }
+        if (intervaloInstantaneas <= 0) {
+            throw new IllegalArgumentException("El intervalo de instantáneas debe ser positivo");
+        }
+
+        this.partida = partida;
+        this.intervalo = intervaloInstantaneas;
+        this.objetivos = decodificarMovimientos(partida);
+
+        int numInstantaneas = objetivos.length / intervalo + 1;
+        this.instantaneasPrincipal = new long[numInstantaneas];
+        this.instantaneasRival = new long[numInstantaneas];
+
+        long principal = 0L;
+        long rival = 0L;
+        for (int i = 0; i < objetivos.length; i++) {
+            if (i % intervalo == 0) {
+                instantaneasPrincipal[i / intervalo] = principal;
+                instantaneasRival[i / intervalo] = rival;
+            }
+            long bit = 1L << (objetivos[i] & (TABLERO_RIVAL - 1));
+            if ((objetivos[i] & TABLERO_RIVAL) != 0) {
+                rival |= bit;
+            } else {
+                principal |= bit;
+            }
+        }
+        if (objetivos.length % intervalo == 0) {
+            instantaneasPrincipal[numInstantaneas - 1] = principal;
+            instantaneasRival[numInstantaneas - 1] = rival;
+        }
+    }
+
+    /**
+     * Convierte el historial de movimientos en una tabla compacta de objetivos.
+     * Cada movimiento ataca el tablero del rival de quien lo realiza.
+     *
+     * @param partida Partida cuyos movimientos se decodifican
+     * @return Array con el objetivo de cada movimiento
+     */
+    private static int[] decodificarMovimientos(Partida partida) {
+        List<Movimiento> movimientos = partida.getMovimientos();
+        if (movimientos == null) {
+            return new int[0];
+        }
+
+        int[] resultado = new int[movimientos.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            Movimiento movimiento = movimientos.get(i);
+            boolean atacaPrincipal = !movimiento.getUsuario().equals(partida.getUsuarioPrincipal());
+            resultado[i] = indiceCasilla(movimiento.getCasilla()) | (atacaPrincipal ? 0 : TABLERO_RIVAL);
+        }
+        return resultado;
+    }
+
+    /**
+     * Calcula el índice lineal de una casilla dentro del tablero.
+     * Las casillas guardan la letra de la columna en getFila() y el número
+     * de fila en getColumna(), por lo que la casilla cas[f][c] tiene índice f * 8 + c.
+     *
+     * @param casilla Casilla de la que obtener el índice
+     * @return Índice entre 0 y 63
+     */
+    private static int indiceCasilla(Casilla casilla) {
+        return casilla.getColumna() * TAMAÑO + casilla.getFila();
+    }
+
+    /**
+     * Obtiene el número total de movimientos que se pueden reproducir.
+     *
+     * @return Cantidad de movimientos del historial
+     */
+    public int getNumeroMovimientos() {
+        return objetivos.length;
+    }
+
+    /**
+     * Obtiene las casillas atacadas del tablero principal tras n movimientos.
+     * El bit f * 8 + c indica si la casilla cas[f][c] ha sido atacada.
+     *
+     * @param n Número de movimientos aplicados
+     * @return Máscara de casillas atacadas del tablero principal
+     */
+    public long getImpactosPrincipal(int n) {
+        return avanzar(n, false);
+    }
+
+    /**
+     * Obtiene las casillas atacadas del tablero rival tras n movimientos.
+     * El bit f * 8 + c indica si la casilla cas[f][c] ha sido atacada.
+     *
+     * @param n Número de movimientos aplicados
+     * @return Máscara de casillas atacadas del tablero rival
+     */
+    public long getImpactosRival(int n) {
+        return avanzar(n, true);
+    }
+
+    /**
+     * Avanza desde la instantánea más cercana hasta el movimiento indicado.
+     *
+     * @param n Número de movimientos aplicados
+     * @param tableroRival true para el tablero rival, false para el principal
+     * @return Máscara de casillas atacadas del tablero indicado
+     */
+    private long avanzar(int n, boolean tableroRival) {
+        validarIndice(n);
+        int instantanea = n / intervalo;
+        long mascara = tableroRival ? instantaneasRival[instantanea] : instantaneasPrincipal[instantanea];
+        int marca = tableroRival ? TABLERO_RIVAL : 0;
+
+        for (int i = instantanea * intervalo; i < n; i++) {
+            if ((objetivos[i] & TABLERO_RIVAL) == marca) {
+                mascara |= 1L << (objetivos[i] & (TABLERO_RIVAL - 1));
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Reconstruye una partida completa con el estado que tenía tras n movimientos.
+     * Coloca las flotas originales, aplica los ataques, registra el historial
+     * hasta ese punto y restablece el turno y el ganador si lo hubiera.
+     *
+     * @param n Número de movimientos aplicados
+     * @return Nueva partida independiente de la original
+     * @throws IllegalArgumentException Si n está fuera del historial
+     */
+    public Partida reconstruir(int n) {
+        validarIndice(n);
+        Usuario principal = partida.getUsuarioPrincipal();
+        Usuario rival = partida.getUsuarioRival();
+        Partida reconstruida = new Partida(principal, rival, false);
+
+        for (Colocacion colocacion : partida.getColocaciones()) {
+            Tablero tablero = colocacion.getUsuario().equals(principal)
+                ? reconstruida.getTableroPrincipal()
+                : reconstruida.getTableroRival();
+            if (TipoBarco.fromString(colocacion.getTipoBarco()) != null) {
+                new FabricaBarcos(tablero).crearBarco(colocacion.getTipoBarco(),
+                    colocacion.getFila(), colocacion.getColumna(), colocacion.getOrientacion());
+            }
+        }
+
+        aplicarImpactos(reconstruida.getTableroPrincipal(), avanzar(n, false));
+        aplicarImpactos(reconstruida.getTableroRival(), avanzar(n, true));
+
+        List<Movimiento> movimientos = partida.getMovimientos();
+        for (int i = 0; i < n; i++) {
+            Movimiento movimiento = movimientos.get(i);
+            Tablero tablero = (objetivos[i] & TABLERO_RIVAL) != 0
+                ? reconstruida.getTableroRival()
+                : reconstruida.getTableroPrincipal();
+            int celda = objetivos[i] & (TABLERO_RIVAL - 1);
+            reconstruida.registrarAtaque(movimiento.getUsuario(), tablero.cas[celda / TAMAÑO][celda % TAMAÑO]);
+        }
+
+        restablecerTurnoYGanador(reconstruida, n);
+        reconstruida.publicarInstantanea();
+        return reconstruida;
+    }
+
+    /**
+     * Aplica daño a todas las casillas marcadas en la máscara.
+     *
+     * @param tablero Tablero sobre el que aplicar los ataques
+     * @param impactos Máscara de casillas atacadas
+     */
+    private static void aplicarImpactos(Tablero tablero, long impactos) {
+        while (impactos != 0) {
+            int celda = Long.numberOfTrailingZeros(impactos);
+            tablero.cas[celda / TAMAÑO][celda % TAMAÑO].getDaño();
+            impactos &= impactos - 1;
+        }
+    }
+
+    /**
+     * Restablece la fase, el turno y, si procede, el ganador de la partida reconstruida.
+     * El turno alterna tras cada ataque, empezando por el usuario principal.
+     * 
+     * @param reconstruida Partida reconstruida
+     * @param n Número de movimientos aplicados
+     */
+    private void restablecerTurnoYGanador(Partida reconstruida, int n) {
+        if (reconstruida.getUsuarioRival() == null) {
+            return;
+        }
+
+        boolean conFlotas = tieneFlota(reconstruida.getTableroPrincipal()) && tieneFlota(reconstruida.getTableroRival());
+        if (conFlotas) {
+            reconstruida.marcarLista();
+            reconstruida.iniciarCombate();
+        } else {
+            reconstruida.inicializarTurno();
+        }
+        if (n > 0 && (objetivos[n - 1] & TABLERO_RIVAL) != 0) {
+            reconstruida.cambiarTurno();
+        }
+
+        if (!conFlotas) {
+            return;
+        }
+        if (reconstruida.getTableroRival().todosBarcosHundidos()) {
+            reconstruida.terminar(reconstruida.getUsuarioPrincipal());
+        } else if (reconstruida.getTableroPrincipal().todosBarcosHundidos()) {
+            reconstruida.terminar(reconstruida.getUsuarioRival());
+        }
+    }
+
+    /**
+     * Indica si el tablero tiene al menos un barco colocado.
+     *
+     * @param tablero Tablero a comprobar
+     * @return true si alguna casilla contiene un barco
+     */
+    private static boolean tieneFlota(Tablero tablero) {
+        for (Casilla[] fila : tablero.cas) {
+            for (Casilla casilla : fila) {
+                if (casilla.tieneBarco()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comprueba que el número de movimientos solicitado existe en el historial.
+     *
+     * @param n Número de movimientos
+     * @throws IllegalArgumentException Si n es negativo o mayor que el historial
+     */
+    private void validarIndice(int n) {
+        if (n < 0 || n > objetivos.length) {
+            throw new IllegalArgumentException("Movimiento fuera de rango: " + n);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package Partida;
+
+import java.io.IOException;
+
+/**
+ * Interfaz que representa la sesión de red de un jugador dentro de una partida.
+ * La partida guarda una referencia directa a la sesión de cada jugador, de modo
+ * que notificar al rival es leer un campo en lugar de buscar su conexión por nombre.
+ *
+ * La implementa la conexión del servidor con cada cliente.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public interface SesionJugador {
+
+    /**
+     * Envía un mensaje del protocolo al cliente del jugador.
+     *
+     * @param mensaje Mensaje a enviar
+     * @throws IOException Si ocurre un error de comunicación
+     */
+    void enviarMensaje(String mensaje) throws IOException;
+
+    /**
+     * Notifica al jugador que la partida está lista para empezar el combate.
+     *
+     * @throws IOException Si ocurre un error de comunicación
+     */
+    void enviarPartidaReady() throws IOException;
+
+    /**
+     * Notifica al jugador que el rival le ha atacado.
+     *
+     * @param fila Fila de la matriz del tablero atacada
+     * @param columna Columna de la matriz del tablero atacada
+     * @param resultado Resultado del ataque (agua, tocado, hundido)
+     */
+    void notificarAtaqueRecibido(int fila, int columna, String resultado);
+}
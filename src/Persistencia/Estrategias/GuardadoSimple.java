@@ -2,6 +2,8 @@ package Persistencia.Estrategias;
 
 import Persistencia.Interfaces.GuardarPartidas;
 import Persistencia.Interfaces.GuardarUsuarios;
+import Persistencia.Partidas.GuardarPartidasAsincrono;
+import Persistencia.Partidas.GuardarPartidasBinario;
 import Persistencia.Partidas.GuardarPartidasJson;
 import Persistencia.Usuarios.GuardarUsuariosJson;
 
@@ -14,12 +16,16 @@ import Persistencia.Usuarios.GuardarUsuariosJson;
  * Esta estrategia utiliza:
  * - Archivos JSON para usuarios registrados
  * - Archivos JSON para usuarios actualmente conectados
- * - Persistencia JSON para el historial de partidas
+ * - Formato binario compacto para el historial de partidas (JSON si la
+ *   propiedad del sistema PROPIEDAD_PARTIDAS vale "json"), escrito en segundo
+ *   plano por un GuardarPartidasAsincrono
  * 
  * @author Sistema Hundir la Flota
  * @version 1.0
  */
 public class GuardadoSimple implements EstrategiaGuardar {
+    /** Propiedad del sistema que selecciona el formato de las partidas ("binario" o "json") */
+    public static final String PROPIEDAD_PARTIDAS = "hundir.partidas";
     /** Instancia única del singleton */
     private static GuardadoSimple instancia;
     /** Guardador para usuarios registrados en el sistema */
@@ -47,12 +53,16 @@ public class GuardadoSimple implements EstrategiaGuardar {
      * Configura guardado en archivos JSON con nombres predeterminados:
      * - usuarios.json para usuarios registrados
      * - usuariosActivos.json para usuarios conectados
-     * - Configuración por defecto para partidas
+     * - partidas/*.partida en formato binario, o partidas/*.json según PROPIEDAD_PARTIDAS,
+     *   a través de la cola de escritura en segundo plano
      */
     public GuardadoSimple() {
         this.guardarUsuarios = new GuardarUsuariosJson("usuarios.json");
         this.guardarUsuariosActivos = new GuardarUsuariosJson("usuariosActivos.json");
-        this.guardarPartidas = new GuardarPartidasJson();
+        this.guardarPartidas = new GuardarPartidasAsincrono(
+            "json".equalsIgnoreCase(System.getProperty(PROPIEDAD_PARTIDAS))
+                ? new GuardarPartidasJson()
+                : new GuardarPartidasBinario());
     }
 
     /**
@@ -95,4 +105,25 @@ public class GuardadoSimple implements EstrategiaGuardar {
     public GuardarPartidas setPartidas() {
         return this.guardarPartidas;
     }
+
+    /**
+     * Obtiene las métricas de la cola de escritura de partidas.
+     * 
+     * @return String con la profundidad de la cola y la latencia de escritura
+     */
+    public String getMetricasPartidas() {
+        if (guardarPartidas instanceof GuardarPartidasAsincrono) {
+            return ((GuardarPartidasAsincrono) guardarPartidas).getResumen();
+        }
+        return "Guardado síncrono";
+    }
+
+    /**
+     * Termina de escribir las partidas pendientes y detiene la cola de escritura.
+     */
+    public void detener() {
+        if (guardarPartidas instanceof GuardarPartidasAsincrono) {
+            ((GuardarPartidasAsincrono) guardarPartidas).detener();
+        }
+    }
 }
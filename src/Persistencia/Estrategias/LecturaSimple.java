@@ -2,7 +2,7 @@ package Persistencia.Estrategias;
 
 import Persistencia.Interfaces.LeerPartidas;
 import Persistencia.Interfaces.LeerUsuarios;
-import Persistencia.Partidas.LeerPartidasJson;
+import Persistencia.Partidas.LeerPartidasBinario;
 import Persistencia.Usuarios.LeerUsuariosJson;
 
 /**
@@ -14,7 +14,8 @@ import Persistencia.Usuarios.LeerUsuariosJson;
  * Esta estrategia utiliza:
  * - Archivos JSON para cargar usuarios registrados
  * - Archivos JSON para cargar usuarios actualmente conectados
- * - Lectura JSON para recuperar historial de partidas
+ * - Lectura binaria para recuperar historial de partidas, que también lee
+ *   las partidas guardadas en JSON
  * 
  * @author Sistema Hundir la Flota
  * @version 1.0
@@ -47,12 +48,12 @@ public class LecturaSimple implements EstrategiaLeer {
      * Configura lectura desde archivos JSON con nombres predeterminados:
      * - usuarios.json para usuarios registrados
      * - usuariosActivos.json para usuarios conectados
-     * - Configuración por defecto para partidas
+     * - partidas/*.partida en formato binario y partidas/*.json anteriores
      */
     public LecturaSimple() {
         this.leerUsuarios = new LeerUsuariosJson("usuarios.json");
         this.leerUsuariosActivos = new LeerUsuariosJson("usuariosActivos.json");
-        this.leerPartidas = new LeerPartidasJson();
+        this.leerPartidas = new LeerPartidasBinario();
     }
 
     /**
@@ -21,4 +21,33 @@ public interface GuardarPartidas extends GuardarDatos{
      * @param datos Partida o colección de partidas a persistir
      */
     public void guardar(Object datos);
+
+    /**
+     * Guarda datos de partida y ejecuta una acción cuando quedan escritos.
+     * Por defecto el guardado es síncrono y la acción se ejecuta a continuación;
+     * los guardadores asíncronos la ejecutan cuando la escritura termina.
+     * 
+     * @param datos Partida a persistir
+     * @param alTerminar Acción a ejecutar tras el guardado, o null
+     */
+    public default void guardar(Object datos, Runnable alTerminar) {
+        guardar(datos);
+        if (alTerminar != null) {
+            alTerminar.run();
+        }
+    }
+
+    /**
+     * Prepara el guardado de una partida para escribirla más tarde.
+     * Los guardadores que codifican la partida lo hacen aquí, en el hilo que
+     * llama, y la escritura devuelta solo escribe lo ya codificado, por lo que
+     * puede ejecutarse en otro hilo sin volver a leer la partida. Por defecto
+     * la escritura guarda la partida tal como esté cuando se ejecute.
+     *
+     * @param datos Partida a persistir
+     * @return Escritura pendiente de la partida
+     */
+    public default Runnable preparar(Object datos) {
+        return () -> guardar(datos);
+    }
 }
@@ -23,4 +23,41 @@ public interface LeerUsuarios extends LeerDatos{
      * @return Lista de usuarios leídos desde la fuente de datos
      */
     public List<Usuario> leer();
+
+    /**
+     * Busca un usuario por su nombre.
+     * Por defecto recorre la lista completa; los almacenes indexados lo
+     * sustituyen por una búsqueda que no carga todos los usuarios.
+     *
+     * @param nombreUsuario Nombre del usuario a buscar
+     * @return Usuario encontrado o null si no existe
+     */
+    public default Usuario buscarUsuario(String nombreUsuario) {
+        for (Usuario usuario : leer()) {
+            if (usuario.getName() != null && usuario.getName().equals(nombreUsuario)) {
+                return usuario;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifica si existe un usuario con el nombre indicado.
+     *
+     * @param nombreUsuario Nombre del usuario a verificar
+     * @return true si el usuario existe
+     */
+    public default boolean existeUsuario(String nombreUsuario) {
+        return buscarUsuario(nombreUsuario) != null;
+    }
+
+    /**
+     * Indica si el lector resuelve buscarUsuario sin cargar todos los usuarios.
+     * Un DirectorioUsuarios sobre un lector indexado no mantiene los usuarios en memoria.
+     *
+     * @return true si las búsquedas por nombre no dependen de leer()
+     */
+    public default boolean esIndexado() {
+        return false;
+    }
 }
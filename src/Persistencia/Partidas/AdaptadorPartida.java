@@ -0,0 +1,392 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import Cliente.Usuario;
+import Partida.Colocacion;
+import Partida.FasePartida;
+import Partida.Movimiento;
+import Partida.Partida;
+import Sistema.FabricaBarcos;
+import Tablero.Casilla;
+import Tablero.Tablero;
+
+/**
+ * Adaptador JSON explícito para Partida, sin reflexión.
+ * Escribe los jugadores (sin contraseñas), la fase, el turno, el ganador, los
+ * tableros con AdaptadorTablero, los movimientos y las colocaciones. Al leer,
+ * la partida se crea con tableros nuevos fuera del pool, que se rellenan en el sitio,
+ * y los movimientos apuntan a las casillas reales de esos tableros.
+ *
+ * Los jugadores deben aparecer antes que los tableros, como en los archivos
+ * que escribía Gson por reflexión. De esos archivos antiguos se ignoran las
+ * casillas; si sus tableros quedan vacíos, los barcos se vuelven a colocar a
+ * partir de las colocaciones registradas.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class AdaptadorPartida extends TypeAdapter<Partida> {
+
+    /** Versión actual del formato */
+    public static final int VERSION = 1;
+
+    /** Adaptador de los jugadores */
+    private final AdaptadorUsuario usuarios;
+    /** Adaptador de los tableros */
+    private final AdaptadorTablero tableros;
+
+    /**
+     * Crea el adaptador.
+     *
+     * @param usuarios Adaptador de los jugadores
+     * @param tableros Adaptador de los tableros
+     */
+    public AdaptadorPartida(AdaptadorUsuario usuarios, AdaptadorTablero tableros) {
+        this.usuarios = usuarios;
+        this.tableros = tableros;
+    }
+
+    /**
+     * Crea una instancia de Gson con los adaptadores de partidas registrados.
+     *
+     * @return Gson que escribe partidas en JSON compacto y las lee
+     */
+    public static Gson crearGson() {
+        AdaptadorUsuario usuarios = new AdaptadorUsuario(false);
+        AdaptadorTablero tableros = new AdaptadorTablero();
+        return new GsonBuilder()
+            .registerTypeAdapter(Usuario.class, usuarios)
+            .registerTypeAdapter(Tablero.class, tableros)
+            .registerTypeAdapter(Partida.class, new AdaptadorPartida(usuarios, tableros))
+            .create();
+    }
+
+    /**
+     * Escribe una partida.
+     *
+     * @param salida Escritor JSON
+     * @param partida Partida a escribir, o null
+     * @throws IOException Si no se puede escribir
+     */
+    @Override
+    public void write(JsonWriter salida, Partida partida) throws IOException {
+        if (partida == null) {
+            salida.nullValue();
+            return;
+        }
+        salida.beginObject();
+        salida.name("version").value(VERSION);
+        salida.name("usuarioPrincipal");
+        usuarios.write(salida, partida.getUsuarioPrincipal());
+        salida.name("usuarioRival");
+        usuarios.write(salida, partida.getUsuarioRival());
+        salida.name("fase").value(partida.getFase().name());
+        salida.name("turno").value(partida.getTurnoCodificado());
+        salida.name("ganador");
+        usuarios.write(salida, partida.getGanador());
+        salida.name("tableroPrincipal");
+        tableros.write(salida, partida.getTableroPrincipal());
+        salida.name("tableroRival");
+        tableros.write(salida, partida.getTableroRival());
+        escribirMovimientos(salida, partida);
+        escribirColocaciones(salida, partida);
+        salida.endObject();
+    }
+
+    /**
+     * Escribe los movimientos con la casilla atacada en coordenadas de la matriz del tablero.
+     *
+     * @param salida Escritor JSON
+     * @param partida Partida a escribir
+     * @throws IOException Si no se puede escribir
+     */
+    private void escribirMovimientos(JsonWriter salida, Partida partida) throws IOException {
+        salida.name("movimientos").beginArray();
+        for (Movimiento movimiento : partida.getMovimientos()) {
+            Casilla casilla = movimiento.getCasilla();
+            salida.beginObject();
+            salida.name("atacante").value(movimiento.getUsuario().getName());
+            // getColumna() guarda la fila del tablero y getFila() la columna
+            salida.name("fila").value(casilla.getColumna());
+            salida.name("columna").value(casilla.getFila());
+            salida.endObject();
+        }
+        salida.endArray();
+    }
+
+    /**
+     * Escribe las colocaciones registradas.
+     *
+     * @param salida Escritor JSON
+     * @param partida Partida a escribir
+     * @throws IOException Si no se puede escribir
+     */
+    private void escribirColocaciones(JsonWriter salida, Partida partida) throws IOException {
+        salida.name("colocaciones").beginArray();
+        for (Colocacion colocacion : partida.getColocaciones()) {
+            salida.beginObject();
+            salida.name("usuario");
+            usuarios.write(salida, colocacion.getUsuario());
+            salida.name("tipoBarco").value(colocacion.getTipoBarco());
+            salida.name("fila").value(colocacion.getFila());
+            salida.name("columna").value(colocacion.getColumna());
+            salida.name("orientacion").value(colocacion.getOrientacion());
+            salida.endObject();
+        }
+        salida.endArray();
+    }
+
+    /**
+     * Lee una partida.
+     *
+     * @param entrada Lector JSON
+     * @return Partida leída, o null
+     * @throws IOException Si la partida no es coherente
+     */
+    @Override
+    public Partida read(JsonReader entrada) throws IOException {
+        if (entrada.peek() == JsonToken.NULL) {
+            entrada.nextNull();
+            return null;
+        }
+        Usuario principal = null;
+        Usuario rival = null;
+        Usuario ganador = null;
+        FasePartida fase = null;
+        long turno = 0L;
+        Partida partida = null;
+        List<Colocacion> colocaciones = new ArrayList<>();
+
+        entrada.beginObject();
+        while (entrada.hasNext()) {
+            String campo = entrada.nextName();
+            switch (campo) {
+                case "version":
+                    int version = entrada.nextInt();
+                    if (version > VERSION) {
+                        throw new IOException("Versión de partida no soportada: " + version);
+                    }
+                    break;
+                case "usuarioPrincipal":
+                    principal = usuarios.read(entrada);
+                    break;
+                case "usuarioRival":
+                    rival = usuarios.read(entrada);
+                    break;
+                case "fase":
+                    fase = FasePartida.valueOf(entrada.nextString());
+                    break;
+                case "turno":
+                    turno = entrada.nextLong();
+                    break;
+                case "ganador":
+                    ganador = usuarios.read(entrada);
+                    break;
+                case "tableroPrincipal":
+                case "tableroRival":
+                case "movimientos":
+                    partida = crearSiFalta(partida, principal, rival, campo);
+                    if (partida.getTableroPrincipal() == null) {
+                        entrada.skipValue();
+                    } else if ("tableroPrincipal".equals(campo)) {
+                        tableros.leerEn(entrada, partida.getTableroPrincipal());
+                    } else if ("tableroRival".equals(campo)) {
+                        tableros.leerEn(entrada, partida.getTableroRival());
+                    } else {
+                        leerMovimientos(entrada, partida);
+                    }
+                    break;
+                case "colocaciones":
+                    leerColocaciones(entrada, colocaciones);
+                    break;
+                default:
+                    entrada.skipValue();
+            }
+        }
+        entrada.endObject();
+
+        partida = crearSiFalta(partida, principal, rival, "colocaciones");
+        completarTablerosAntiguos(partida, colocaciones);
+        for (Colocacion colocacion : colocaciones) {
+            partida.addColocacion(jugador(partida, colocacion.getUsuario()), colocacion.getTipoBarco(),
+                colocacion.getFila(), colocacion.getColumna(), colocacion.getOrientacion());
+        }
+        if (fase != null) {
+            Usuario usuarioGanador = ganador == null ? null : jugador(partida, ganador);
+            Usuario perdedor = usuarioGanador == null ? null : partida.getRival(usuarioGanador);
+            partida.restaurar(fase, turno, usuarioGanador, perdedor);
+        } else {
+            partida.publicarInstantanea();
+        }
+        return partida;
+    }
+
+    /**
+     * Crea la partida en cuanto se necesitan sus tableros, con tableros fuera del pool.
+     *
+     * @param partida Partida ya creada, o null
+     * @param principal Usuario principal leído
+     * @param rival Usuario rival leído
+     * @param campo Campo que necesita la partida
+     * @return Partida creada
+     * @throws IOException Si todavía no se ha leído el usuario principal
+     */
+    private static Partida crearSiFalta(Partida partida, Usuario principal, Usuario rival, String campo) throws IOException {
+        if (partida != null) {
+            return partida;
+        }
+        if (principal == null) {
+            throw new IOException("La partida no tiene usuario principal antes de " + campo);
+        }
+        return new Partida(principal, rival, false);
+    }
+
+    /**
+     * Devuelve el jugador de la partida con el mismo nombre que un usuario leído,
+     * para que todas las referencias apunten a los mismos objetos.
+     *
+     * @param partida Partida leída
+     * @param usuario Usuario leído
+     * @return Jugador de la partida, o el propio usuario si no participa
+     */
+    private static Usuario jugador(Partida partida, Usuario usuario) {
+        if (usuario.equals(partida.getUsuarioPrincipal())) {
+            return partida.getUsuarioPrincipal();
+        }
+        if (usuario.equals(partida.getUsuarioRival())) {
+            return partida.getUsuarioRival();
+        }
+        return usuario;
+    }
+
+    /**
+     * Añade al historial los movimientos leídos sin volver a aplicar los impactos,
+     * que ya vienen en los tableros. Los movimientos sin coordenadas, como los
+     * de los archivos antiguos, se omiten.
+     *
+     * @param entrada Lector JSON situado en la lista de movimientos
+     * @param partida Partida con los tableros ya leídos
+     * @throws IOException Si una casilla está fuera del tablero
+     */
+    private void leerMovimientos(JsonReader entrada, Partida partida) throws IOException {
+        int tamaño = partida.getTableroPrincipal().cas.length;
+        entrada.beginArray();
+        while (entrada.hasNext()) {
+            String atacante = null;
+            int fila = -1;
+            int columna = -1;
+            entrada.beginObject();
+            while (entrada.hasNext()) {
+                switch (entrada.nextName()) {
+                    case "atacante":
+                        atacante = entrada.nextString();
+                        break;
+                    case "fila":
+                        fila = entrada.nextInt();
+                        break;
+                    case "columna":
+                        columna = entrada.nextInt();
+                        break;
+                    default:
+                        entrada.skipValue();
+                }
+            }
+            entrada.endObject();
+            if (atacante == null || fila < 0 || columna < 0) {
+                continue;
+            }
+            if (fila >= tamaño || columna >= tamaño) {
+                throw new IOException("Movimiento fuera del tablero: " + fila + "," + columna);
+            }
+            boolean atacaPrincipal = atacante.equals(partida.getUsuarioPrincipal().getName());
+            Tablero atacado = atacaPrincipal ? partida.getTableroRival() : partida.getTableroPrincipal();
+            Usuario usuario = atacaPrincipal ? partida.getUsuarioPrincipal() : partida.getUsuarioRival();
+            partida.registrarAtaque(usuario, atacado.cas[fila][columna]);
+        }
+        entrada.endArray();
+    }
+
+    /**
+     * Lee las colocaciones registradas.
+     *
+     * @param entrada Lector JSON situado en la lista de colocaciones
+     * @param colocaciones Lista donde añadirlas
+     * @throws IOException Si una colocación no tiene usuario
+     */
+    private void leerColocaciones(JsonReader entrada, List<Colocacion> colocaciones) throws IOException {
+        if (entrada.peek() == JsonToken.NULL) {
+            entrada.nextNull();
+            return;
+        }
+        entrada.beginArray();
+        while (entrada.hasNext()) {
+            Usuario usuario = null;
+            String tipoBarco = null;
+            int fila = 0;
+            int columna = 0;
+            String orientacion = null;
+            entrada.beginObject();
+            while (entrada.hasNext()) {
+                switch (entrada.nextName()) {
+                    case "usuario":
+                        usuario = usuarios.read(entrada);
+                        break;
+                    case "tipoBarco":
+                        tipoBarco = entrada.nextString();
+                        break;
+                    case "fila":
+                        fila = entrada.nextInt();
+                        break;
+                    case "columna":
+                        columna = entrada.nextInt();
+                        break;
+                    case "orientacion":
+                        orientacion = entrada.nextString();
+                        break;
+                    default:
+                        entrada.skipValue();
+                }
+            }
+            entrada.endObject();
+            if (usuario == null) {
+                throw new IOException("Colocación sin usuario en " + entrada.getPath());
+            }
+            colocaciones.add(new Colocacion(usuario, tipoBarco, fila, columna, orientacion));
+        }
+        entrada.endArray();
+    }
+
+    /**
+     * Coloca los barcos de las colocaciones registradas si ninguno de los dos
+     * tableros tiene barcos, como ocurre con los archivos antiguos.
+     *
+     * @param partida Partida leída
+     * @param colocaciones Colocaciones leídas
+     * @throws IOException Si alguna colocación no cabe en el tablero
+     */
+    private static void completarTablerosAntiguos(Partida partida, List<Colocacion> colocaciones) throws IOException {
+        if (partida.getTableroPrincipal() == null || colocaciones.isEmpty()
+                || partida.getTableroPrincipal().getBarcos().getNumeroBarcos() > 0
+                || partida.getTableroRival().getBarcos().getNumeroBarcos() > 0) {
+            return;
+        }
+        for (Colocacion colocacion : colocaciones) {
+            Tablero tablero = partida.getTableroJugador(jugador(partida, colocacion.getUsuario()));
+            if (tablero == null || new FabricaBarcos(tablero).crearBarco(colocacion.getTipoBarco(),
+                    colocacion.getFila(), colocacion.getColumna(), colocacion.getOrientacion()) == null) {
+                throw new IOException("Colocación no válida: " + colocacion.getTipoBarco()
+                    + " en " + colocacion.getFila() + "," + colocacion.getColumna());
+            }
+        }
+    }
+}
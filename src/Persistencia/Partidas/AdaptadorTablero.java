@@ -0,0 +1,207 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import Barcos.TablaBarcos;
+import Sistema.FabricaBarcos;
+import Sistema.TipoBarco;
+import Tablero.Tablero;
+
+/**
+ * Adaptador JSON explícito para Tablero.
+ * En lugar de volcar las casillas por reflexión, escribe el tamaño, los barcos
+ * de la tabla (tipo, casilla de anclaje y orientación) y las casillas atacadas.
+ * Al leer, los barcos se vuelven a crear con FabricaBarcos y los impactos se
+ * aplican sobre las casillas, de modo que los estados son los singletons de
+ * siempre y cada casilla queda enlazada con su barco.
+ *
+ * Formato:
+ * {"tamaño": 8, "barcos": [{"tipo": "FRAGATA", "fila": 0, "columna": 0,
+ *  "orientacion": "HORIZONTAL"}], "impactos": [[fila, columna], ...]}
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class AdaptadorTablero extends TypeAdapter<Tablero> {
+
+    /**
+     * Escribe un tablero.
+     *
+     * @param salida Escritor JSON
+     * @param tablero Tablero a escribir, o null
+     * @throws IOException Si no se puede escribir
+     */
+    @Override
+    public void write(JsonWriter salida, Tablero tablero) throws IOException {
+        if (tablero == null || tablero.cas == null) {
+            salida.nullValue();
+            return;
+        }
+        int tamaño = tablero.cas.length;
+        salida.beginObject();
+        salida.name("tamaño").value(tamaño);
+
+        salida.name("barcos").beginArray();
+        TablaBarcos barcos = tablero.getBarcos();
+        for (int id = 0; id < barcos.getNumeroBarcos(); id++) {
+            salida.beginObject();
+            salida.name("tipo").value(barcos.getTipo(id).getNombre());
+            salida.name("fila").value(barcos.getFila(id));
+            salida.name("columna").value(barcos.getColumna(id));
+            salida.name("orientacion").value(barcos.esHorizontal(id) ? "HORIZONTAL" : "VERTICAL");
+            salida.endObject();
+        }
+        salida.endArray();
+
+        salida.name("impactos").beginArray();
+        long pendientes = tablero.getMascaraImpactos();
+        while (pendientes != 0L) {
+            int celda = Long.numberOfTrailingZeros(pendientes);
+            salida.beginArray().value(celda / tamaño).value(celda % tamaño).endArray();
+            pendientes &= pendientes - 1;
+        }
+        salida.endArray();
+        salida.endObject();
+    }
+
+    /**
+     * Lee un tablero nuevo, fuera del pool.
+     *
+     * @param entrada Lector JSON
+     * @return Tablero leído, o null
+     * @throws IOException Si el tablero no es coherente
+     */
+    @Override
+    public Tablero read(JsonReader entrada) throws IOException {
+        if (entrada.peek() == JsonToken.NULL) {
+            entrada.nextNull();
+            return null;
+        }
+        Tablero tablero = new Tablero();
+        tablero.RellenaTablero();
+        leerEn(entrada, tablero);
+        return tablero;
+    }
+
+    /**
+     * Rellena un tablero vacío con los barcos e impactos leídos.
+     * Los impactos se guardan aparte y se aplican al terminar el objeto, con
+     * todos los barcos ya colocados, sea cual sea el orden de los campos.
+     * Los campos desconocidos, como las casillas que escribía Gson por
+     * reflexión, se ignoran.
+     *
+     * @param entrada Lector JSON
+     * @param tablero Tablero vacío a rellenar
+     * @throws IOException Si el tablero no es coherente
+     */
+    public void leerEn(JsonReader entrada, Tablero tablero) throws IOException {
+        if (entrada.peek() == JsonToken.NULL) {
+            entrada.nextNull();
+            return;
+        }
+        int tamaño = tablero.cas.length;
+        long impactos = 0L;
+        entrada.beginObject();
+        while (entrada.hasNext()) {
+            switch (entrada.nextName()) {
+                case "tamaño":
+                    int leido = entrada.nextInt();
+                    if (leido != tamaño) {
+                        throw new IOException("Tamaño de tablero no soportado: " + leido);
+                    }
+                    break;
+                case "barcos":
+                    leerBarcos(entrada, tablero);
+                    break;
+                case "impactos":
+                    impactos |= leerImpactos(entrada, tamaño);
+                    break;
+                default:
+                    entrada.skipValue();
+            }
+        }
+        entrada.endObject();
+
+        while (impactos != 0L) {
+            int celda = Long.numberOfTrailingZeros(impactos);
+            tablero.cas[celda / tamaño][celda % tamaño].getDaño();
+            impactos &= impactos - 1;
+        }
+    }
+
+    /**
+     * Vuelve a colocar los barcos leídos.
+     *
+     * @param entrada Lector JSON situado en la lista de barcos
+     * @param tablero Tablero donde colocarlos
+     * @throws IOException Si un barco no es válido o no cabe
+     */
+    private void leerBarcos(JsonReader entrada, Tablero tablero) throws IOException {
+        FabricaBarcos fabrica = new FabricaBarcos(tablero);
+        entrada.beginArray();
+        while (entrada.hasNext()) {
+            String tipo = null;
+            int fila = -1;
+            int columna = -1;
+            String orientacion = "HORIZONTAL";
+            entrada.beginObject();
+            while (entrada.hasNext()) {
+                switch (entrada.nextName()) {
+                    case "tipo":
+                        tipo = entrada.nextString();
+                        break;
+                    case "fila":
+                        fila = entrada.nextInt();
+                        break;
+                    case "columna":
+                        columna = entrada.nextInt();
+                        break;
+                    case "orientacion":
+                        orientacion = entrada.nextString();
+                        break;
+                    default:
+                        entrada.skipValue();
+                }
+            }
+            entrada.endObject();
+            TipoBarco tipoBarco = TipoBarco.fromString(tipo);
+            if (tipoBarco == null) {
+                throw new IOException("Tipo de barco no válido: " + tipo);
+            }
+            if (fabrica.crearBarco(tipoBarco.getNombre(), fila, columna, orientacion) == null) {
+                throw new IOException("Barco fuera del tablero en " + fila + "," + columna);
+            }
+        }
+        entrada.endArray();
+    }
+
+    /**
+     * Lee la lista de impactos sin aplicarlos.
+     *
+     * @param entrada Lector JSON situado en la lista de impactos
+     * @param tamaño Tamaño del tablero
+     * @return Máscara de las casillas atacadas, con el bit fila * tamaño + columna
+     * @throws IOException Si una casilla está fuera del tablero
+     */
+    private long leerImpactos(JsonReader entrada, int tamaño) throws IOException {
+        long impactos = 0L;
+        entrada.beginArray();
+        while (entrada.hasNext()) {
+            entrada.beginArray();
+            int fila = entrada.nextInt();
+            int columna = entrada.nextInt();
+            entrada.endArray();
+            if (fila < 0 || fila >= tamaño || columna < 0 || columna >= tamaño) {
+                throw new IOException("Impacto fuera del tablero: " + fila + "," + columna);
+            }
+            impactos |= 1L << (fila * tamaño + columna);
+        }
+        entrada.endArray();
+        return impactos;
+    }
+}
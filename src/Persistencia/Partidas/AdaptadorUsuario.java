@@ -0,0 +1,93 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import Cliente.Usuario;
+
+/**
+ * Adaptador JSON explícito para Usuario.
+ * Escribe el nombre y, solo si se pide, la contraseña; al leer acepta también
+ * los usuarios que escribía Gson por reflexión e ignora sus campos de más.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class AdaptadorUsuario extends TypeAdapter<Usuario> {
+
+    /** true si se escribe la contraseña del usuario */
+    private final boolean conContraseña;
+
+    /**
+     * Crea el adaptador.
+     *
+     * @param conContraseña true para escribir la contraseña; las partidas no la guardan
+     */
+    public AdaptadorUsuario(boolean conContraseña) {
+        this.conContraseña = conContraseña;
+    }
+
+    /**
+     * Escribe un usuario.
+     *
+     * @param salida Escritor JSON
+     * @param usuario Usuario a escribir, o null
+     * @throws IOException Si no se puede escribir
+     */
+    @Override
+    public void write(JsonWriter salida, Usuario usuario) throws IOException {
+        if (usuario == null) {
+            salida.nullValue();
+            return;
+        }
+        salida.beginObject();
+        salida.name("name").value(usuario.getName());
+        if (conContraseña && usuario.getPassword() != null) {
+            salida.name("password").value(usuario.getPassword());
+        }
+        salida.endObject();
+    }
+
+    /**
+     * Lee un usuario.
+     *
+     * @param entrada Lector JSON
+     * @return Usuario leído, o null
+     * @throws IOException Si el JSON no es un usuario
+     */
+    @Override
+    public Usuario read(JsonReader entrada) throws IOException {
+        if (entrada.peek() == JsonToken.NULL) {
+            entrada.nextNull();
+            return null;
+        }
+        String nombre = null;
+        String contraseña = null;
+        entrada.beginObject();
+        while (entrada.hasNext()) {
+            switch (entrada.nextName()) {
+                case "name":
+                    nombre = entrada.nextString();
+                    break;
+                case "password":
+                    if (entrada.peek() == JsonToken.NULL) {
+                        entrada.nextNull();
+                    } else {
+                        contraseña = entrada.nextString();
+                    }
+                    break;
+                default:
+                    entrada.skipValue();
+            }
+        }
+        entrada.endObject();
+        if (nombre == null) {
+            throw new IOException("Usuario sin nombre en " + entrada.getPath());
+        }
+        return new Usuario(nombre, contraseña);
+    }
+}
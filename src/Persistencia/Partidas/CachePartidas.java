@@ -0,0 +1,195 @@
+package Persistencia.Partidas;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import Partida.Partida;
+
+/**
+ * Caché LRU de partidas ya leídas de disco, acotada en número de entradas y
+ * en peso (los bytes de los archivos de los que se leyeron).
+ * Las vistas de historial y las revanchas vuelven a pedir las mismas partidas
+ * recientes; con la caché no se vuelven a leer ni a decodificar.
+ *
+ * Las partidas de la caché se comparten entre quienes las piden y deben
+ * tratarse como de solo lectura: no se modifican ni se liberan sus tableros.
+ * Cada guardado invalida la entrada de su archivo. Para que una lectura que
+ * empezó antes de un guardado no meta en la caché la versión anterior, quien
+ * lee toma la versión de la caché antes de abrir el archivo y la entrega al
+ * añadir la partida; si entretanto hubo alguna invalidación, no se añade.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class CachePartidas {
+
+    /** Propiedad del sistema con el número máximo de partidas en caché */
+    public static final String PROPIEDAD_ENTRADAS = "hundir.cache.partidas";
+    /** Propiedad del sistema con el peso máximo de la caché en bytes */
+    public static final String PROPIEDAD_PESO = "hundir.cache.bytes";
+    /** Número máximo de partidas en caché por defecto */
+    public static final int ENTRADAS_MAXIMAS = 256;
+    /** Peso máximo de la caché por defecto: 8 MB de archivos */
+    public static final long PESO_MAXIMO = 8L << 20;
+
+    /** Caché compartida por los lectores de partidas */
+    private static CachePartidas instancia;
+
+    /**
+     * Partida en caché y su peso.
+     */
+    private static final class Entrada {
+        /** Partida leída */
+        private final Partida partida;
+        /** Bytes del archivo del que se leyó */
+        private final long peso;
+
+        /**
+         * Crea la entrada de una partida leída.
+         *
+         * @param partida Partida leída
+         * @param peso Bytes del archivo del que se leyó
+         */
+        private Entrada(Partida partida, long peso) {
+            this.partida = partida;
+            this.peso = peso;
+        }
+    }
+
+    /** Número máximo de entradas */
+    private final int entradasMaximas;
+    /** Peso máximo total */
+    private final long pesoMaximo;
+    /** Entradas por archivo, de la usada hace más tiempo a la más reciente */
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    /** Peso total de las entradas */
+    private long peso;
+    /** Número de invalidaciones; cambia con cada guardado */
+    private long version;
+
+    /** Peticiones servidas desde la caché */
+    private long aciertos;
+    /** Peticiones que no estaban en la caché */
+    private long fallos;
+    /** Entradas expulsadas por falta de sitio */
+    private long expulsiones;
+    /** Entradas invalidadas por un guardado */
+    private long invalidaciones;
+    /** Partidas no añadidas por ser demasiado pesadas o por haber cambiado la versión */
+    private long descartadas;
+
+    /**
+     * Obtiene la caché compartida, con los límites de PROPIEDAD_ENTRADAS y PROPIEDAD_PESO.
+     *
+     * @return Caché de partidas
+     */
+    public static synchronized CachePartidas getInstancia() {
+        if (instancia == null) {
+            instancia = new CachePartidas(Integer.getInteger(PROPIEDAD_ENTRADAS, ENTRADAS_MAXIMAS),
+                Long.getLong(PROPIEDAD_PESO, PESO_MAXIMO));
+        }
+        return instancia;
+    }
+
+    /**
+     * Crea una caché vacía.
+     *
+     * @param entradasMaximas Número máximo de partidas; 0 desactiva la caché
+     * @param pesoMaximo Peso máximo total en bytes
+     */
+    public CachePartidas(int entradasMaximas, long pesoMaximo) {
+        this.entradasMaximas = Math.max(0, entradasMaximas);
+        this.pesoMaximo = Math.max(0L, pesoMaximo);
+    }
+
+    /**
+     * Busca una partida en la caché y la marca como usada.
+     *
+     * @param archivo Nombre del archivo de la partida
+     * @return Partida en caché, o null si no está
+     */
+    public synchronized Partida obtener(String archivo) {
+        Entrada entrada = entradas.get(archivo);
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return entrada.partida;
+    }
+
+    /**
+     * Obtiene la versión de la caché, que aumenta con cada invalidación.
+     *
+     * @return Versión actual, a tomar antes de leer un archivo para añadirlo después
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Añade una partida leída y expulsa las menos usadas hasta volver a los límites.
+     *
+     * @param archivo Nombre del archivo de la partida
+     * @param partida Partida leída
+     * @param pesoPartida Bytes del archivo
+     * @param versionLectura Versión tomada antes de leer el archivo
+     */
+    public synchronized void poner(String archivo, Partida partida, long pesoPartida, long versionLectura) {
+        if (partida == null) {
+            return;
+        }
+        if (versionLectura != version || pesoPartida > pesoMaximo || entradasMaximas == 0) {
+            descartadas++;
+            return;
+        }
+        Entrada anterior = entradas.put(archivo, new Entrada(partida, pesoPartida));
+        if (anterior != null) {
+            peso -= anterior.peso;
+        }
+        peso += pesoPartida;
+
+        Iterator<Entrada> menosUsadas = entradas.values().iterator();
+        while ((entradas.size() > entradasMaximas || peso > pesoMaximo) && menosUsadas.hasNext()) {
+            peso -= menosUsadas.next().peso;
+            menosUsadas.remove();
+            expulsiones++;
+        }
+    }
+
+    /**
+     * Invalida la entrada de un archivo que se acaba de guardar.
+     *
+     * @param archivo Nombre del archivo de la partida
+     */
+    public synchronized void invalidar(String archivo) {
+        version++;
+        Entrada entrada = entradas.remove(archivo);
+        if (entrada != null) {
+            peso -= entrada.peso;
+            invalidaciones++;
+        }
+    }
+
+    /**
+     * Obtiene la tasa de aciertos de la caché.
+     *
+     * @return Fracción de peticiones servidas desde la caché, entre 0 y 1
+     */
+    public synchronized double getTasaAciertos() {
+        long peticiones = aciertos + fallos;
+        return peticiones == 0 ? 0.0 : (double) aciertos / peticiones;
+    }
+
+    /**
+     * Obtiene un resumen de la ocupación y de los aciertos de la caché.
+     *
+     * @return String con las entradas, el peso, la tasa de aciertos y los contadores
+     */
+    public synchronized String getResumen() {
+        return String.format("Entradas: %d/%d | Peso: %d/%d KB | Aciertos: %d | Fallos: %d | Tasa: %.1f%%"
+                + " | Expulsiones: %d | Invalidaciones: %d | Descartadas: %d",
+            entradas.size(), entradasMaximas, peso >> 10, pesoMaximo >> 10, aciertos, fallos,
+            getTasaAciertos() * 100.0, expulsiones, invalidaciones, descartadas);
+    }
+}
@@ -0,0 +1,378 @@
+package Persistencia.Partidas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import Barcos.TablaBarcos;
+import Cliente.Usuario;
+import Partida.Colocacion;
+import Partida.FasePartida;
+import Partida.Movimiento;
+import Partida.Partida;
+import Sistema.FabricaBarcos;
+import Sistema.TipoBarco;
+import Tablero.Casilla;
+import Tablero.Tablero;
+
+/**
+ * Codificación binaria compacta y versionada de una Partida.
+ * Sustituye al JSON con sangrías, que repite las coordenadas y el estado de
+ * las 128 casillas y copia las contraseñas de los jugadores.
+ *
+ * Formato (versión 1), todos los enteros en big-endian:
+ * - cabecera: número mágico, versión, fase, turno codificado, resultado y banderas
+ * - jugadores: solo los nombres, sin contraseñas
+ * - por cada tablero: tamaño, máscara de barcos, máscara de impactos y tabla de
+ *   barcos (tipo y orientación en un byte, casilla de anclaje en otro)
+ * - movimientos: un byte por ataque con la casilla (6 bits) y el tablero atacado
+ * - colocaciones: jugador y tipo, casilla de anclaje y orientación
+ *
+ * Los estados de las casillas no se guardan: se deducen de las máscaras al
+ * reconstruir los tableros, de modo que la partida leída tiene los mismos
+ * estados, barcos e impactos que la guardada.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class CodecPartida {
+
+    /** Número mágico del formato ("HFPB") */
+    public static final int MAGICO = 0x48465042;
+    /** Versión actual del formato */
+    public static final int VERSION = 1;
+
+    /** Sin ganador */
+    private static final int SIN_GANADOR = 0;
+    /** Ha ganado el usuario principal */
+    private static final int GANA_PRINCIPAL = 1;
+    /** Ha ganado el usuario rival */
+    private static final int GANA_RIVAL = 2;
+    /** Bandera: la partida tiene rival */
+    private static final int CON_RIVAL = 1;
+    /** Bandera: la partida tiene tableros */
+    private static final int CON_TABLEROS = 1 << 1;
+    /** Marca de movimiento o colocación sobre el tablero rival */
+    private static final int TABLERO_RIVAL = 1 << 6;
+    /** Marca de barco u orientación horizontal */
+    private static final int HORIZONTAL = 1 << 7;
+
+    /**
+     * Constructor privado: clase de utilidades.
+     */
+    private CodecPartida() {
+    }
+
+    /**
+     * Codifica una partida en el formato binario.
+     *
+     * @param partida Partida a codificar
+     * @return Bytes de la partida
+     * @throws IllegalArgumentException Si la partida es null o no tiene usuario principal
+     */
+    public static byte[] codificar(Partida partida) {
+        if (partida == null || partida.getUsuarioPrincipal() == null) {
+            throw new IllegalArgumentException("La partida no puede ser null");
+        }
+        Usuario principal = partida.getUsuarioPrincipal();
+        Usuario rival = partida.getUsuarioRival();
+        Tablero tableroPrincipal = partida.getTableroPrincipal();
+        Tablero tableroRival = partida.getTableroRival();
+        boolean conTableros = tableroPrincipal != null && tableroPrincipal.cas != null
+            && tableroRival != null && tableroRival.cas != null;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeInt(MAGICO);
+            salida.writeByte(VERSION);
+            salida.writeByte(partida.getFase().ordinal());
+            salida.writeLong(partida.getTurnoCodificado());
+            salida.writeByte(codificarGanador(partida));
+            salida.writeByte((rival != null ? CON_RIVAL : 0) | (conTableros ? CON_TABLEROS : 0));
+
+            salida.writeUTF(principal.getName());
+            if (rival != null) {
+                salida.writeUTF(rival.getName());
+            }
+
+            if (conTableros) {
+                escribirTablero(salida, tableroPrincipal);
+                escribirTablero(salida, tableroRival);
+                escribirMovimientos(salida, partida, tableroPrincipal.cas.length);
+            }
+            escribirColocaciones(salida, partida);
+        } catch (IOException e) {
+            // Un ByteArrayOutputStream no produce errores de E/S
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Codifica el resultado de la partida.
+     *
+     * @param partida Partida a codificar
+     * @return SIN_GANADOR, GANA_PRINCIPAL o GANA_RIVAL
+     */
+    private static int codificarGanador(Partida partida) {
+        Usuario ganador = partida.getGanador();
+        if (ganador == null) {
+            return SIN_GANADOR;
+        }
+        return ganador.equals(partida.getUsuarioPrincipal()) ? GANA_PRINCIPAL : GANA_RIVAL;
+    }
+
+    /**
+     * Escribe un tablero: tamaño, máscaras de barcos e impactos y tabla de barcos.
+     *
+     * @param salida Flujo de salida
+     * @param tablero Tablero a escribir
+     * @throws IOException Si no se puede escribir
+     */
+    private static void escribirTablero(DataOutputStream salida, Tablero tablero) throws IOException {
+        salida.writeByte(tablero.cas.length);
+        salida.writeLong(tablero.getMascaraBarcos());
+        salida.writeLong(tablero.getMascaraImpactos());
+        TablaBarcos barcos = tablero.getBarcos();
+        salida.writeByte(barcos.getNumeroBarcos());
+        for (int id = 0; id < barcos.getNumeroBarcos(); id++) {
+            salida.writeByte(barcos.getTipo(id).ordinal() | (barcos.esHorizontal(id) ? HORIZONTAL : 0));
+            salida.writeByte(barcos.getFila(id) * tablero.cas.length + barcos.getColumna(id));
+        }
+    }
+
+    /**
+     * Escribe los movimientos: un byte por ataque con la casilla atacada y el tablero.
+     *
+     * @param salida Flujo de salida
+     * @param partida Partida a codificar
+     * @param tamaño Tamaño de los tableros
+     * @throws IOException Si no se puede escribir
+     */
+    private static void escribirMovimientos(DataOutputStream salida, Partida partida, int tamaño) throws IOException {
+        List<Movimiento> movimientos = partida.getMovimientos();
+        salida.writeInt(movimientos.size());
+        for (Movimiento movimiento : movimientos) {
+            Casilla casilla = movimiento.getCasilla();
+            // getColumna() guarda la fila del tablero y getFila() la columna
+            int celda = casilla.getColumna() * tamaño + casilla.getFila();
+            boolean atacaPrincipal = movimiento.getUsuario().equals(partida.getUsuarioPrincipal());
+            salida.writeByte(celda | (atacaPrincipal ? TABLERO_RIVAL : 0));
+        }
+    }
+
+    /**
+     * Escribe las colocaciones de barcos registradas.
+     * Las colocaciones de tipos desconocidos no se pueden reproducir y se omiten.
+     *
+     * @param salida Flujo de salida
+     * @param partida Partida a codificar
+     * @throws IOException Si no se puede escribir
+     */
+    private static void escribirColocaciones(DataOutputStream salida, Partida partida) throws IOException {
+        List<Colocacion> colocaciones = partida.getColocaciones();
+        int validas = 0;
+        for (Colocacion colocacion : colocaciones) {
+            if (TipoBarco.fromString(colocacion.getTipoBarco()) != null) {
+                validas++;
+            }
+        }
+        salida.writeInt(validas);
+        for (Colocacion colocacion : colocaciones) {
+            TipoBarco tipo = TipoBarco.fromString(colocacion.getTipoBarco());
+            if (tipo == null) {
+                continue;
+            }
+            boolean delRival = !colocacion.getUsuario().equals(partida.getUsuarioPrincipal());
+            boolean horizontal = "HORIZONTAL".equalsIgnoreCase(colocacion.getOrientacion());
+            salida.writeByte(tipo.ordinal() | (delRival ? TABLERO_RIVAL : 0) | (horizontal ? HORIZONTAL : 0));
+            salida.writeByte(colocacion.getFila());
+            salida.writeByte(colocacion.getColumna());
+        }
+    }
+
+    /**
+     * Indica si unos bytes empiezan por el número mágico del formato.
+     *
+     * @param datos Bytes a comprobar
+     * @return true si los bytes parecen una partida codificada
+     */
+    public static boolean esFormatoBinario(byte[] datos) {
+        return datos != null && datos.length >= 4
+            && ((datos[0] & 0xFF) << 24 | (datos[1] & 0xFF) << 16 | (datos[2] & 0xFF) << 8 | (datos[3] & 0xFF)) == MAGICO;
+    }
+
+    /**
+     * Lee solo los nombres de los jugadores de una partida codificada, sin
+     * reconstruir sus tableros.
+     *
+     * @param datos Bytes de la partida, o al menos su cabecera
+     * @return Nombre del usuario principal y del rival (null si no hay rival)
+     * @throws IOException Si los datos no tienen el formato esperado
+     */
+    public static String[] leerJugadores(byte[] datos) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos))) {
+            if (entrada.readInt() != MAGICO) {
+                throw new IOException("No es una partida en formato binario");
+            }
+            int version = entrada.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Versión de partida no soportada: " + version);
+            }
+            entrada.readUnsignedByte();
+            entrada.readLong();
+            entrada.readUnsignedByte();
+            int banderas = entrada.readUnsignedByte();
+            String principal = entrada.readUTF();
+            String rival = (banderas & CON_RIVAL) != 0 ? entrada.readUTF() : null;
+            return new String[] { principal, rival };
+        }
+    }
+
+    /**
+     * Reconstruye una partida a partir de su codificación binaria.
+     * Los tableros se crean fuera del pool, porque las partidas leídas no se
+     * liberan, y se rellenan con los barcos y los impactos guardados.
+     *
+     * @param datos Bytes de la partida
+     * @return Partida reconstruida
+     * @throws IOException Si los datos no tienen el formato esperado o están dañados
+     */
+    public static Partida decodificar(byte[] datos) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos))) {
+            if (entrada.readInt() != MAGICO) {
+                throw new IOException("No es una partida en formato binario");
+            }
+            int version = entrada.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Versión de partida no soportada: " + version);
+            }
+            int fase = entrada.readUnsignedByte();
+            if (fase >= FasePartida.values().length) {
+                throw new IOException("Fase de partida no válida: " + fase);
+            }
+            long turno = entrada.readLong();
+            int ganador = entrada.readUnsignedByte();
+            int banderas = entrada.readUnsignedByte();
+
+            Usuario principal = new Usuario(entrada.readUTF(), null);
+            Usuario rival = (banderas & CON_RIVAL) != 0 ? new Usuario(entrada.readUTF(), null) : null;
+
+            Partida partida = new Partida(principal, rival, false);
+            if ((banderas & CON_TABLEROS) != 0) {
+                if (rival == null) {
+                    throw new IOException("Partida con tableros y sin rival");
+                }
+                leerTablero(entrada, partida.getTableroPrincipal());
+                leerTablero(entrada, partida.getTableroRival());
+                leerMovimientos(entrada, partida);
+            }
+            leerColocaciones(entrada, partida);
+
+            Usuario usuarioGanador = ganador == GANA_PRINCIPAL ? principal : ganador == GANA_RIVAL ? rival : null;
+            Usuario usuarioPerdedor = usuarioGanador == null ? null : partida.getRival(usuarioGanador);
+            partida.restaurar(FasePartida.values()[fase], turno, usuarioGanador, usuarioPerdedor);
+            return partida;
+        } catch (RuntimeException e) {
+            throw new IOException("Partida dañada: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rellena un tablero vacío con los barcos y los impactos guardados.
+     *
+     * @param entrada Flujo de entrada
+     * @param tablero Tablero vacío
+     * @throws IOException Si el tablero guardado no es coherente
+     */
+    private static void leerTablero(DataInputStream entrada, Tablero tablero) throws IOException {
+        int tamaño = entrada.readUnsignedByte();
+        if (tamaño != tablero.cas.length) {
+            throw new IOException("Tamaño de tablero no soportado: " + tamaño);
+        }
+        long mascaraBarcos = entrada.readLong();
+        long mascaraImpactos = entrada.readLong();
+        int numBarcos = entrada.readUnsignedByte();
+
+        FabricaBarcos fabrica = new FabricaBarcos(tablero);
+        TipoBarco[] tipos = TipoBarco.values();
+        for (int i = 0; i < numBarcos; i++) {
+            int tipoYOrientacion = entrada.readUnsignedByte();
+            int anclaje = entrada.readUnsignedByte();
+            int tipo = tipoYOrientacion & ~HORIZONTAL;
+            if (tipo >= tipos.length) {
+                throw new IOException("Tipo de barco no válido: " + tipo);
+            }
+            String orientacion = (tipoYOrientacion & HORIZONTAL) != 0 ? "HORIZONTAL" : "VERTICAL";
+            if (fabrica.crearBarco(tipos[tipo].getNombre(), anclaje / tamaño, anclaje % tamaño, orientacion) == null) {
+                throw new IOException("Barco fuera del tablero en la casilla " + anclaje);
+            }
+        }
+        if (tablero.getMascaraBarcos() != mascaraBarcos) {
+            throw new IOException("La tabla de barcos no coincide con la máscara de barcos");
+        }
+
+        long pendientes = mascaraImpactos;
+        while (pendientes != 0L) {
+            int celda = Long.numberOfTrailingZeros(pendientes);
+            tablero.cas[celda / tamaño][celda % tamaño].getDaño();
+            pendientes &= pendientes - 1;
+        }
+    }
+
+    /**
+     * Añade al historial los movimientos guardados sin volver a aplicar los impactos.
+     *
+     * @param entrada Flujo de entrada
+     * @param partida Partida con los tableros ya reconstruidos
+     * @throws IOException Si no se pueden leer los movimientos
+     */
+    private static void leerMovimientos(DataInputStream entrada, Partida partida) throws IOException {
+        int numMovimientos = entrada.readInt();
+        if (numMovimientos < 0) {
+            throw new IOException("Número de movimientos no válido: " + numMovimientos);
+        }
+        int tamaño = partida.getTableroPrincipal().cas.length;
+        for (int i = 0; i < numMovimientos; i++) {
+            int movimiento = entrada.readUnsignedByte();
+            int celda = movimiento & (TABLERO_RIVAL - 1);
+            if (celda >= tamaño * tamaño) {
+                throw new IOException("Casilla de movimiento no válida: " + celda);
+            }
+            boolean atacaPrincipal = (movimiento & TABLERO_RIVAL) != 0;
+            Tablero atacado = atacaPrincipal ? partida.getTableroRival() : partida.getTableroPrincipal();
+            Usuario atacante = atacaPrincipal ? partida.getUsuarioPrincipal() : partida.getUsuarioRival();
+            partida.registrarAtaque(atacante, atacado.cas[celda / tamaño][celda % tamaño]);
+        }
+    }
+
+    /**
+     * Añade las colocaciones guardadas sin volver a colocar los barcos.
+     *
+     * @param entrada Flujo de entrada
+     * @param partida Partida reconstruida
+     * @throws IOException Si no se pueden leer las colocaciones
+     */
+    private static void leerColocaciones(DataInputStream entrada, Partida partida) throws IOException {
+        int numColocaciones = entrada.readInt();
+        if (numColocaciones < 0) {
+            throw new IOException("Número de colocaciones no válido: " + numColocaciones);
+        }
+        TipoBarco[] tipos = TipoBarco.values();
+        for (int i = 0; i < numColocaciones; i++) {
+            int cabecera = entrada.readUnsignedByte();
+            int fila = entrada.readUnsignedByte();
+            int columna = entrada.readUnsignedByte();
+            int tipo = cabecera & (TABLERO_RIVAL - 1);
+            if (tipo >= tipos.length) {
+                throw new IOException("Tipo de barco no válido: " + tipo);
+            }
+            Usuario usuario = (cabecera & TABLERO_RIVAL) != 0 ? partida.getUsuarioRival() : partida.getUsuarioPrincipal();
+            String orientacion = (cabecera & HORIZONTAL) != 0 ? "HORIZONTAL" : "VERTICAL";
+            partida.addColocacion(usuario, tipos[tipo].getNombre(), fila, columna, orientacion);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package Persistencia.Partidas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de movimientos por partida con confirmación en grupo.
+ * Cada colocación y cada ataque aceptado se añade como un registro al final
+ * del diario de su partida, de modo que guardar un movimiento cuesta una
+ * escritura secuencial en lugar de reescribir la partida completa.
+ *
+ * Los registros no se escriben uno a uno: un hilo de fondo los recoge cada
+ * INTERVALO_MS, los escribe en el diario de cada partida y fuerza a disco
+ * todos los diarios tocados en un solo lote. Quien necesita que un registro
+ * sea duradero antes de responder espera a que se confirme su lote; así el
+ * coste de forzar a disco se reparte entre todas las partidas activas. Los
+ * bucles de eventos solo añaden registros; la espera la hace el hilo de la
+ * conexión antes de responder, para no detener el bucle en cada lote.
+ *
+ * Si el diario de una partida no se puede escribir o forzar, se cierra, se
+ * recorta hasta lo último confirmado y se reintenta una vez con un canal nuevo.
+ * Si vuelve a fallar, solo ese diario queda inutilizado: su lote se considera
+ * fallido y no se admiten más registros de esa partida, porque un registro a
+ * medio escribir dejaría inservibles los que le siguen. Las demás partidas
+ * siguen usando el diario con normalidad.
+ *
+ * Formato de cada registro: longitud (entero), contenido y CRC32 del contenido.
+ * Al leer un diario, un registro incompleto o dañado al final se descarta y se
+ * recorta del archivo.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class DiarioPartidas {
+
+    /** Intervalo de agrupación de los registros, en milisegundos */
+    public static final long INTERVALO_MS = 2L;
+    /** Extensión de los diarios de partida */
+    public static final String EXTENSION = ".diario";
+
+    /** Carpeta de los diarios */
+    private final Path carpeta;
+    /** Monitor de los registros pendientes y de la confirmación de lotes */
+    private final Object monitor = new Object();
+    /** Registros pendientes de escribir, por partida */
+    private Map<String, ByteArrayOutputStream> pendientes = new HashMap<>();
+    /** Partidas cuyo diario se cierra y se borra al escribir el lote abierto */
+    private Set<String> aCerrar = new HashSet<>();
+    /** Diarios abiertos, solo usados por el hilo de escritura */
+    private final Map<String, FileChannel> canales = new HashMap<>();
+    /** Número del lote que recoge los registros nuevos */
+    private long loteAbierto = 1;
+    /** Último lote forzado a disco */
+    private long loteConfirmado;
+    /** Primer lote que no se pudo escribir de cada partida con el diario inutilizado */
+    private final Map<String, Long> lotesFallidos = new HashMap<>();
+    /** Bytes confirmados en disco de cada diario abierto, solo usados por el hilo de escritura */
+    private final Map<String, Long> confirmados = new HashMap<>();
+    /** Último lote con registros de cada partida cuyo diario sigue abierto */
+    private final Map<String, Long> ultimoLote = new HashMap<>();
+    /** Indica si se ha pedido detener el diario */
+    private boolean detenido;
+    /** Hilo que escribe y confirma los lotes */
+    private final Thread escritor;
+
+    /** Lotes confirmados */
+    private long lotes;
+    /** Escrituras de diario realizadas, una por partida y lote */
+    private long escrituras;
+    /** Tiempo total dedicado a forzar lotes a disco, en nanosegundos */
+    private long nanosForzado;
+
+    /**
+     * Constructor que crea la carpeta de diarios y arranca el hilo de escritura.
+     *
+     * @param carpeta Carpeta donde se guardan los diarios
+     * @throws RuntimeException Si no se puede crear la carpeta
+     */
+    public DiarioPartidas(String carpeta) {
+        this.carpeta = Paths.get(carpeta);
+        try {
+            Files.createDirectories(this.carpeta);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al crear la carpeta de diarios: " + e.getMessage(), e);
+        }
+        this.escritor = new Thread(this::escribirLotes, "Partidas-Diario");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Añade un registro al diario de una partida sin esperar a que llegue a disco.
+     * Los registros de una misma partida se escriben en el orden en que se añaden.
+     *
+     * @param idPartida ID de la partida
+     * @param registro Contenido del registro
+     * @return Lote en el que se escribirá el registro, para esperar
+     * @throws IllegalStateException Si el diario está detenido o el de la partida ha fallado
+     */
+    public long añadir(String idPartida, byte[] registro) {
+        CRC32 crc = new CRC32();
+        crc.update(registro);
+        ByteBuffer marco = ByteBuffer.allocate(registro.length + 8);
+        marco.putInt(registro.length).put(registro).putInt((int) crc.getValue());
+
+        synchronized (monitor) {
+            if (detenido) {
+                throw new IllegalStateException("El diario de partidas está detenido");
+            }
+            Long fallido = lotesFallidos.get(idPartida);
+            if (fallido != null) {
+                throw new IllegalStateException("El diario de " + idPartida + " falló en el lote " + fallido);
+            }
+            pendientes.computeIfAbsent(idPartida, id -> new ByteArrayOutputStream(64))
+                .write(marco.array(), 0, marco.capacity());
+            ultimoLote.put(idPartida, loteAbierto);
+            monitor.notifyAll();
+            return loteAbierto;
+        }
+    }
+
+    /**
+     * Obtiene el último lote con registros de una partida, para esperarlo
+     * fuera del bucle de eventos que los ha añadido.
+     *
+     * @param idPartida ID de la partida
+     * @return Último lote con registros de la partida, o 0 si no tiene ninguno pendiente
+     */
+    public long getLote(String idPartida) {
+        synchronized (monitor) {
+            Long lote = ultimoLote.get(idPartida);
+            return lote != null ? lote : 0L;
+        }
+    }
+
+    /**
+     * Espera a que un lote se haya forzado a disco.
+     * Esperar el lote 0 no espera nada.
+     *
+     * @param idPartida ID de la partida cuyos registros se esperan
+     * @param lote Lote devuelto por añadir o por getLote
+     * @throws RuntimeException Si el diario de la partida falló en ese lote o antes, o se interrumpe la espera
+     */
+    public void esperar(String idPartida, long lote) {
+        synchronized (monitor) {
+            while (loteConfirmado < lote) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Espera del diario de partidas interrumpida");
+                }
+            }
+            Long fallido = lotesFallidos.get(idPartida);
+            if (fallido != null && lote >= fallido) {
+                throw new RuntimeException("Error al escribir el diario de " + idPartida + " en el lote " + fallido);
+            }
+        }
+    }
+
+    /**
+     * Cierra y borra el diario de una partida, una vez guardada su instantánea.
+     * Los registros pendientes de la partida se escriben antes de borrarlo.
+     *
+     * @param idPartida ID de la partida
+     */
+    public void cerrar(String idPartida) {
+        long lote;
+        synchronized (monitor) {
+            if (detenido) {
+                return;
+            }
+            aCerrar.add(idPartida);
+            monitor.notifyAll();
+            lote = loteAbierto;
+        }
+        try {
+            esperar(idPartida, lote);
+        } catch (RuntimeException e) {
+            System.err.println("Error cerrando el diario de " + idPartida + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bucle del hilo de escritura: espera registros, deja pasar el intervalo
+     * de agrupación y escribe el lote.
+     */
+    private void escribirLotes() {
+        while (true) {
+            synchronized (monitor) {
+                while (pendientes.isEmpty() && aCerrar.isEmpty() && !detenido) {
+                    try {
+                        monitor.wait();
+                    } catch (InterruptedException e) {
+                        detenido = true;
+                    }
+                }
+                if (detenido && pendientes.isEmpty() && aCerrar.isEmpty()) {
+                    break;
+                }
+            }
+            try {
+                Thread.sleep(INTERVALO_MS);
+            } catch (InterruptedException e) {
+                // se escribe el lote igualmente antes de salir
+            }
+            escribirLote();
+        }
+        for (FileChannel canal : canales.values()) {
+            cerrarCanal(canal);
+        }
+        canales.clear();
+    }
+
+    /**
+     * Escribe los registros pendientes, fuerza a disco los diarios tocados y
+     * confirma el lote. Los diarios que fallan se reintentan uno a uno.
+     */
+    private void escribirLote() {
+        Map<String, ByteArrayOutputStream> lote;
+        Set<String> cerrar;
+        long numero;
+        synchronized (monitor) {
+            lote = pendientes;
+            cerrar = aCerrar;
+            pendientes = new HashMap<>();
+            aCerrar = new HashSet<>();
+            numero = loteAbierto++;
+            // Registros añadidos antes de inutilizar su diario: no se escriben detrás de uno roto
+            lote.keySet().removeAll(lotesFallidos.keySet());
+        }
+
+        Map<String, FileChannel> tocados = new HashMap<>();
+        Set<String> aReintentar = new HashSet<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entrada : lote.entrySet()) {
+            try {
+                tocados.put(entrada.getKey(), escribirRegistros(entrada.getKey(), entrada.getValue()));
+            } catch (IOException e) {
+                System.err.println("Error escribiendo el diario de " + entrada.getKey() + ": " + e.getMessage());
+                aReintentar.add(entrada.getKey());
+            }
+        }
+        long inicio = System.nanoTime();
+        for (Map.Entry<String, FileChannel> entrada : tocados.entrySet()) {
+            try {
+                entrada.getValue().force(false);
+                confirmados.put(entrada.getKey(), entrada.getValue().size());
+            } catch (IOException e) {
+                System.err.println("Error forzando el diario de " + entrada.getKey() + ": " + e.getMessage());
+                aReintentar.add(entrada.getKey());
+            }
+        }
+        long forzado = System.nanoTime() - inicio;
+
+        Set<String> fallidas = new HashSet<>();
+        for (String idPartida : aReintentar) {
+            if (!reintentar(idPartida, lote.get(idPartida))) {
+                fallidas.add(idPartida);
+            }
+        }
+
+        for (String idPartida : cerrar) {
+            FileChannel canal = canales.remove(idPartida);
+            confirmados.remove(idPartida);
+            if (canal != null) {
+                cerrarCanal(canal);
+            }
+            try {
+                Files.deleteIfExists(archivo(idPartida));
+            } catch (IOException e) {
+                System.err.println("Error borrando el diario de " + idPartida + ": " + e.getMessage());
+            }
+        }
+
+        synchronized (monitor) {
+            loteConfirmado = numero;
+            for (String idPartida : fallidas) {
+                lotesFallidos.putIfAbsent(idPartida, numero);
+            }
+            for (String idPartida : cerrar) {
+                Long ultimo = ultimoLote.get(idPartida);
+                if (ultimo != null && ultimo <= numero) {
+                    ultimoLote.remove(idPartida);
+                    lotesFallidos.remove(idPartida);
+                }
+            }
+            lotes++;
+            escrituras += lote.size();
+            nanosForzado += forzado;
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Escribe los registros de un lote al final del diario de una partida, sin forzarlos.
+     *
+     * @param idPartida ID de la partida
+     * @param registros Registros de la partida en este lote
+     * @return Canal del diario, para forzarlo
+     * @throws IOException Si no se pueden escribir
+     */
+    private FileChannel escribirRegistros(String idPartida, ByteArrayOutputStream registros) throws IOException {
+        FileChannel canal = canal(idPartida);
+        ByteBuffer datos = ByteBuffer.wrap(registros.toByteArray());
+        while (datos.hasRemaining()) {
+            canal.write(datos);
+        }
+        return canal;
+    }
+
+    /**
+     * Reintenta una vez el lote de un diario que ha fallado: cierra su canal,
+     * lo reabre, recorta lo que quedara a medio escribir y vuelve a escribir y
+     * forzar los registros del lote.
+     *
+     * @param idPartida ID de la partida
+     * @param registros Registros de la partida en este lote
+     * @return true si el reintento ha llegado a disco
+     */
+    private boolean reintentar(String idPartida, ByteArrayOutputStream registros) {
+        FileChannel anterior = canales.remove(idPartida);
+        if (anterior != null) {
+            cerrarCanal(anterior);
+        }
+        try {
+            FileChannel canal = canal(idPartida);
+            canal.truncate(confirmados.get(idPartida));
+            escribirRegistros(idPartida, registros).force(false);
+            confirmados.put(idPartida, canal.size());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Diario de " + idPartida + " inutilizado: " + e.getMessage());
+            FileChannel canal = canales.remove(idPartida);
+            if (canal != null) {
+                cerrarCanal(canal);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Obtiene el canal abierto del diario de una partida, abriéndolo si hace falta.
+     * La primera vez que se abre, su tamaño se toma como confirmado.
+     *
+     * @param idPartida ID de la partida
+     * @return Canal del diario en modo de añadir
+     * @throws IOException Si no se puede abrir el diario
+     */
+    private FileChannel canal(String idPartida) throws IOException {
+        FileChannel canal = canales.get(idPartida);
+        if (canal == null) {
+            canal = FileChannel.open(archivo(idPartida),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            confirmados.putIfAbsent(idPartida, canal.size());
+            canales.put(idPartida, canal);
+        }
+        return canal;
+    }
+
+    /**
+     * Cierra un canal ignorando los errores.
+     *
+     * @param canal Canal a cerrar
+     */
+    private static void cerrarCanal(FileChannel canal) {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // el diario ya está escrito; el error al cerrar no pierde registros
+        }
+    }
+
+    /**
+     * Resuelve el archivo del diario de una partida.
+     *
+     * @param idPartida ID de la partida
+     * @return Ruta del diario de la partida
+     */
+    private Path archivo(String idPartida) {
+        return carpeta.resolve(idPartida + EXTENSION);
+    }
+
+    /**
+     * Lee los registros completos del diario de una partida.
+     * Un registro incompleto o dañado al final se descarta y se recorta del
+     * archivo, para que los registros siguientes no queden detrás de él.
+     * Debe llamarse antes de añadir nuevos registros a esa partida.
+     *
+     * @param idPartida ID de la partida
+     * @return Registros en orden de escritura; vacía si no hay diario
+     */
+    public List<byte[]> leer(String idPartida) {
+        List<byte[]> leidos = new ArrayList<>();
+        Path archivo = archivo(idPartida);
+        if (!Files.exists(archivo)) {
+            return leidos;
+        }
+        try {
+            ByteBuffer contenido = ByteBuffer.wrap(Files.readAllBytes(archivo));
+            int valido = 0;
+            while (contenido.remaining() >= 8) {
+                int longitud = contenido.getInt();
+                if (longitud < 0 || longitud + 4 > contenido.remaining()) {
+                    break;
+                }
+                byte[] registro = new byte[longitud];
+                contenido.get(registro);
+                CRC32 crc = new CRC32();
+                crc.update(registro);
+                if (contenido.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+                leidos.add(registro);
+                valido = contenido.position();
+            }
+            if (valido < contenido.capacity()) {
+                System.err.println("Registro de partida incompleto descartado en " + archivo);
+                try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                    canal.truncate(valido);
+                    canal.force(false);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error leyendo el diario de " + idPartida + ": " + e.getMessage());
+        }
+        return leidos;
+    }
+
+    /**
+     * Lista las partidas que tienen diario en disco.
+     *
+     * @return IDs de las partidas con diario
+     */
+    public List<String> listarPartidas() {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpeta, "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                ids.add(nombre.substring(0, nombre.length() - EXTENSION.length()));
+            }
+        } catch (IOException e) {
+            System.err.println("Error listando diarios de partida: " + e.getMessage());
+        }
+        return ids;
+    }
+
+    /**
+     * Escribe los registros pendientes y detiene el hilo de escritura.
+     */
+    public void detener() {
+        synchronized (monitor) {
+            detenido = true;
+            monitor.notifyAll();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene un resumen de la confirmación en grupo.
+     *
+     * @return Texto con lotes, diarios escritos por lote y tiempo medio de forzado
+     */
+    public String getResumen() {
+        synchronized (monitor) {
+            double porLote = lotes == 0 ? 0.0 : (double) escrituras / lotes;
+            double msForzado = lotes == 0 ? 0.0 : nanosForzado / 1_000_000.0 / lotes;
+            return String.format("Lotes: %d | Diarios por lote: %.1f | Forzado medio: %.2f ms | Inutilizados: %d",
+                lotes, porLote, msForzado, lotesFallidos.size());
+        }
+    }
+}
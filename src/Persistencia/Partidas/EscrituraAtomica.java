@@ -0,0 +1,104 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritura de archivos que sobrevive a una caída del proceso o del sistema.
+ * El contenido se escribe en un archivo temporal de la misma carpeta, se fuerza
+ * a disco y se renombra de forma atómica sobre el destino, de modo que el
+ * destino tiene siempre el contenido anterior completo o el nuevo completo.
+ * Los temporales que deja una caída a medio escribir terminan en SUFIJO_TEMPORAL.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+final class EscrituraAtomica {
+
+    /** Sufijo de los archivos temporales */
+    static final String SUFIJO_TEMPORAL = ".tmp";
+
+    /**
+     * Escribe el contenido de un archivo en un flujo.
+     */
+    @FunctionalInterface
+    interface Contenido {
+        /**
+         * Escribe el contenido completo del archivo.
+         *
+         * @param salida Flujo sobre el canal del archivo temporal; no debe cerrarse
+         * @throws IOException Si no se puede escribir
+         */
+        void escribirEn(OutputStream salida) throws IOException;
+    }
+
+    /**
+     * Constructor privado: clase de utilidades.
+     */
+    private EscrituraAtomica() {
+    }
+
+    /**
+     * Sustituye el contenido de un archivo de forma atómica y duradera.
+     *
+     * @param destino Archivo a escribir
+     * @param contenido Contenido completo del archivo
+     * @throws IOException Si no se puede escribir o renombrar el archivo
+     */
+    static void escribir(Path destino, byte[] contenido) throws IOException {
+        escribir(destino, salida -> salida.write(contenido));
+    }
+
+    /**
+     * Sustituye el contenido de un archivo de forma atómica y duradera,
+     * escribiéndolo directamente sobre el canal del temporal sin construirlo
+     * antes en memoria.
+     *
+     * @param destino Archivo a escribir
+     * @param contenido Escritor del contenido completo del archivo
+     * @throws IOException Si no se puede escribir o renombrar el archivo
+     */
+    static void escribir(Path destino, Contenido contenido) throws IOException {
+        Path carpeta = destino.toAbsolutePath().getParent();
+        Path temporal = Files.createTempFile(carpeta, destino.getFileName().toString() + ".", SUFIJO_TEMPORAL);
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream salida = Channels.newOutputStream(canal);
+                contenido.escribirEn(salida);
+                salida.flush();
+                canal.force(true);
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        forzarCarpeta(carpeta);
+    }
+
+    /**
+     * Fuerza a disco la entrada de directorio del renombrado.
+     * Algunos sistemas no permiten abrir carpetas; en ellos el renombrado ya es duradero.
+     *
+     * @param carpeta Carpeta del archivo renombrado
+     */
+    private static void forzarCarpeta(Path carpeta) {
+        try (FileChannel canal = FileChannel.open(carpeta, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // Sin soporte para sincronizar carpetas
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package Persistencia.Partidas;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import Partida.Partida;
+import Persistencia.Interfaces.GuardarPartidas;
+
+/**
+ * Guardador de partidas que escribe en un hilo propio, fuera del camino del juego.
+ * Cada petición se prepara con el guardador de destino en el hilo que la hace,
+ * que codifica la partida en ese momento; el hilo escritor nunca lee la partida,
+ * solo escribe lo ya codificado. Las peticiones se encolan por partida en una
+ * cola acotada: si una partida ya está pendiente, la nueva petición se funde con
+ * ella y solo se escribe el estado más reciente. El hilo escritor toma todas las
+ * pendientes de una vez y las escribe en lote.
+ *
+ * Cuando la cola está llena, quien guarda espera a que haya hueco (presión hacia
+ * atrás); si la espera supera ESPERA_MAXIMA_MS, la partida se escribe en el hilo
+ * que la pide, de modo que ninguna petición se pierde.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class GuardarPartidasAsincrono implements GuardarPartidas {
+
+    /** Número máximo de partidas pendientes de escribir */
+    public static final int CAPACIDAD = 1024;
+    /** Tiempo máximo que se espera a que haya hueco en la cola */
+    public static final long ESPERA_MAXIMA_MS = 5000;
+
+    /**
+     * Partida pendiente de escribir y acciones que esperan a que se escriba.
+     */
+    private static final class Pendiente {
+        /** Escritura del estado más reciente pedido para la partida */
+        private Runnable escritura;
+        /** Clave de la partida */
+        private String clave;
+        /** Acciones a ejecutar tras escribir la partida */
+        private final List<Runnable> alTerminar = new ArrayList<>(1);
+        /** Instante en que se encoló la primera petición */
+        private final long encolada = System.nanoTime();
+    }
+
+    /** Guardador que escribe realmente las partidas */
+    private final GuardarPartidas destino;
+    /** Número máximo de partidas pendientes */
+    private final int capacidad;
+    /** Partidas pendientes por clave, en orden de llegada; protegido por this */
+    private final LinkedHashMap<String, Pendiente> pendientes = new LinkedHashMap<>();
+    /** Hilo que escribe las partidas pendientes */
+    private final Thread escritor;
+    /** true cuando se ha pedido detener el escritor */
+    private boolean detenido;
+
+    /** Peticiones de guardado recibidas */
+    private long solicitudes;
+    /** Peticiones fundidas con una pendiente de la misma partida */
+    private long fundidas;
+    /** Peticiones que tuvieron que esperar hueco en la cola */
+    private long esperas;
+    /** Peticiones escritas en el hilo que las pidió por falta de hueco */
+    private long sincronas;
+    /** Mayor número de partidas pendientes observado */
+    private int profundidadMaxima;
+    /** Lotes escritos por el hilo escritor */
+    private long lotes;
+    /** Partidas escritas */
+    private long escritas;
+    /** Escrituras que fallaron */
+    private long fallidas;
+    /** Tiempo total de escritura */
+    private long nanosEscritura;
+    /** Mayor tiempo de escritura de una partida */
+    private long nanosEscrituraMaximo;
+    /** Tiempo total desde que se encola una partida hasta que se escribe */
+    private long nanosEnCola;
+
+    /**
+     * Crea el guardador con la capacidad por defecto.
+     *
+     * @param destino Guardador que escribe las partidas
+     */
+    public GuardarPartidasAsincrono(GuardarPartidas destino) {
+        this(destino, CAPACIDAD);
+    }
+
+    /**
+     * Crea el guardador e inicia su hilo escritor.
+     *
+     * @param destino Guardador que escribe las partidas
+     * @param capacidad Número máximo de partidas pendientes
+     * @throws IllegalArgumentException Si el destino es null o la capacidad no es positiva
+     */
+    public GuardarPartidasAsincrono(GuardarPartidas destino, int capacidad) {
+        if (destino == null || capacidad <= 0) {
+            throw new IllegalArgumentException("Se necesita un destino y una capacidad positiva");
+        }
+        this.destino = destino;
+        this.capacidad = capacidad;
+        this.escritor = new Thread(this::escribirPendientes, "Partidas-Guardado");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Encola el guardado de una partida.
+     *
+     * @param datos Partida a guardar
+     * @throws IllegalArgumentException Si los datos son null o no son una Partida
+     */
+    @Override
+    public void guardar(Object datos) {
+        guardar(datos, null);
+    }
+
+    /**
+     * Encola el guardado de una partida y la acción a ejecutar cuando quede escrita.
+     * La partida se codifica aquí, en el hilo que llama, que debe ser el único
+     * que la modifica mientras tanto. La acción se ejecuta en el hilo escritor y
+     * solo si la escritura tiene éxito.
+     *
+     * @param datos Partida a guardar
+     * @param alTerminar Acción a ejecutar tras escribir la partida, o null
+     * @throws IllegalArgumentException Si los datos son null o no son una Partida
+     */
+    @Override
+    public void guardar(Object datos, Runnable alTerminar) {
+        if (!(datos instanceof Partida)) {
+            throw new IllegalArgumentException("Solo se pueden guardar objetos de tipo Partida");
+        }
+        String clave = datos.toString();
+        Runnable escritura = destino.preparar(datos);
+
+        synchronized (this) {
+            solicitudes++;
+            Pendiente pendiente = pendientes.get(clave);
+            if (pendiente != null) {
+                pendiente.escritura = escritura;
+                if (alTerminar != null) {
+                    pendiente.alTerminar.add(alTerminar);
+                }
+                fundidas++;
+                return;
+            }
+            if (esperarHueco()) {
+                pendiente = new Pendiente();
+                pendiente.clave = clave;
+                pendiente.escritura = escritura;
+                if (alTerminar != null) {
+                    pendiente.alTerminar.add(alTerminar);
+                }
+                pendientes.put(clave, pendiente);
+                profundidadMaxima = Math.max(profundidadMaxima, pendientes.size());
+                notifyAll();
+                return;
+            }
+            sincronas++;
+        }
+
+        // Sin hueco en la cola o escritor detenido: se escribe aquí
+        List<Runnable> acciones = new ArrayList<>(1);
+        if (alTerminar != null) {
+            acciones.add(alTerminar);
+        }
+        escribir(clave, escritura, acciones);
+    }
+
+    /**
+     * Espera a que haya hueco en la cola. Se llama con el monitor tomado.
+     *
+     * @return true si hay hueco, false si el escritor está detenido o se agotó la espera
+     */
+    private boolean esperarHueco() {
+        if (detenido) {
+            return false;
+        }
+        if (pendientes.size() < capacidad) {
+            return true;
+        }
+        esperas++;
+        long limite = System.nanoTime() + ESPERA_MAXIMA_MS * 1_000_000L;
+        try {
+            while (pendientes.size() >= capacidad && !detenido) {
+                long restante = (limite - System.nanoTime()) / 1_000_000L;
+                if (restante <= 0) {
+                    return false;
+                }
+                wait(restante);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !detenido;
+    }
+
+    /**
+     * Bucle del hilo escritor: toma todas las partidas pendientes y las escribe.
+     * Al detenerse, termina de escribir las que quedan antes de salir.
+     */
+    private void escribirPendientes() {
+        List<Pendiente> lote = new ArrayList<>();
+        while (true) {
+            synchronized (this) {
+                while (pendientes.isEmpty() && !detenido) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        detenido = true;
+                    }
+                }
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                lote.addAll(pendientes.values());
+                pendientes.clear();
+                lotes++;
+                notifyAll();
+            }
+            long ahora = System.nanoTime();
+            for (Pendiente pendiente : lote) {
+                synchronized (this) {
+                    nanosEnCola += ahora - pendiente.encolada;
+                }
+                escribir(pendiente.clave, pendiente.escritura, pendiente.alTerminar);
+            }
+            lote.clear();
+        }
+    }
+
+    /**
+     * Ejecuta la escritura preparada de una partida y, si todo va bien, sus acciones.
+     *
+     * @param clave Clave de la partida, para los mensajes de error
+     * @param escritura Escritura preparada por el destino
+     * @param alTerminar Acciones a ejecutar tras escribirla
+     */
+    private void escribir(String clave, Runnable escritura, List<Runnable> alTerminar) {
+        long inicio = System.nanoTime();
+        boolean escrita = false;
+        try {
+            escritura.run();
+            escrita = true;
+        } catch (RuntimeException e) {
+            System.err.println("Error al guardar partida " + clave + ": " + e.getMessage());
+        }
+        long duracion = System.nanoTime() - inicio;
+        synchronized (this) {
+            if (escrita) {
+                escritas++;
+            } else {
+                fallidas++;
+            }
+            nanosEscritura += duracion;
+            nanosEscrituraMaximo = Math.max(nanosEscrituraMaximo, duracion);
+        }
+        if (!escrita) {
+            return;
+        }
+        for (Runnable accion : alTerminar) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error tras guardar partida " + clave + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Detiene el escritor después de escribir todas las partidas pendientes.
+     * Las peticiones posteriores se escriben en el hilo que las hace.
+     */
+    public void detener() {
+        synchronized (this) {
+            detenido = true;
+            notifyAll();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene cuántas partidas esperan en la cola a ser escritas.
+     *
+     * @return Número de partidas pendientes de escribir
+     */
+    public synchronized int getProfundidad() {
+        return pendientes.size();
+    }
+
+    /**
+     * Obtiene un resumen de la cola y de las escrituras.
+     *
+     * @return String con la profundidad, las peticiones fundidas y esperadas y la latencia de escritura
+     */
+    public synchronized String getResumen() {
+        long total = escritas + fallidas;
+        double msEscritura = total == 0 ? 0.0 : nanosEscritura / 1_000_000.0 / total;
+        double msMaximo = nanosEscrituraMaximo / 1_000_000.0;
+        long desdeCola = total - sincronas;
+        double msCola = desdeCola <= 0 ? 0.0 : nanosEnCola / 1_000_000.0 / desdeCola;
+        return String.format("Pendientes: %d/%d (máx %d) | Peticiones: %d | Fundidas: %d | Esperas: %d"
+                + " | Síncronas: %d | Lotes: %d | Escritas: %d | Fallidas: %d"
+                + " | Escritura media: %.2f ms (máx %.2f ms) | En cola media: %.2f ms",
+            pendientes.size(), capacidad, profundidadMaxima, solicitudes, fundidas, esperas,
+            sincronas, lotes, escritas, fallidas, msEscritura, msMaximo, msCola);
+    }
+}
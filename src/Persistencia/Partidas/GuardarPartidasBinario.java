@@ -0,0 +1,130 @@
+package Persistencia.Partidas;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import Partida.Partida;
+import Persistencia.Interfaces.GuardarPartidas;
+
+/**
+ * Implementación para guardar partidas en el formato binario de CodecPartida.
+ * Cada partida se guarda en un archivo individual de la carpeta de partidas,
+ * identificado por los nombres de los jugadores como en GuardarPartidasJson,
+ * pero con la extensión ".partida" y una fracción del tamaño del JSON.
+ * Los archivos se sustituyen de forma atómica, por lo que una caída nunca deja
+ * una partida a medio escribir. Cada partida nueva se añade al índice de
+ * partidas por usuario antes de escribir su archivo, y cada guardado invalida
+ * la entrada de la partida en la caché de partidas. Al preparar un guardado,
+ * la partida se codifica en el hilo que llama y solo se escriben sus bytes.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class GuardarPartidasBinario implements GuardarPartidas {
+
+    /** Nombre de la carpeta donde se almacenan las partidas */
+    private static final String CARPETA_PARTIDAS = "partidas";
+    /** Extensión de archivo para las partidas guardadas en binario */
+    public static final String EXTENSION = ".partida";
+
+    /** Ruta de la carpeta donde se almacenan las partidas */
+    private final Path carpetaPartidas;
+
+    /**
+     * Constructor que inicializa el guardador y crea la carpeta de partidas.
+     */
+    public GuardarPartidasBinario() {
+        this.carpetaPartidas = Paths.get(CARPETA_PARTIDAS);
+        crearCarpetaSiNoExiste();
+    }
+
+    /**
+     * Guarda un objeto en formato binario.
+     *
+     * @param datos Objeto a guardar, debe ser una instancia de Partida
+     * @throws IllegalArgumentException Si los datos son null o no son una Partida
+     */
+    @Override
+    public void guardar(Object datos) {
+        if (datos == null) {
+            throw new IllegalArgumentException("Los datos no pueden estar vacíos");
+        }
+
+        if (datos instanceof Partida) {
+            guardarPartida((Partida) datos);
+        } else {
+            throw new IllegalArgumentException("Solo se pueden guardar objetos de tipo Partida");
+        }
+    }
+
+    /**
+     * Guarda una partida en su archivo binario, sustituyendo el anterior de forma atómica.
+     *
+     * @param partida Partida a guardar
+     * @throws IllegalArgumentException Si la partida es null
+     * @throws RuntimeException Si ocurre un error durante el guardado
+     */
+    public void guardarPartida(Partida partida) {
+        if (partida == null) {
+            throw new IllegalArgumentException("La partida no puede ser null");
+        }
+        prepararPartida(partida).run();
+    }
+
+    /**
+     * Codifica la partida en el hilo que llama y devuelve la escritura de sus bytes.
+     *
+     * @param datos Objeto a guardar, debe ser una instancia de Partida
+     * @return Escritura que no vuelve a leer la partida
+     * @throws IllegalArgumentException Si los datos son null o no son una Partida
+     */
+    @Override
+    public Runnable preparar(Object datos) {
+        if (!(datos instanceof Partida)) {
+            throw new IllegalArgumentException("Solo se pueden guardar objetos de tipo Partida");
+        }
+        return prepararPartida((Partida) datos);
+    }
+
+    /**
+     * Toma la clave, los jugadores y los bytes de una partida y devuelve la
+     * escritura que la añade al índice, sustituye su archivo e invalida su caché.
+     *
+     * @param partida Partida a guardar
+     * @return Escritura de la partida
+     */
+    private Runnable prepararPartida(Partida partida) {
+        String clave = partida.toString();
+        String principal = partida.getUsuarioPrincipal().getName();
+        String rival = partida.getUsuarioRival() != null ? partida.getUsuarioRival().getName() : null;
+        byte[] contenido = CodecPartida.codificar(partida);
+        return () -> {
+            String nombreArchivo = clave + EXTENSION;
+            try {
+                IndicePartidasUsuario.getInstancia().registrar(clave, principal, rival);
+                EscrituraAtomica.escribir(carpetaPartidas.resolve(nombreArchivo), contenido);
+                CachePartidas.getInstancia().invalidar(nombreArchivo);
+                System.out.println("Partida guardada: " + nombreArchivo);
+            } catch (Exception e) {
+                throw new RuntimeException("Error al guardar partida: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * Crea la carpeta de partidas si no existe en el sistema de archivos.
+     *
+     * @throws RuntimeException Si no se puede crear la carpeta
+     */
+    private void crearCarpetaSiNoExiste() {
+        try {
+            if (!Files.exists(carpetaPartidas)) {
+                Files.createDirectories(carpetaPartidas);
+                System.out.println("Carpeta de partidas creada: " + CARPETA_PARTIDAS);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error al crear carpeta de partidas: " + e.getMessage(), e);
+        }
+    }
+}
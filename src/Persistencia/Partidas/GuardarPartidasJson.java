@@ -6,22 +6,31 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 
 import Partida.Partida;
 import Persistencia.Interfaces.GuardarPartidas;
 
 /**
  * Implementación concreta para guardar partidas en formato JSON.
- * Utiliza la librería Gson para serializar objetos Partida a archivos JSON
- * organizados en una estructura de carpetas. Cada partida se guarda en un
+ * Utiliza los adaptadores de AdaptadorPartida para escribir objetos Partida a
+ * archivos JSON organizados en una estructura de carpetas, sin reflexión. Cada partida se guarda en un
  * archivo individual identificado por los nombres de los jugadores.
  * 
  * Características:
  * - Guarda cada partida en un archivo JSON separado
  * - Crea automáticamente la carpeta de partidas si no existe
  * - Utiliza codificación UTF-8 para soporte internacional
- * - Formatea el JSON con indentación para legibilidad
+ * - Escribe cada archivo de forma atómica, sin dejar JSON truncado tras una caída
+ * - Añade cada partida nueva al índice de partidas por usuario
+ * - Invalida la entrada de la partida en la caché de partidas al guardarla
+ * - Escribe el JSON compacto, sin sangrías
+ * - El guardado síncrono escribe el JSON directamente sobre el canal del archivo,
+ *   sin construirlo en memoria
+ * - Al preparar un guardado, codifica el JSON en memoria en el hilo que llama y
+ *   solo escribe sus bytes: el documento completo vive en memoria hasta que se
+ *   escribe, que es el precio de no leer la partida desde el hilo de escritura
  * 
  * @author Sistema Hundir la Flota
  * @version 1.0
@@ -35,17 +44,20 @@ public class GuardarPartidasJson implements GuardarPartidas {
     /** Codificación de caracteres utilizada para los archivos */
     private static final String ENCODING = "UTF-8";
     
-    /** Instancia de Gson para serialización JSON */
+    /** Instancia de Gson con los adaptadores de partidas */
     private final Gson gson;
+    /** Adaptador que escribe las partidas */
+    private final TypeAdapter<Partida> adaptador;
     /** Ruta de la carpeta donde se almacenan las partidas */
     private final Path carpetaPartidas;
     
     /**
      * Constructor que inicializa el guardador de partidas JSON.
-     * Configura Gson con formato pretty-printing y crea la carpeta de partidas.
+     * Configura Gson con los adaptadores de partidas y crea la carpeta de partidas.
      */
     public GuardarPartidasJson() {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = AdaptadorPartida.crearGson();
+        this.adaptador = gson.getAdapter(Partida.class);
         this.carpetaPartidas = Paths.get(CARPETA_PARTIDAS);
         crearCarpetaSiNoExiste();
     }
@@ -88,8 +100,9 @@ public class GuardarPartidasJson implements GuardarPartidas {
             String nombreArchivo = generarNombreArchivo(partida);
             Path archivoPartida = carpetaPartidas.resolve(nombreArchivo);
             
-            String json = gson.toJson(partida);
-            escribirArchivo(archivoPartida, json);
+            IndicePartidasUsuario.getInstancia().registrar(partida);
+            escribirArchivo(archivoPartida, partida);
+            CachePartidas.getInstancia().invalidar(nombreArchivo);
             
             System.out.println("Partida guardada: " + nombreArchivo);
             
@@ -98,6 +111,45 @@ public class GuardarPartidasJson implements GuardarPartidas {
         }
     }
     
+    /**
+     * Codifica la partida en JSON en el hilo que llama y devuelve la escritura
+     * de esos bytes, que no vuelve a leer la partida. A diferencia de
+     * guardarPartida, el documento se construye entero en memoria.
+     *
+     * @param datos Objeto a guardar, debe ser una instancia de Partida
+     * @return Escritura pendiente de la partida
+     * @throws IllegalArgumentException Si los datos son null o no son una Partida
+     * @throws RuntimeException Si la partida no se puede codificar
+     */
+    @Override
+    public Runnable preparar(Object datos) {
+        if (!(datos instanceof Partida)) {
+            throw new IllegalArgumentException("Solo se pueden guardar objetos de tipo Partida");
+        }
+        Partida partida = (Partida) datos;
+        String clave = partida.toString();
+        String principal = partida.getUsuarioPrincipal().getName();
+        String rival = partida.getUsuarioRival() != null ? partida.getUsuarioRival().getName() : null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try {
+            escribirJson(bytes, partida);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al codificar partida: " + e.getMessage(), e);
+        }
+        byte[] contenido = bytes.toByteArray();
+        return () -> {
+            String nombreArchivo = clave + EXTENSION;
+            try {
+                IndicePartidasUsuario.getInstancia().registrar(clave, principal, rival);
+                EscrituraAtomica.escribir(carpetaPartidas.resolve(nombreArchivo), contenido);
+                CachePartidas.getInstancia().invalidar(nombreArchivo);
+                System.out.println("Partida guardada: " + nombreArchivo);
+            } catch (Exception e) {
+                throw new RuntimeException("Error al guardar partida: " + e.getMessage(), e);
+            }
+        };
+    }
+    
     /**
      * Actualiza una partida existente sobrescribiendo su archivo.
      * Útil para guardar el progreso de una partida en curso.
@@ -153,28 +205,29 @@ public class GuardarPartidasJson implements GuardarPartidas {
     }
     
     /**
-     * Lee el contenido completo de un archivo.
-     * Método utilitario para operaciones de E/S de archivos.
+     * Escribe una partida a un archivo específico.
+     * El JSON se escribe directamente sobre el canal de un temporal forzado a
+     * disco, que sustituye al archivo existente de forma atómica.
      * 
-     * @param archivo Ruta del archivo a leer
-     * @return Contenido del archivo como String
-     * @throws IOException Si ocurre un error de lectura
+     * @param archivo Ruta del archivo donde escribir
+     * @param partida Partida a escribir en el archivo
+     * @throws IOException Si ocurre un error de escritura
      */
-    private String leerArchivo(Path archivo) throws IOException {
-        return new String(Files.readAllBytes(archivo), ENCODING);
+    private void escribirArchivo(Path archivo, Partida partida) throws IOException {
+        EscrituraAtomica.escribir(archivo, salida -> escribirJson(salida, partida));
     }
     
     /**
-     * Escribe contenido a un archivo específico.
-     * Sobrescribe el archivo existente o crea uno nuevo si no existe.
+     * Escribe el JSON de una partida en un flujo de salida.
      * 
-     * @param archivo Ruta del archivo donde escribir
-     * @param contenido Contenido a escribir en el archivo
+     * @param salida Flujo donde escribir el JSON
+     * @param partida Partida a escribir
      * @throws IOException Si ocurre un error de escritura
      */
-    private void escribirArchivo(Path archivo, String contenido) throws IOException {
-        try (FileWriter writer = new FileWriter(archivo.toFile(), false)) {
-            writer.write(contenido);
-        }
+    private void escribirJson(OutputStream salida, Partida partida) throws IOException {
+        JsonWriter escritor = gson.newJsonWriter(
+            new BufferedWriter(new OutputStreamWriter(salida, ENCODING)));
+        adaptador.write(escritor, partida);
+        escritor.flush();
     }
 }
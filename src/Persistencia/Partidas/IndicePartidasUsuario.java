@@ -0,0 +1,354 @@
+package Persistencia.Partidas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.stream.JsonReader;
+
+import Partida.Partida;
+
+/**
+ * Índice en disco de las partidas guardadas de cada usuario.
+ * Para cada partida guarda su clave (el nombre del archivo sin extensión) y
+ * los nombres de sus dos jugadores, de modo que buscar las partidas de un
+ * usuario cuesta lo que sus propias partidas y no lo que todas las guardadas.
+ *
+ * El archivo es una secuencia de registros [clave][principal][rival] en UTF
+ * modificado, a la que se añade uno por cada partida nueva antes de escribir
+ * su archivo: el índice puede nombrar una partida cuyo archivo aún no existe,
+ * pero nunca le falta una partida guardada. Si el archivo no existe, se
+ * reconstruye la primera vez que se usa leyendo solo los jugadores de cada
+ * partida de la carpeta.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class IndicePartidasUsuario {
+
+    /** Nombre del archivo del índice dentro de la carpeta de partidas */
+    public static final String ARCHIVO = "usuarios.indice";
+
+    /** Índice de la carpeta de partidas por defecto */
+    private static IndicePartidasUsuario instancia;
+
+    /** Carpeta de las partidas */
+    private final Path carpeta;
+    /** Archivo del índice */
+    private final Path archivo;
+    /** Claves de partida de cada usuario, en orden de guardado */
+    private final Map<String, Set<String>> partidasPorUsuario = new HashMap<>();
+    /** Jugadores de cada partida indexada */
+    private final Map<String, String[]> jugadoresPorPartida = new HashMap<>();
+    /** true cuando el índice está en memoria */
+    private boolean cargado;
+
+    /**
+     * Obtiene el índice de la carpeta de partidas por defecto.
+     *
+     * @return Índice compartido por los lectores y guardadores de partidas
+     */
+    public static synchronized IndicePartidasUsuario getInstancia() {
+        if (instancia == null) {
+            instancia = new IndicePartidasUsuario(Paths.get("partidas"));
+        }
+        return instancia;
+    }
+
+    /**
+     * Crea el índice de una carpeta de partidas. No lee nada hasta que se usa.
+     *
+     * @param carpeta Carpeta de las partidas
+     */
+    public IndicePartidasUsuario(Path carpeta) {
+        this.carpeta = carpeta;
+        this.archivo = carpeta.resolve(ARCHIVO);
+    }
+
+    /**
+     * Añade una partida al índice si aún no estaba.
+     * Debe llamarse antes de escribir el archivo de la partida.
+     *
+     * @param partida Partida que se va a guardar
+     * @throws RuntimeException Si no se puede escribir el índice
+     */
+    public void registrar(Partida partida) {
+        registrar(partida.toString(), partida.getUsuarioPrincipal().getName(),
+            partida.getUsuarioRival() != null ? partida.getUsuarioRival().getName() : null);
+    }
+
+    /**
+     * Añade una partida al índice a partir de su clave y sus jugadores, si aún no estaba.
+     * Debe llamarse antes de escribir el archivo de la partida.
+     *
+     * @param clave Clave de la partida
+     * @param principal Nombre del usuario principal
+     * @param rival Nombre del rival, o null
+     * @throws RuntimeException Si no se puede escribir el índice
+     */
+    public synchronized void registrar(String clave, String principal, String rival) {
+        cargarSiFalta();
+        if (jugadoresPorPartida.containsKey(clave)) {
+            return;
+        }
+        try {
+            añadirRegistro(clave, principal, rival);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al actualizar el índice de partidas: " + e.getMessage(), e);
+        }
+        indexar(clave, principal, rival);
+    }
+
+    /**
+     * Obtiene las claves de las partidas de un usuario.
+     *
+     * @param usuario Nombre del usuario
+     * @return Claves de sus partidas en orden de guardado; vacía si no tiene
+     */
+    public synchronized List<String> getPartidas(String usuario) {
+        cargarSiFalta();
+        Set<String> claves = partidasPorUsuario.get(usuario);
+        return claves == null ? Collections.emptyList() : new ArrayList<>(claves);
+    }
+
+    /**
+     * Obtiene las claves de las partidas jugadas entre dos usuarios.
+     *
+     * @param usuario1 Nombre del primer usuario
+     * @param usuario2 Nombre del segundo usuario
+     * @return Claves de sus partidas en común en orden de guardado; vacía si no han jugado entre ellos
+     */
+    public synchronized List<String> getPartidasEntre(String usuario1, String usuario2) {
+        cargarSiFalta();
+        Set<String> claves = partidasPorUsuario.get(usuario1);
+        if (claves == null) {
+            return Collections.emptyList();
+        }
+        List<String> comunes = new ArrayList<>();
+        for (String clave : claves) {
+            String[] jugadores = jugadoresPorPartida.get(clave);
+            if (usuario2.equals(jugadores[0]) || usuario2.equals(jugadores[1])) {
+                comunes.add(clave);
+            }
+        }
+        return comunes;
+    }
+
+    /**
+     * Carga el índice la primera vez que se usa, o lo reconstruye si no existe.
+     */
+    private void cargarSiFalta() {
+        if (cargado) {
+            return;
+        }
+        try {
+            Files.createDirectories(carpeta);
+            if (Files.exists(archivo)) {
+                leer();
+            } else {
+                reconstruir();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al cargar el índice de partidas: " + e.getMessage(), e);
+        }
+        cargado = true;
+    }
+
+    /**
+     * Lee los registros del índice. Un registro incompleto al final, de una
+     * escritura interrumpida, se recorta del archivo.
+     *
+     * @throws IOException Si no se puede leer el archivo
+     */
+    private void leer() throws IOException {
+        byte[] contenido = Files.readAllBytes(archivo);
+        ByteArrayInputStream bytes = new ByteArrayInputStream(contenido);
+        DataInputStream entrada = new DataInputStream(bytes);
+        int valido = 0;
+        try {
+            while (bytes.available() > 0) {
+                String clave = entrada.readUTF();
+                String principal = entrada.readUTF();
+                String rival = entrada.readUTF();
+                indexar(clave, principal, rival.isEmpty() ? null : rival);
+                valido = contenido.length - bytes.available();
+            }
+        } catch (IOException e) {
+            System.err.println("Registro incompleto descartado en " + archivo);
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                canal.truncate(valido);
+                canal.force(false);
+            }
+        }
+    }
+
+    /**
+     * Reconstruye el índice leyendo en paralelo los jugadores de todas las
+     * partidas guardadas y lo escribe entero.
+     *
+     * @throws IOException Si no se puede recorrer la carpeta o escribir el índice
+     */
+    private void reconstruir() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        try (LecturaParalela<String[]> partidas = new LecturaParalela<>(carpeta, "*", IndicePartidasUsuario::leerPartida)) {
+            while (partidas.hasNext()) {
+                String[] partida = partidas.next();
+                if (partida[1] == null || jugadoresPorPartida.containsKey(partida[0])) {
+                    continue;
+                }
+                escribirRegistro(salida, partida[0], partida[1], partida[2]);
+                indexar(partida[0], partida[1], partida[2]);
+            }
+        }
+        salida.flush();
+        EscrituraAtomica.escribir(archivo, bytes.toByteArray());
+        System.out.println("Índice de partidas reconstruido: " + jugadoresPorPartida.size() + " partidas");
+    }
+
+    /**
+     * Lee la clave y los jugadores de un archivo de partida, en cualquiera de
+     * los dos formatos.
+     *
+     * @param archivoPartida Archivo de la carpeta de partidas
+     * @return Clave, usuario principal y rival; o null si el archivo no es una partida
+     */
+    private static String[] leerPartida(Path archivoPartida) {
+        String nombre = archivoPartida.getFileName().toString();
+        try {
+            if (nombre.endsWith(GuardarPartidasBinario.EXTENSION)) {
+                String[] jugadores = CodecPartida.leerJugadores(Files.readAllBytes(archivoPartida));
+                return new String[] {
+                    nombre.substring(0, nombre.length() - GuardarPartidasBinario.EXTENSION.length()),
+                    jugadores[0], jugadores[1]
+                };
+            }
+            if (nombre.endsWith(".json")) {
+                String[] jugadores = leerJugadoresJson(archivoPartida);
+                return new String[] { nombre.substring(0, nombre.length() - ".json".length()), jugadores[0], jugadores[1] };
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Partida no indexada " + nombre + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Lee los nombres de los jugadores de una partida JSON sin leer sus tableros.
+     * Los jugadores van antes que los tableros, así que la lectura se detiene
+     * en cuanto aparecen ambos.
+     *
+     * @param archivoPartida Archivo JSON de la partida
+     * @return Nombre del usuario principal y del rival
+     * @throws IOException Si el archivo no es una partida
+     */
+    private static String[] leerJugadoresJson(Path archivoPartida) throws IOException {
+        String[] jugadores = new String[2];
+        try (FileChannel canal = FileChannel.open(archivoPartida);
+             JsonReader lector = new JsonReader(Channels.newReader(canal, "UTF-8"))) {
+            lector.beginObject();
+            while (lector.hasNext() && (jugadores[0] == null || jugadores[1] == null)) {
+                String campo = lector.nextName();
+                if ("usuarioPrincipal".equals(campo)) {
+                    jugadores[0] = leerNombre(lector);
+                } else if ("usuarioRival".equals(campo)) {
+                    jugadores[1] = leerNombre(lector);
+                } else {
+                    lector.skipValue();
+                }
+            }
+        }
+        return jugadores;
+    }
+
+    /**
+     * Lee el nombre de un usuario JSON.
+     *
+     * @param lector Lector situado en el usuario
+     * @return Nombre del usuario, o null si no tiene
+     * @throws IOException Si el JSON no es un usuario
+     */
+    private static String leerNombre(JsonReader lector) throws IOException {
+        String nombre = null;
+        lector.beginObject();
+        while (lector.hasNext()) {
+            if ("name".equals(lector.nextName())) {
+                nombre = lector.nextString();
+            } else {
+                lector.skipValue();
+            }
+        }
+        lector.endObject();
+        return nombre;
+    }
+
+    /**
+     * Añade un registro al final del archivo del índice y lo fuerza a disco.
+     *
+     * @param clave Clave de la partida
+     * @param principal Nombre del usuario principal
+     * @param rival Nombre del rival, o null
+     * @throws IOException Si no se puede escribir
+     */
+    private void añadirRegistro(String clave, String principal, String rival) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream salida = new DataOutputStream(bytes);
+        escribirRegistro(salida, clave, principal, rival);
+        salida.flush();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer registro = ByteBuffer.wrap(bytes.toByteArray());
+            while (registro.hasRemaining()) {
+                canal.write(registro);
+            }
+            canal.force(false);
+        }
+    }
+
+    /**
+     * Escribe un registro del índice.
+     *
+     * @param salida Flujo de salida
+     * @param clave Clave de la partida
+     * @param principal Nombre del usuario principal
+     * @param rival Nombre del rival, o null
+     * @throws IOException Si no se puede escribir
+     */
+    private static void escribirRegistro(DataOutputStream salida, String clave, String principal, String rival)
+            throws IOException {
+        salida.writeUTF(clave);
+        salida.writeUTF(principal);
+        salida.writeUTF(rival != null ? rival : "");
+    }
+
+    /**
+     * Añade una partida a los mapas en memoria.
+     *
+     * @param clave Clave de la partida
+     * @param principal Nombre del usuario principal
+     * @param rival Nombre del rival, o null
+     */
+    private void indexar(String clave, String principal, String rival) {
+        jugadoresPorPartida.put(clave, new String[] { principal, rival });
+        partidasPorUsuario.computeIfAbsent(principal, usuario -> new LinkedHashSet<>()).add(clave);
+        if (rival != null) {
+            partidasPorUsuario.computeIfAbsent(rival, usuario -> new LinkedHashSet<>()).add(clave);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lectura en paralelo de los archivos de una carpeta, entregados según terminan.
+ * Los archivos se recorren sin listarlos antes y cada uno se lee en un pool de
+ * hilos acotado. Nunca hay más de dos lecturas por hilo en curso o esperando a
+ * ser recogidas, de modo que la memoria no depende del número de archivos.
+ *
+ * Los resultados llegan en el orden en que terminan, no en el de la carpeta.
+ * Los archivos cuyo lector devuelve null se omiten; los que fallan se
+ * registran y se omiten. Debe cerrarse para liberar la carpeta y el pool.
+ *
+ * @param <T> Tipo de lo que se lee de cada archivo
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class LecturaParalela<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Lee un archivo en uno de los hilos del pool.
+     *
+     * @param <T> Tipo de lo que se lee
+     */
+    @FunctionalInterface
+    public interface Lector<T> {
+        /**
+         * Lee un archivo de la carpeta.
+         *
+         * @param archivo Archivo a leer
+         * @return Lo leído, o null para omitir el archivo
+         * @throws IOException Si no se puede leer
+         */
+        T leer(Path archivo) throws IOException;
+    }
+
+    /** Carpeta abierta, o null si no existe */
+    private final DirectoryStream<Path> carpeta;
+    /** Archivos pendientes de enviar al pool */
+    private final Iterator<Path> pendientes;
+    /** Lector de cada archivo */
+    private final Lector<T> lector;
+    /** Hilos que leen los archivos */
+    private final ExecutorService pool;
+    /** Lecturas terminadas, en orden de terminación */
+    private final ExecutorCompletionService<T> terminadas;
+    /** Número máximo de lecturas en curso o sin recoger */
+    private final int enVueloMaximo;
+    /** Lecturas en curso o sin recoger */
+    private int enVuelo;
+    /** Siguiente resultado ya recogido */
+    private T siguiente;
+    /** Archivos que no se han podido leer */
+    private int fallidos;
+
+    /**
+     * Abre la lectura con un hilo por procesador.
+     *
+     * @param carpeta Carpeta a recorrer
+     * @param patron Patrón glob de los archivos a leer, como "*.json"
+     * @param lector Lector de cada archivo
+     * @throws IOException Si la carpeta existe pero no se puede abrir
+     */
+    public LecturaParalela(Path carpeta, String patron, Lector<T> lector) throws IOException {
+        this(carpeta, patron, lector, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Abre la lectura.
+     *
+     * @param carpeta Carpeta a recorrer
+     * @param patron Patrón glob de los archivos a leer, como "*.json"
+     * @param lector Lector de cada archivo
+     * @param hilos Número de hilos que leen archivos
+     * @throws IOException Si la carpeta existe pero no se puede abrir
+     */
+    public LecturaParalela(Path carpeta, String patron, Lector<T> lector, int hilos) throws IOException {
+        int numHilos = Math.max(1, hilos);
+        this.carpeta = Files.isDirectory(carpeta) ? Files.newDirectoryStream(carpeta, patron) : null;
+        this.pendientes = this.carpeta != null ? this.carpeta.iterator() : Collections.<Path>emptyIterator();
+        this.lector = lector;
+        this.enVueloMaximo = numHilos * 2;
+        this.pool = Executors.newFixedThreadPool(numHilos, tarea -> {
+            Thread hilo = new Thread(tarea, "Partidas-Lectura");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.terminadas = new ExecutorCompletionService<>(pool);
+        enviar();
+    }
+
+    /**
+     * Envía archivos al pool hasta llenar el número de lecturas en vuelo.
+     */
+    private void enviar() {
+        try {
+            while (enVuelo < enVueloMaximo && pendientes.hasNext()) {
+                Path archivo = pendientes.next();
+                terminadas.submit(() -> lector.leer(archivo));
+                enVuelo++;
+            }
+        } catch (DirectoryIteratorException e) {
+            fallidos++;
+            System.err.println("Error recorriendo la carpeta de partidas: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Indica si queda algún resultado, esperando a la siguiente lectura que termine.
+     *
+     * @return true si hay un resultado disponible
+     */
+    @Override
+    public boolean hasNext() {
+        while (siguiente == null && enVuelo > 0) {
+            Future<T> lectura;
+            try {
+                lectura = terminadas.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                return false;
+            }
+            enVuelo--;
+            enviar();
+            try {
+                siguiente = lectura.get();
+            } catch (ExecutionException e) {
+                fallidos++;
+                System.err.println("Error al leer partida: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                return false;
+            }
+        }
+        return siguiente != null;
+    }
+
+    /**
+     * Devuelve el siguiente resultado que ha terminado de leerse.
+     *
+     * @return Siguiente resultado
+     * @throws NoSuchElementException Si no quedan resultados
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T resultado = siguiente;
+        siguiente = null;
+        return resultado;
+    }
+
+    /**
+     * Obtiene cuántos archivos han fallado al leerse.
+     *
+     * @return Número de archivos que no se han podido leer hasta ahora
+     */
+    public int getFallidos() {
+        return fallidos;
+    }
+
+    /**
+     * Cierra la carpeta y detiene el pool, descartando las lecturas pendientes.
+     */
+    @Override
+    public void close() {
+        enVuelo = 0;
+        pool.shutdownNow();
+        if (carpeta != null) {
+            try {
+                carpeta.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando la carpeta de partidas: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import Cliente.Usuario;
+import Partida.Partida;
+import Persistencia.Interfaces.LeerPartidas;
+
+/**
+ * Implementación para leer partidas guardadas en el formato binario de CodecPartida.
+ * Las partidas que solo existen en el formato JSON anterior se siguen leyendo
+ * con LeerPartidasJson; si una partida existe en ambos formatos, prevalece el binario.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class LeerPartidasBinario implements LeerPartidas {
+
+    /** Nombre de la carpeta donde se almacenan las partidas */
+    private static final String CARPETA_PARTIDAS = "partidas";
+
+    /** Ruta de la carpeta donde se almacenan las partidas */
+    private final Path carpetaPartidas;
+    /** Lector de las partidas guardadas en JSON */
+    private final LeerPartidasJson lectorJson;
+    /** Caché de las partidas leídas recientemente */
+    private final CachePartidas cache;
+
+    /**
+     * Constructor que inicializa el lector de partidas binarias.
+     */
+    public LeerPartidasBinario() {
+        this.carpetaPartidas = Paths.get(CARPETA_PARTIDAS);
+        this.lectorJson = new LeerPartidasJson();
+        this.cache = CachePartidas.getInstancia();
+    }
+
+    /**
+     * Lee todas las partidas disponibles en ambos formatos.
+     * Para recorrer el archivo completo sin tenerlo entero en memoria es
+     * preferible recorrerPartidas.
+     *
+     * @return Lista de todas las partidas encontradas
+     */
+    @Override
+    public List<Partida> leer() {
+        List<Partida> partidas = new ArrayList<>();
+        recorrerPartidas(partidas::add);
+        return partidas;
+    }
+
+    /**
+     * Entrega todas las partidas a un consumidor según se van leyendo.
+     * Primero se leen en paralelo las partidas binarias y después las JSON que
+     * no tienen versión binaria. Las partidas llegan en el orden en que terminan
+     * de leerse y esta lectura masiva no pasa por la caché de partidas.
+     *
+     * @param consumidor Consumidor de las partidas, llamado desde el hilo que recorre
+     */
+    public void recorrerPartidas(Consumer<Partida> consumidor) {
+        Set<String> binarias = ConcurrentHashMap.newKeySet();
+        String extension = GuardarPartidasBinario.EXTENSION;
+        try (LecturaParalela<Partida> partidas = new LecturaParalela<>(carpetaPartidas, "*" + extension, archivo -> {
+            String nombre = archivo.getFileName().toString();
+            binarias.add(nombre.substring(0, nombre.length() - extension.length()));
+            return CodecPartida.decodificar(Files.readAllBytes(archivo));
+        })) {
+            partidas.forEachRemaining(consumidor);
+        } catch (IOException e) {
+            System.err.println("Error al leer las partidas binarias: " + e.getMessage());
+        }
+        lectorJson.recorrerPartidas(consumidor, id -> !binarias.contains(id));
+    }
+
+    /**
+     * Carga una partida por su ID, en binario si existe y si no en JSON.
+     * Las partidas leídas recientemente se sirven desde la caché de partidas
+     * y deben tratarse como de solo lectura.
+     *
+     * @param idPartida Identificador de la partida (nombre del archivo sin extensión)
+     * @return Partida cargada o null si no existe o está dañada
+     * @throws IllegalArgumentException Si el ID es null o vacío
+     */
+    public Partida cargarPartida(String idPartida) {
+        if (idPartida == null || idPartida.trim().isEmpty()) {
+            throw new IllegalArgumentException("El ID de partida no puede estar vacío.");
+        }
+
+        String nombreArchivo = idPartida + GuardarPartidasBinario.EXTENSION;
+        Path archivoPartida = carpetaPartidas.resolve(nombreArchivo);
+        if (!Files.exists(archivoPartida)) {
+            return lectorJson.cargarPartida(idPartida);
+        }
+        Partida enCache = cache.obtener(nombreArchivo);
+        if (enCache != null) {
+            return enCache;
+        }
+        try {
+            long version = cache.getVersion();
+            byte[] datos = Files.readAllBytes(archivoPartida);
+            Partida partida = CodecPartida.decodificar(datos);
+            cache.poner(nombreArchivo, partida, datos.length, version);
+            return partida;
+        } catch (Exception e) {
+            System.err.println("Error al leer partida " + idPartida + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Busca todas las partidas en las que participa un usuario.
+     * Solo se leen las partidas que el índice de partidas por usuario le asigna.
+     *
+     * @param usuario Usuario del cual buscar partidas
+     * @return Lista de partidas donde participa el usuario
+     * @throws IllegalArgumentException Si el usuario es null
+     */
+    public List<Partida> buscarPartidasPorUsuario(Usuario usuario) {
+        if (usuario == null) {
+            throw new IllegalArgumentException("El usuario ha de existir.");
+        }
+
+        List<Partida> partidasDelUsuario = new ArrayList<>();
+        for (String id : IndicePartidasUsuario.getInstancia().getPartidas(usuario.getName())) {
+            Partida partida = cargarPartida(id);
+            if (partida != null) {
+                partidasDelUsuario.add(partida);
+            }
+        }
+        return partidasDelUsuario;
+    }
+
+    /**
+     * Verifica si una partida existe en alguno de los dos formatos.
+     *
+     * @param partida Partida a verificar
+     * @return true si la partida existe
+     */
+    public boolean existePartida(Partida partida) {
+        if (partida == null || partida.toString().isEmpty()) {
+            return false;
+        }
+        return Files.exists(carpetaPartidas.resolve(partida.toString() + GuardarPartidasBinario.EXTENSION))
+            || lectorJson.existePartida(partida);
+    }
+
+    /**
+     * Lista los IDs de las partidas guardadas en ambos formatos, sin repetidos.
+     *
+     * @return Lista de IDs de partidas encontradas
+     */
+    public List<String> listarIdsPartidas() {
+        Set<String> ids = new LinkedHashSet<>();
+        if (Files.exists(carpetaPartidas)) {
+            try (Stream<Path> archivos = Files.list(carpetaPartidas)) {
+                archivos.map(path -> path.getFileName().toString())
+                    .filter(nombre -> nombre.endsWith(GuardarPartidasBinario.EXTENSION))
+                    .forEach(nombre -> ids.add(nombre.substring(0, nombre.length() - GuardarPartidasBinario.EXTENSION.length())));
+            } catch (Exception e) {
+                System.err.println("Error al listar IDs de partidas: " + e.getMessage());
+            }
+        }
+        ids.addAll(lectorJson.listarIdsPartidas());
+        return new ArrayList<>(ids);
+    }
+}
@@ -1,28 +1,37 @@
 package Persistencia.Partidas;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 import Partida.Partida;
 import Persistencia.Interfaces.LeerPartidas;
 import Cliente.Usuario;
 
 /**
  * Implementación concreta para leer partidas desde archivos JSON.
- * Utiliza la librería Gson para deserializar archivos JSON a objetos Partida.
+ * Utiliza los adaptadores de AdaptadorPartida para leer archivos JSON a objetos
+ * Partida directamente desde el canal del archivo, sin reflexión.
  * Proporciona métodos para cargar partidas individuales, buscar por usuario
  * y obtener listados completos de partidas almacenadas.
  * 
  * Características:
  * - Lee partidas desde archivos JSON individuales
- * - Soporte para búsqueda por usuario específico
+ * - Recorrido de todas las partidas en paralelo, entregadas según se leen
+ * - Soporte para búsqueda por usuario específico mediante el índice de partidas por usuario
  * - Búsqueda de partidas entre dos usuarios
  * - Listado de IDs de partidas disponibles
+ * - Caché de las partidas leídas recientemente
  * - Manejo robusto de errores de E/S
  * 
  * @author Sistema Hundir la Flota
@@ -37,18 +46,27 @@ public class LeerPartidasJson implements LeerPartidas {
     /** Codificación de caracteres utilizada para los archivos */
     private static final String ENCODING = "UTF-8";
     
-    /** Instancia de Gson para deserialización JSON */
+    /** Instancia de Gson con los adaptadores de partidas */
     private final Gson gson;
+    /** Adaptador que lee las partidas */
+    private final TypeAdapter<Partida> adaptador;
+    /** Índice de las partidas de cada usuario */
+    private final IndicePartidasUsuario indice;
+    /** Caché de las partidas leídas recientemente */
+    private final CachePartidas cache;
     /** Ruta de la carpeta donde se almacenan las partidas */
     private final Path carpetaPartidas;
     
     /**
      * Constructor que inicializa el lector de partidas JSON.
-     * Configura Gson con formato pretty-printing y establece la ruta de partidas.
+     * Configura Gson con los adaptadores de partidas y establece la ruta de partidas.
      */
     public LeerPartidasJson() {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = AdaptadorPartida.crearGson();
+        this.adaptador = gson.getAdapter(Partida.class);
         this.carpetaPartidas = Paths.get(CARPETA_PARTIDAS);
+        this.indice = IndicePartidasUsuario.getInstancia();
+        this.cache = CachePartidas.getInstancia();
     }
     
     /**
@@ -64,37 +82,65 @@ public class LeerPartidasJson implements LeerPartidas {
     
     /**
      * Carga todas las partidas disponibles desde el sistema de archivos.
-     * Recorre todos los archivos JSON en la carpeta de partidas y los deserializa.
+     * Recorre todos los archivos JSON en la carpeta de partidas y los deserializa
+     * en paralelo. Para recorrer el archivo completo sin tenerlo entero en
+     * memoria es preferible recorrerPartidas.
      * 
      * @return Lista de partidas cargadas exitosamente
      */
     public List<Partida> cargarTodasLasPartidas() {
         List<Partida> partidas = new ArrayList<>();
-        
-        try {
-            if (!Files.exists(carpetaPartidas)) {
-                return partidas;
-            }
-            
-            List<String> idsPartidas = listarIdsPartidas();
-            
-            for (String id : idsPartidas) {
-                Partida partida = cargarPartida(id);
-                if (partida != null) {
-                    partidas.add(partida);
-                }
-            }
-            
-        } catch (Exception e) {
+        recorrerPartidas(partidas::add);
+        return partidas;
+    }
+    
+    /**
+     * Entrega todas las partidas JSON a un consumidor según se van leyendo.
+     * 
+     * @param consumidor Consumidor de las partidas, llamado desde el hilo que recorre
+     */
+    public void recorrerPartidas(Consumer<Partida> consumidor) {
+        recorrerPartidas(consumidor, id -> true);
+    }
+    
+    /**
+     * Entrega a un consumidor las partidas JSON cuyos IDs acepta un filtro.
+     * Los archivos se leen en paralelo en un pool acotado y las partidas llegan
+     * en el orden en que terminan de leerse; solo hay en memoria unas pocas a la vez.
+     * Esta lectura masiva no pasa por la caché de partidas.
+     * 
+     * @param consumidor Consumidor de las partidas, llamado desde el hilo que recorre
+     * @param filtro Filtro sobre el ID de cada partida, evaluado antes de leerla
+     */
+    public void recorrerPartidas(Consumer<Partida> consumidor, Predicate<String> filtro) {
+        try (LecturaParalela<Partida> partidas = abrirLectura(filtro)) {
+            partidas.forEachRemaining(consumidor);
+        } catch (IOException e) {
             System.err.println("Error al cargar todas las partidas: " + e.getMessage());
         }
-        
-        return partidas;
+    }
+    
+    /**
+     * Abre una lectura en paralelo de las partidas JSON cuyos IDs acepta un filtro.
+     * Quien la abre debe cerrarla.
+     * 
+     * @param filtro Filtro sobre el ID de cada partida, evaluado antes de leerla
+     * @return Iterador de las partidas según terminan de leerse
+     * @throws IOException Si no se puede abrir la carpeta de partidas
+     */
+    public LecturaParalela<Partida> abrirLectura(Predicate<String> filtro) throws IOException {
+        return new LecturaParalela<>(carpetaPartidas, "*" + EXTENSION, archivo -> {
+            String nombre = archivo.getFileName().toString();
+            return filtro.test(nombre.substring(0, nombre.length() - EXTENSION.length()))
+                ? leerPartida(archivo) : null;
+        });
     }
     
     /**
      * Carga una partida específica por su ID.
      * El ID corresponde al nombre del archivo sin la extensión.
+     * Las partidas leídas recientemente se sirven desde la caché de partidas
+     * y deben tratarse como de solo lectura.
      * 
      * @param idPartida Identificador único de la partida
      * @return Partida cargada o null si no existe o hay error
@@ -107,27 +153,47 @@ public class LeerPartidasJson implements LeerPartidas {
         
         try {
             String nombreArchivo = idPartida + EXTENSION;
+            Partida enCache = cache.obtener(nombreArchivo);
+            if (enCache != null) {
+                return enCache;
+            }
+            
+            long version = cache.getVersion();
             Path archivoPartida = carpetaPartidas.resolve(nombreArchivo);
             
             if (!Files.exists(archivoPartida)) {
                 return null;
             }
             
-            String contenido = leerArchivo(archivoPartida);
-            if (contenido.trim().isEmpty()) {
-                return null;
-            }
-            
-            return gson.fromJson(contenido, Partida.class);
+            long peso = Files.size(archivoPartida);
+            Partida partida = leerPartida(archivoPartida);
+            cache.poner(nombreArchivo, partida, peso, version);
+            return partida;
             
         } catch (Exception e) {
             return null;
         }
     }
     
+    /**
+     * Lee una partida directamente desde el canal de su archivo.
+     * 
+     * @param archivo Ruta del archivo de la partida
+     * @return Partida leída
+     * @throws IOException Si ocurre un error de lectura, el archivo está vacío o el JSON no es una partida
+     */
+    private Partida leerPartida(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo);
+             JsonReader lector = gson.newJsonReader(Channels.newReader(canal, ENCODING))) {
+            return adaptador.read(lector);
+        }
+    }
+    
     /**
      * Busca todas las partidas en las que participa un usuario específico.
      * Un usuario puede ser tanto el jugador principal como el rival.
+     * Solo se leen las partidas del usuario, que se obtienen del índice de
+     * partidas por usuario.
      * 
      * @param nombreUsuario Usuario del cual buscar partidas
      * @return Lista de partidas donde participa el usuario
@@ -139,11 +205,9 @@ public class LeerPartidasJson implements LeerPartidas {
         }
         
         List<Partida> partidasDelUsuario = new ArrayList<>();
-        List<Partida> todasLasPartidas = cargarTodasLasPartidas();
-        
-        for (Partida partida : todasLasPartidas) {
-            if (partida.getUsuarioPrincipal().equals(nombreUsuario) || 
-                partida.getUsuarioRival().equals(nombreUsuario)) {
+        for (String id : indice.getPartidas(nombreUsuario.getName())) {
+            Partida partida = cargarPartida(id);
+            if (partida != null) {
                 partidasDelUsuario.add(partida);
             }
         }
@@ -154,6 +218,7 @@ public class LeerPartidasJson implements LeerPartidas {
     /**
      * Busca una partida específica entre dos usuarios.
      * Útil para verificar si dos usuarios ya tienen una partida en curso.
+     * Consulta el índice de partidas por usuario y lee solo las partidas en común.
      * 
      * @param usuario1 Primer usuario de la partida
      * @param usuario2 Segundo usuario de la partida
@@ -165,14 +230,9 @@ public class LeerPartidasJson implements LeerPartidas {
             throw new IllegalArgumentException("Los usuarios han de existir.");
         }
         
-        List<Partida> todasLasPartidas = cargarTodasLasPartidas();
-        
-        for (Partida partida : todasLasPartidas) {
-            Usuario principal = partida.getUsuarioPrincipal();
-            Usuario rival = partida.getUsuarioRival();
-            
-            if ((principal.equals(usuario1) && rival.equals(usuario2)) ||
-                (principal.equals(usuario2) && rival.equals(usuario1))) {
+        for (String id : indice.getPartidasEntre(usuario1.getName(), usuario2.getName())) {
+            Partida partida = cargarPartida(id);
+            if (partida != null) {
                 return partida;
             }
         }
@@ -197,18 +257,6 @@ public class LeerPartidasJson implements LeerPartidas {
         return Files.exists(archivoPartida);
     }
     
-    /**
-     * Lee el contenido completo de un archivo.
-     * Método utilitario para operaciones de E/S de archivos.
-     * 
-     * @param archivo Ruta del archivo a leer
-     * @return Contenido del archivo como String
-     * @throws IOException Si ocurre un error de lectura
-     */
-    private String leerArchivo(Path archivo) throws IOException {
-        return new String(Files.readAllBytes(archivo), ENCODING);
-    }
-
     /**
      * Lista todos los IDs de partidas disponibles en el sistema.
      * Extrae los nombres de archivo sin la extensión JSON.
@@ -218,16 +266,16 @@ public class LeerPartidasJson implements LeerPartidas {
     public List<String> listarIdsPartidas() {
         List<String> ids = new ArrayList<>();
         
-        try {
-            if (Files.exists(carpetaPartidas)) {
-                Files.list(carpetaPartidas)
-                    .filter(path -> path.toString().endsWith(EXTENSION))
-                    .forEach(path -> {
-                        String nombre = path.getFileName().toString();
-                        String id = nombre.substring(0, nombre.length() - EXTENSION.length());
-                        ids.add(id);
-                    });
-            }
+        if (!Files.exists(carpetaPartidas)) {
+            return ids;
+        }
+        try (Stream<Path> archivos = Files.list(carpetaPartidas)) {
+            archivos.filter(path -> path.toString().endsWith(EXTENSION))
+                .forEach(path -> {
+                    String nombre = path.getFileName().toString();
+                    String id = nombre.substring(0, nombre.length() - EXTENSION.length());
+                    ids.add(id);
+                });
         } catch (Exception e) {
             System.err.println("Error al listar IDs de partidas: " + e.getMessage());
         }
@@ -0,0 +1,207 @@
+package Persistencia.Partidas;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Partida.FasePartida;
+import Partida.Partida;
+
+/**
+ * Fase de recuperación de partidas al arrancar el servidor.
+ * Recorre a la vez la carpeta de instantáneas, donde borra los temporales que
+ * dejó una escritura interrumpida, y los diarios de las partidas en curso, que
+ * se reproducen en paralelo para reconstruir cada partida.
+ *
+ * El resultado separa las partidas que siguen en curso de las que terminaron
+ * sin llegar a guardar su instantánea, para que el servidor las vuelva a poner
+ * en juego o las finalice.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class RecuperacionPartidas {
+
+    /**
+     * Partidas recuperadas y contadores de la recuperación.
+     */
+    public static final class Resultado {
+        /** Partidas en curso por ID */
+        private final Map<String, Partida> activas = new LinkedHashMap<>();
+        /** Partidas terminadas sin instantánea por ID */
+        private final Map<String, Partida> terminadas = new LinkedHashMap<>();
+        /** Diarios vacíos o sin registro de inicio */
+        private final List<String> vacios = new ArrayList<>();
+        /** Diarios que no se han podido reproducir */
+        private int dañados;
+        /** Instantáneas encontradas */
+        private int instantaneas;
+        /** Temporales de escrituras interrumpidas borrados */
+        private int temporales;
+        /** Duración de la recuperación */
+        private long milisegundos;
+
+        /**
+         * Obtiene las partidas reconstruidas que siguen en juego.
+         *
+         * @return Partidas en curso por ID, en orden de los diarios
+         */
+        public Map<String, Partida> getActivas() {
+            return Collections.unmodifiableMap(activas);
+        }
+
+        /**
+         * Obtiene las partidas reconstruidas que terminaron antes de guardarse.
+         *
+         * @return Partidas terminadas cuya instantánea final no llegó a guardarse
+         */
+        public Map<String, Partida> getTerminadas() {
+            return Collections.unmodifiableMap(terminadas);
+        }
+
+        /**
+         * Obtiene los diarios que no contenían ninguna partida.
+         *
+         * @return IDs de los diarios sin partida que reconstruir
+         */
+        public List<String> getVacios() {
+            return Collections.unmodifiableList(vacios);
+        }
+
+        /**
+         * Obtiene lo que tardó la recuperación.
+         *
+         * @return Duración de la recuperación en milisegundos
+         */
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Partidas recuperadas en %d ms | En curso: %d | Terminadas: %d"
+                    + " | Diarios vacíos: %d | Dañados: %d | Instantáneas: %d | Temporales borrados: %d",
+                milisegundos, activas.size(), terminadas.size(), vacios.size(), dañados,
+                instantaneas, temporales);
+        }
+    }
+
+    /** Diario de las partidas en curso */
+    private final DiarioPartidas diario;
+    /** Carpeta de las instantáneas de partidas */
+    private final Path carpetaPartidas;
+    /** Número de hilos que reproducen diarios */
+    private final int hilos;
+
+    /**
+     * Crea la recuperación sobre la carpeta de partidas por defecto.
+     *
+     * @param diario Diario de las partidas en curso
+     */
+    public RecuperacionPartidas(DiarioPartidas diario) {
+        this(diario, Paths.get("partidas"), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea la recuperación.
+     *
+     * @param diario Diario de las partidas en curso
+     * @param carpetaPartidas Carpeta de las instantáneas
+     * @param hilos Número de hilos que reproducen diarios
+     */
+    public RecuperacionPartidas(DiarioPartidas diario, Path carpetaPartidas, int hilos) {
+        this.diario = diario;
+        this.carpetaPartidas = carpetaPartidas;
+        this.hilos = Math.max(1, hilos);
+    }
+
+    /**
+     * Recupera las partidas de los diarios en disco.
+     * Un diario dañado se deja en su sitio y no impide recuperar los demás.
+     *
+     * @return Partidas recuperadas y contadores
+     */
+    public Resultado recuperar() {
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+        List<String> ids = diario.listarPartidas();
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "Partidas-Recuperacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            Future<int[]> instantaneas = pool.submit(this::revisarInstantaneas);
+            List<Future<Partida>> reproducidas = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                reproducidas.add(pool.submit(() -> RegistrosPartida.reproducir(diario.leer(id))));
+            }
+
+            for (int i = 0; i < ids.size(); i++) {
+                String id = ids.get(i);
+                try {
+                    Partida partida = reproducidas.get(i).get();
+                    if (partida == null) {
+                        resultado.vacios.add(id);
+                    } else if (partida.getFase() == FasePartida.FINISHED) {
+                        resultado.terminadas.put(id, partida);
+                    } else {
+                        resultado.activas.put(id, partida);
+                    }
+                } catch (ExecutionException e) {
+                    resultado.dañados++;
+                    System.err.println("No se pudo recuperar la partida " + id + ": " + e.getCause().getMessage());
+                }
+            }
+            int[] revisadas = instantaneas.get();
+            resultado.instantaneas = revisadas[0];
+            resultado.temporales = revisadas[1];
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error revisando instantáneas: " + e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
+        }
+
+        resultado.milisegundos = (System.nanoTime() - inicio) / 1_000_000L;
+        return resultado;
+    }
+
+    /**
+     * Cuenta las instantáneas guardadas y borra los temporales de escrituras interrumpidas.
+     *
+     * @return Instantáneas encontradas y temporales borrados
+     * @throws IOException Si no se puede recorrer la carpeta
+     */
+    private int[] revisarInstantaneas() throws IOException {
+        int[] revisadas = new int[2];
+        if (!Files.isDirectory(carpetaPartidas)) {
+            return revisadas;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpetaPartidas)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(EscrituraAtomica.SUFIJO_TEMPORAL)) {
+                    Files.deleteIfExists(archivo);
+                    revisadas[1]++;
+                } else if (nombre.endsWith(GuardarPartidasBinario.EXTENSION) || nombre.endsWith(".json")) {
+                    revisadas[0]++;
+                }
+            }
+        }
+        return revisadas;
+    }
+}
@@ -0,0 +1,236 @@
+package Persistencia.Partidas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import Barcos.TablaBarcos;
+import Cliente.Usuario;
+import Motor.MotorJuego;
+import Partida.FasePartida;
+import Partida.Partida;
+import Sistema.FabricaBarcos;
+import Sistema.TipoBarco;
+import Tablero.Tablero;
+
+/**
+ * Registros del diario de una partida y su reproducción.
+ * Cada registro describe un hecho aceptado por el servidor:
+ * - INICIO: el rival se ha unido (nombres de ambos jugadores)
+ * - COLOCACION: un jugador ha colocado un barco
+ * - COMBATE: la partida ha entrado en combate (turno inicial)
+ * - ATAQUE: un jugador ha atacado en un turno (coordenadas de la matriz del tablero)
+ *
+ * Reproducir los registros en orden sobre una partida vacía, aplicando las
+ * mismas reglas que el servidor, devuelve la partida al estado en que estaba,
+ * incluida la secuencia de turno que tienen los clientes: cada ataque vuelve a
+ * reclamar su turno. Solo se registran ataques aceptados, así que un ataque
+ * que las reglas rechazan al reproducirlo indica un diario dañado.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class RegistrosPartida {
+
+    /** El rival se ha unido a la partida */
+    public static final int INICIO = 1;
+    /** Un jugador ha colocado un barco */
+    public static final int COLOCACION = 2;
+    /** La partida ha entrado en combate */
+    public static final int COMBATE = 3;
+    /** Un jugador ha atacado */
+    public static final int ATAQUE = 4;
+
+    /** Marca de registro del usuario rival */
+    private static final int DEL_RIVAL = 1 << 6;
+    /** Marca de orientación horizontal */
+    private static final int HORIZONTAL = 1 << 7;
+
+    /**
+     * Constructor privado: clase de utilidades.
+     */
+    private RegistrosPartida() {
+    }
+
+    /**
+     * Crea el registro de inicio de una partida con rival.
+     *
+     * @param partida Partida a la que se acaba de unir el rival
+     * @return Contenido del registro
+     */
+    public static byte[] inicio(Partida partida) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeByte(INICIO);
+            salida.writeUTF(partida.getUsuarioPrincipal().getName());
+            salida.writeUTF(partida.getUsuarioRival().getName());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Crea el registro de la colocación de un barco.
+     *
+     * @param esRival true si coloca el usuario rival
+     * @param tipo Tipo de barco colocado
+     * @param fila Fila de la casilla inicial
+     * @param columna Columna de la casilla inicial
+     * @param horizontal true si el barco es horizontal
+     * @return Contenido del registro
+     */
+    public static byte[] colocacion(boolean esRival, TipoBarco tipo, int fila, int columna, boolean horizontal) {
+        return new byte[] {
+            COLOCACION,
+            (byte) (tipo.ordinal() | (esRival ? DEL_RIVAL : 0) | (horizontal ? HORIZONTAL : 0)),
+            (byte) fila,
+            (byte) columna
+        };
+    }
+
+    /**
+     * Crea el registro de inicio del combate.
+     *
+     * @param turno Turno codificado al empezar el combate
+     * @return Contenido del registro
+     */
+    public static byte[] combate(long turno) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeByte(COMBATE);
+            salida.writeLong(turno);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Crea el registro de un ataque.
+     *
+     * @param esRival true si ataca el usuario rival
+     * @param fila Fila de la matriz del tablero atacada
+     * @param columna Columna de la matriz del tablero atacada
+     * @param secuencia Secuencia del turno en el que se atacó
+     * @return Contenido del registro
+     */
+    public static byte[] ataque(boolean esRival, int fila, int columna, long secuencia) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(12);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeByte(ATAQUE);
+            salida.writeByte(esRival ? DEL_RIVAL : 0);
+            salida.writeByte(fila);
+            salida.writeByte(columna);
+            salida.writeLong(secuencia);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reconstruye una partida reproduciendo sus registros en orden.
+     * Si ambas flotas quedan completas, la partida pasa a READY como al colocar
+     * el último barco en el servidor.
+     *
+     * @param registros Registros del diario de la partida
+     * @return Partida reconstruida, o null si el diario no empieza por INICIO
+     * @throws IOException Si algún registro está dañado
+     */
+    public static Partida reproducir(List<byte[]> registros) throws IOException {
+        if (registros.isEmpty() || registros.get(0).length == 0 || registros.get(0)[0] != INICIO) {
+            return null;
+        }
+        Partida partida = null;
+        MotorJuego motor = MotorJuego.getInstancia();
+        try {
+            for (byte[] registro : registros) {
+                DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(registro));
+                int tipo = entrada.readUnsignedByte();
+                switch (tipo) {
+                    case INICIO:
+                        Usuario principal = new Usuario(entrada.readUTF(), null);
+                        Usuario rival = new Usuario(entrada.readUTF(), null);
+                        partida = new Partida(principal, rival, false);
+                        break;
+                    case COLOCACION:
+                        reproducirColocacion(partida, entrada);
+                        break;
+                    case COMBATE:
+                        partida.restaurar(FasePartida.PLAYING, entrada.readLong(), null, null);
+                        break;
+                    case ATAQUE:
+                        Usuario atacante = (entrada.readUnsignedByte() & DEL_RIVAL) != 0
+                            ? partida.getUsuarioRival() : partida.getUsuarioPrincipal();
+                        int fila = entrada.readUnsignedByte();
+                        int columna = entrada.readUnsignedByte();
+                        long secuencia = entrada.readLong();
+                        int codigo = motor.atacar(partida, atacante, fila, columna, secuencia);
+                        if (MotorJuego.esRechazado(codigo)) {
+                            throw new IOException("Ataque rechazado en " + fila + "," + columna
+                                + ": " + MotorJuego.describir(codigo));
+                        }
+                        break;
+                    default:
+                        throw new IOException("Tipo de registro desconocido: " + tipo);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Diario de partida dañado: " + e.getMessage(), e);
+        }
+        if (partida.getFase() == FasePartida.PLACING
+                && flotaCompleta(partida.getTableroPrincipal()) && flotaCompleta(partida.getTableroRival())) {
+            partida.marcarLista();
+        }
+        return partida;
+    }
+
+    /**
+     * Vuelve a colocar un barco registrado en el tablero de su jugador.
+     *
+     * @param partida Partida reconstruida
+     * @param entrada Resto del registro
+     * @throws IOException Si el registro está dañado
+     */
+    private static void reproducirColocacion(Partida partida, DataInputStream entrada) throws IOException {
+        int cabecera = entrada.readUnsignedByte();
+        int fila = entrada.readUnsignedByte();
+        int columna = entrada.readUnsignedByte();
+        int tipo = cabecera & (DEL_RIVAL - 1);
+        if (tipo >= TipoBarco.values().length) {
+            throw new IOException("Tipo de barco no válido: " + tipo);
+        }
+        TipoBarco tipoBarco = TipoBarco.values()[tipo];
+        Usuario usuario = (cabecera & DEL_RIVAL) != 0 ? partida.getUsuarioRival() : partida.getUsuarioPrincipal();
+        String orientacion = (cabecera & HORIZONTAL) != 0 ? "HORIZONTAL" : "VERTICAL";
+        if (new FabricaBarcos(partida.getTableroJugador(usuario))
+                .crearBarco(tipoBarco.getNombre(), fila, columna, orientacion) == null) {
+            throw new IOException("Colocación fuera del tablero: " + fila + "," + columna);
+        }
+        partida.addColocacion(usuario, tipoBarco.getNombre(), fila, columna, orientacion);
+    }
+
+    /**
+     * Verifica si un tablero tiene la flota completa.
+     *
+     * @param tablero Tablero a comprobar
+     * @return true si hay tantos barcos de cada tipo como permite la flota
+     */
+    public static boolean flotaCompleta(Tablero tablero) {
+        TablaBarcos barcos = tablero.getBarcos();
+        int[] colocados = new int[TipoBarco.values().length];
+        for (int id = 0; id < barcos.getNumeroBarcos(); id++) {
+            colocados[barcos.getTipo(id).ordinal()]++;
+        }
+        for (TipoBarco tipo : TipoBarco.values()) {
+            if (colocados[tipo.ordinal()] < tipo.getCantidadMaxima()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
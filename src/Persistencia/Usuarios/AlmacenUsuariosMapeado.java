@@ -0,0 +1,704 @@
+package Persistencia.Usuarios;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Cliente.Usuario;
+import Persistencia.Interfaces.GuardarUsuarios;
+import Persistencia.Interfaces.LeerUsuarios;
+
+/**
+ * Almacén de usuarios en disco para un número de cuentas que no cabe en memoria.
+ * Los usuarios se guardan en un archivo ordenado por nombre (orden de bytes UTF-8)
+ * que se proyecta en memoria; buscar un nombre es una búsqueda binaria sobre la
+ * tabla de posiciones del archivo, sin cargar el resto de usuarios.
+ *
+ * Formato del archivo:
+ * - cabecera: número mágico, versión y número de usuarios (3 enteros)
+ * - tabla de posiciones: un entero por usuario con la posición de su registro
+ * - registros: longitud y bytes del nombre, longitud y bytes de la contraseña
+ *
+ * Un filtro de Bloom sobre todos los nombres permite responder "el nombre está
+ * libre" al registrar sin tocar el archivo. Los registros nuevos se añaden a un
+ * DiarioUsuarios y a un mapa de registros recientes; cuando el mapa alcanza
+ * UMBRAL_FUSION, se fusiona con el archivo ordenado en un archivo nuevo que
+ * sustituye al anterior y el diario se vacía.
+ *
+ * Cada fusión escribe una generación nueva del archivo con un sufijo numérico
+ * ("usuarios.idx.1", "usuarios.idx.2", ...) en lugar de sobrescribir el vigente:
+ * en Windows no se puede sustituir ni borrar un archivo mientras siga
+ * proyectado, y la proyección solo se libera cuando el recolector de basura
+ * descarta la vista anterior, es decir, cuando ningún lector la usa ya. Las
+ * generaciones anteriores se borran en cuanto se puede; las que siguen
+ * proyectadas se reintentan en la siguiente fusión y al abrir el almacén.
+ *
+ * Funciona como lector y como guardador de usuarios:
+ * - guardar(Usuario) registra un usuario nuevo
+ * - guardar(List) sustituye todo el contenido del almacén por la lista
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class AlmacenUsuariosMapeado implements LeerUsuarios, GuardarUsuarios {
+
+    /** Registros recientes a partir de los cuales se fusionan con el archivo */
+    public static final int UMBRAL_FUSION = 4096;
+
+    /** Número mágico del archivo ("HUSU") */
+    private static final int MAGICO = 0x48555355;
+    /** Versión del formato del archivo */
+    private static final int VERSION = 1;
+    /** Tamaño de la cabecera en bytes */
+    private static final int CABECERA = 12;
+    /** Longitud máxima en bytes de un nombre o una contraseña */
+    private static final int LONGITUD_MAXIMA = 0xFFFF;
+    /**
+     * Tamaño de los bloques de escritura en bytes. Debe superar el registro más
+     * largo, 4 + 2 * LONGITUD_MAXIMA bytes, para que cualquier registro quepa en un bloque.
+     */
+    private static final int BLOQUE = 1 << 18;
+
+    /** Orden de los nombres en el archivo: bytes UTF-8 sin signo */
+    private static final Comparator<byte[]> ORDEN_BYTES = (a, b) -> {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int diferencia = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diferencia != 0) {
+                return diferencia;
+            }
+        }
+        return a.length - b.length;
+    };
+
+    /** Ruta del archivo ordenado */
+    private final Path archivoPath;
+    /** Diario con los registros que aún no se han fusionado con el archivo */
+    private final DiarioUsuarios diario;
+    /** Registros aún no fusionados, indexados por nombre */
+    private final ConcurrentHashMap<String, Usuario> recientes = new ConcurrentHashMap<>();
+    /** Vista del archivo ordenado vigente */
+    private volatile Indice indice;
+    /** Generación del archivo ordenado vigente; la 0 es el archivo sin sufijo */
+    private long generacion;
+    /** Registros recientes a partir de los cuales se intenta la siguiente fusión */
+    private int umbral = UMBRAL_FUSION;
+    /** Filtro de Bloom sobre los nombres del archivo y los registros recientes */
+    private volatile FiltroBloom filtro;
+
+    /**
+     * Constructor que abre el almacén y reproduce los registros pendientes del diario.
+     * Si el archivo no existe, el almacén empieza vacío.
+     *
+     * @param nombreArchivo Nombre del archivo ordenado; el diario usa el mismo nombre con ".diario"
+     * @throws RuntimeException Si el archivo existe pero no se puede abrir
+     */
+    public AlmacenUsuariosMapeado(String nombreArchivo) {
+        this.archivoPath = Paths.get(nombreArchivo);
+        // La instantánea del diario es el propio archivo ordenado, que escribe este almacén
+        this.diario = new DiarioUsuarios(nombreArchivo + ".diario", ArrayList::new, datos -> { });
+        try {
+            this.generacion = buscarGeneracion();
+            this.indice = Indice.abrir(rutaGeneracion(generacion));
+        } catch (IOException e) {
+            throw new RuntimeException("Error al abrir el almacén de usuarios: " + e.getMessage());
+        }
+        for (Usuario usuario : diario.leer()) {
+            // Tras una fusión interrumpida el diario puede repetir usuarios ya fusionados
+            if (indice.buscar(usuario.getName()) < 0) {
+                recientes.putIfAbsent(usuario.getName(), usuario);
+            }
+        }
+        this.filtro = crearFiltro(indice);
+        borrarAnteriores();
+    }
+
+    /**
+     * Obtiene la ruta de una generación del archivo ordenado.
+     *
+     * @param generacion Número de generación
+     * @return Ruta del archivo sin sufijo para la generación 0, o con el número como sufijo
+     */
+    private Path rutaGeneracion(long generacion) {
+        return generacion == 0 ? archivoPath
+            : archivoPath.resolveSibling(archivoPath.getFileName() + "." + generacion);
+    }
+
+    /**
+     * Lee el número de generación de un archivo de este almacén.
+     *
+     * @param archivo Archivo del directorio del almacén
+     * @return Número de generación, o -1 si el archivo no es una generación del archivo ordenado
+     */
+    private long generacionDe(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        String prefijo = archivoPath.getFileName() + ".";
+        if (nombre.equals(archivoPath.getFileName().toString())) {
+            return 0;
+        }
+        if (!nombre.startsWith(prefijo) || nombre.length() == prefijo.length()) {
+            return -1;
+        }
+        for (int i = prefijo.length(); i < nombre.length(); i++) {
+            if (!Character.isDigit(nombre.charAt(i))) {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(nombre.substring(prefijo.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Obtiene las generaciones del archivo ordenado que hay en disco.
+     *
+     * @return Rutas de las generaciones encontradas, vacía si el directorio no existe
+     * @throws IOException Si no se puede listar el directorio
+     */
+    private List<Path> listarGeneraciones() throws IOException {
+        List<Path> generaciones = new ArrayList<>();
+        Path directorio = archivoPath.toAbsolutePath().getParent();
+        if (directorio == null || !Files.isDirectory(directorio)) {
+            return generaciones;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, archivo -> generacionDe(archivo) >= 0)) {
+            for (Path archivo : archivos) {
+                generaciones.add(archivo);
+            }
+        }
+        return generaciones;
+    }
+
+    /**
+     * Busca la generación más reciente del archivo ordenado.
+     *
+     * @return Mayor generación en disco, o 0 si no hay ninguna
+     * @throws IOException Si no se puede listar el directorio
+     */
+    private long buscarGeneracion() throws IOException {
+        long mayor = 0;
+        for (Path archivo : listarGeneraciones()) {
+            mayor = Math.max(mayor, generacionDe(archivo));
+        }
+        return mayor;
+    }
+
+    /**
+     * Borra las generaciones anteriores a la vigente. Las que no se pueden
+     * borrar, porque en Windows siguen proyectadas por una vista anterior, se
+     * dejan para el siguiente intento.
+     */
+    private void borrarAnteriores() {
+        try {
+            for (Path archivo : listarGeneraciones()) {
+                if (generacionDe(archivo) < generacion) {
+                    try {
+                        Files.deleteIfExists(archivo);
+                    } catch (IOException e) {
+                        // sigue proyectado; se reintenta en la siguiente fusión
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudieron revisar las generaciones del almacén de usuarios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Crea un filtro de Bloom con los nombres del archivo y de los registros recientes.
+     *
+     * @param indice Archivo ordenado vigente
+     * @return Filtro dimensionado con margen para los registros hasta la siguiente fusión
+     */
+    private FiltroBloom crearFiltro(Indice indice) {
+        FiltroBloom nuevo = new FiltroBloom(indice.numero + recientes.size() + 2 * UMBRAL_FUSION);
+        for (int i = 0; i < indice.numero; i++) {
+            nuevo.añadir(indice.nombre(i));
+        }
+        for (String nombre : recientes.keySet()) {
+            nuevo.añadir(nombre);
+        }
+        return nuevo;
+    }
+
+    /**
+     * Lee todos los usuarios del almacén: los del archivo en orden de nombre
+     * seguidos de los registros recientes.
+     * Recorre el archivo completo; para consultas individuales usar buscarUsuario.
+     *
+     * @return Lista con todos los usuarios
+     */
+    @Override
+    public List<Usuario> leer() {
+        Indice actual = indice;
+        List<Usuario> usuarios = new ArrayList<>(actual.numero + recientes.size());
+        for (int i = 0; i < actual.numero; i++) {
+            usuarios.add(actual.usuario(i));
+        }
+        for (Usuario usuario : recientes.values()) {
+            if (actual.buscar(usuario.getName()) < 0) {
+                usuarios.add(usuario);
+            }
+        }
+        return usuarios;
+    }
+
+    /**
+     * Busca un usuario por su nombre.
+     * Descarta con el filtro de Bloom los nombres que no existen; el resto se
+     * busca entre los registros recientes y, por búsqueda binaria, en el archivo.
+     *
+     * @param nombreUsuario Nombre del usuario a buscar
+     * @return Usuario encontrado o null si no existe
+     */
+    @Override
+    public Usuario buscarUsuario(String nombreUsuario) {
+        if (nombreUsuario == null || !filtro.puedeContener(nombreUsuario)) {
+            return null;
+        }
+        Usuario usuario = recientes.get(nombreUsuario);
+        if (usuario != null) {
+            return usuario;
+        }
+        Indice actual = indice;
+        int posicion = actual.buscar(nombreUsuario);
+        return posicion >= 0 ? actual.usuario(posicion) : null;
+    }
+
+    /**
+     * Indica que este lector busca usuarios sin cargar el almacén.
+     *
+     * @return true: las búsquedas por nombre no cargan el almacén completo
+     */
+    @Override
+    public boolean esIndexado() {
+        return true;
+    }
+
+    /**
+     * Registra un usuario nuevo o sustituye el contenido del almacén.
+     *
+     * @param datos Usuario a registrar o List<Usuario> con todos los usuarios
+     * @throws IllegalArgumentException Si los datos son null o de tipo incorrecto,
+     *         o si el usuario ya existe
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void guardar(Object datos) {
+        if (datos instanceof Usuario) {
+            registrar((Usuario) datos);
+        } else if (datos instanceof List<?>) {
+            reemplazar((List<Usuario>) datos);
+        } else {
+            throw new IllegalArgumentException("Tipo de datos no soportado");
+        }
+    }
+
+    /**
+     * Registra un usuario nuevo: lo añade al diario, a los registros recientes y
+     * al filtro. Si los registros recientes alcanzan el umbral, los fusiona con
+     * el archivo antes de volver. Si la fusión falla, el usuario queda registrado
+     * en el diario y en los recientes, y la fusión se reintenta cuando se
+     * registren otros UMBRAL_FUSION usuarios.
+     *
+     * @param usuario Usuario a registrar
+     * @throws IllegalArgumentException Si el usuario ya existe o sus datos no caben en un registro
+     * @throws RuntimeException Si no se puede escribir el registro
+     */
+    public synchronized void registrar(Usuario usuario) {
+        validar(usuario);
+        if (buscarUsuario(usuario.getName()) != null) {
+            throw new IllegalArgumentException("El usuario ya existe: " + usuario.getName());
+        }
+        diario.añadir(usuario);
+        recientes.put(usuario.getName(), usuario);
+        filtro.añadir(usuario.getName());
+        if (recientes.size() >= umbral) {
+            try {
+                fusionar();
+            } catch (RuntimeException e) {
+                umbral = recientes.size() + UMBRAL_FUSION;
+                System.err.println("Fusión del almacén de usuarios aplazada: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fusiona los registros recientes con el archivo ordenado.
+     * Escribe un archivo nuevo con la mezcla ordenada de ambos, lo pone en lugar
+     * del anterior y vacía el diario. Las búsquedas concurrentes ven en todo
+     * momento el archivo anterior más los recientes o el archivo nuevo. Si no se
+     * puede escribir el archivo nuevo, el archivo vigente, los registros
+     * recientes y el diario quedan como estaban.
+     *
+     * @throws RuntimeException Si no se puede escribir el archivo nuevo
+     */
+    public synchronized void fusionar() {
+        if (recientes.isEmpty()) {
+            return;
+        }
+        List<Usuario> nuevos = new ArrayList<>(recientes.values());
+        escribir(indice, nuevos);
+        diario.compactar(nuevos);
+        for (Usuario usuario : nuevos) {
+            recientes.remove(usuario.getName(), usuario);
+        }
+        filtro = crearFiltro(indice);
+        umbral = UMBRAL_FUSION;
+    }
+
+    /**
+     * Sustituye todo el contenido del almacén por la lista indicada.
+     * Si un nombre aparece varias veces, se conserva la primera aparición.
+     *
+     * @param usuarios Lista completa de usuarios
+     * @throws RuntimeException Si no se puede escribir el archivo
+     */
+    public synchronized void reemplazar(List<Usuario> usuarios) {
+        for (Usuario usuario : usuarios) {
+            validar(usuario);
+        }
+        escribir(Indice.VACIO, usuarios);
+        diario.compactar(usuarios);
+        recientes.clear();
+        filtro = crearFiltro(indice);
+        umbral = UMBRAL_FUSION;
+    }
+
+    /**
+     * Comprueba que un usuario cabe en un registro del archivo.
+     *
+     * @param usuario Usuario a comprobar
+     * @throws IllegalArgumentException Si el usuario, su nombre o su contraseña no son válidos
+     */
+    private static void validar(Usuario usuario) {
+        if (usuario == null || usuario.getName() == null || usuario.getPassword() == null) {
+            throw new IllegalArgumentException("Usuario sin nombre o contraseña");
+        }
+        if (usuario.getName().getBytes(StandardCharsets.UTF_8).length > LONGITUD_MAXIMA
+                || usuario.getPassword().getBytes(StandardCharsets.UTF_8).length > LONGITUD_MAXIMA) {
+            throw new IllegalArgumentException("Nombre o contraseña demasiado largos");
+        }
+    }
+
+    /**
+     * Escribe un archivo ordenado con la mezcla de un archivo existente y una
+     * lista de usuarios como generación siguiente, y lo pone en lugar del archivo
+     * vigente. Los usuarios de la lista cuyo nombre ya está en el archivo
+     * existente se ignoran. Si algo falla, se borra el archivo temporal y el
+     * archivo vigente no cambia.
+     *
+     * @param base Archivo ordenado de partida
+     * @param usuarios Usuarios a añadir
+     * @throws RuntimeException Si no se puede escribir el archivo
+     */
+    private void escribir(Indice base, List<Usuario> usuarios) {
+        TreeMap<byte[], byte[]> nuevos = new TreeMap<>(ORDEN_BYTES);
+        for (Usuario usuario : usuarios) {
+            if (base.buscar(usuario.getName()) < 0) {
+                nuevos.putIfAbsent(usuario.getName().getBytes(StandardCharsets.UTF_8),
+                    usuario.getPassword().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Path temporal = archivoPath.resolveSibling(archivoPath.getFileName() + ".tmp");
+        int total = base.numero + nuevos.size();
+        long siguiente = CABECERA + 4L * total;
+        try {
+            escribirArchivo(temporal, base, nuevos, total, siguiente);
+            Path destino = rutaGeneracion(generacion + 1);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            indice = Indice.abrir(destino);
+            generacion++;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+                // se sobrescribe en la siguiente fusión
+            }
+            throw new RuntimeException("Error al escribir el almacén de usuarios: " + e.getMessage());
+        }
+        borrarAnteriores();
+    }
+
+    /**
+     * Escribe en un archivo la mezcla ordenada de un archivo existente y los usuarios nuevos.
+     *
+     * @param temporal Archivo a escribir
+     * @param base Archivo ordenado de partida
+     * @param nuevos Nombres y contraseñas nuevos, ordenados y ausentes de la base
+     * @param total Número total de usuarios
+     * @param siguiente Posición del primer registro
+     * @throws IOException Si no se puede escribir el archivo
+     */
+    private static void escribirArchivo(Path temporal, Indice base, TreeMap<byte[], byte[]> nuevos,
+            int total, long siguiente) throws IOException {
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+            cabecera.putInt(MAGICO).putInt(VERSION).putInt(total);
+            escribirBloque(canal, cabecera, 0);
+
+            ByteBuffer posiciones = ByteBuffer.allocate(BLOQUE);
+            long destinoPosiciones = CABECERA;
+            ByteBuffer registros = ByteBuffer.allocate(BLOQUE);
+            long destinoRegistros = siguiente;
+
+            int i = 0;
+            Iterator<Map.Entry<byte[], byte[]>> iterador = nuevos.entrySet().iterator();
+            Map.Entry<byte[], byte[]> nuevo = iterador.hasNext() ? iterador.next() : null;
+            while (i < base.numero || nuevo != null) {
+                byte[] nombre;
+                byte[] contraseña;
+                if (nuevo == null || (i < base.numero && base.comparar(i, nuevo.getKey()) < 0)) {
+                    nombre = base.bytesNombre(i);
+                    contraseña = base.bytesContraseña(i);
+                    i++;
+                } else {
+                    nombre = nuevo.getKey();
+                    contraseña = nuevo.getValue();
+                    nuevo = iterador.hasNext() ? iterador.next() : null;
+                }
+                if (siguiente > Integer.MAX_VALUE) {
+                    throw new IOException("El almacén de usuarios supera el tamaño máximo");
+                }
+
+                if (posiciones.remaining() < 4) {
+                    destinoPosiciones += escribirBloque(canal, posiciones, destinoPosiciones);
+                }
+                posiciones.putInt((int) siguiente);
+
+                int tamaño = 4 + nombre.length + contraseña.length;
+                if (registros.remaining() < tamaño) {
+                    destinoRegistros += escribirBloque(canal, registros, destinoRegistros);
+                }
+                registros.putShort((short) nombre.length).put(nombre)
+                         .putShort((short) contraseña.length).put(contraseña);
+                siguiente += tamaño;
+            }
+            escribirBloque(canal, posiciones, destinoPosiciones);
+            escribirBloque(canal, registros, destinoRegistros);
+            canal.force(true);
+        }
+    }
+
+    /**
+     * Escribe el contenido de un búfer en una posición del canal y lo deja vacío.
+     *
+     * @param canal Canal del archivo
+     * @param bufer Búfer con los datos a escribir, aún sin preparar para lectura
+     * @param posicion Posición del archivo en la que escribir
+     * @return Número de bytes escritos
+     * @throws IOException Si no se puede escribir
+     */
+    private static int escribirBloque(FileChannel canal, ByteBuffer bufer, long posicion) throws IOException {
+        bufer.flip();
+        int escritos = 0;
+        while (bufer.hasRemaining()) {
+            escritos += canal.write(bufer, posicion + escritos);
+        }
+        bufer.clear();
+        return escritos;
+    }
+
+    /**
+     * Obtiene el número de usuarios del archivo más los recientes.
+     *
+     * @return Número de usuarios del almacén
+     */
+    public int getNumeroUsuarios() {
+        return indice.numero + recientes.size();
+    }
+
+    /**
+     * Obtiene cuántos usuarios se han añadido desde la última fusión.
+     *
+     * @return Número de registros recientes aún no fusionados con el archivo
+     */
+    public int getRecientes() {
+        return recientes.size();
+    }
+
+    /**
+     * Vista de solo lectura de un archivo ordenado proyectado en memoria.
+     * Las lecturas usan posiciones absolutas, de modo que varios hilos pueden
+     * compartir la misma vista. El almacén solo referencia la vista vigente: los
+     * lectores que aún usan una anterior la mantienen viva y, cuando terminan,
+     * el recolector de basura la descarta y libera su proyección.
+     */
+    private static final class Indice {
+
+        /** Vista de un almacén sin usuarios */
+        static final Indice VACIO = new Indice(null, 0);
+
+        /** Contenido del archivo proyectado en memoria */
+        private final MappedByteBuffer buffer;
+        /** Número de usuarios del archivo */
+        final int numero;
+
+        private Indice(MappedByteBuffer buffer, int numero) {
+            this.buffer = buffer;
+            this.numero = numero;
+        }
+
+        /**
+         * Proyecta en memoria un archivo ordenado y comprueba su cabecera.
+         *
+         * @param archivo Ruta del archivo
+         * @return Vista del archivo, o VACIO si no existe
+         * @throws IOException Si el archivo no se puede leer o no tiene el formato esperado
+         */
+        static Indice abrir(Path archivo) throws IOException {
+            if (!Files.exists(archivo)) {
+                return VACIO;
+            }
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                long tamaño = canal.size();
+                if (tamaño < CABECERA || tamaño > Integer.MAX_VALUE) {
+                    throw new IOException("Tamaño de archivo no válido: " + tamaño);
+                }
+                MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamaño);
+                if (buffer.getInt(0) != MAGICO || buffer.getInt(4) != VERSION) {
+                    throw new IOException("Formato de archivo no reconocido");
+                }
+                int numero = buffer.getInt(8);
+                if (numero < 0 || CABECERA + 4L * numero > tamaño) {
+                    throw new IOException("Tabla de posiciones no válida");
+                }
+                return new Indice(buffer, numero);
+            }
+        }
+
+        /**
+         * Busca un nombre por búsqueda binaria.
+         *
+         * @param nombre Nombre a buscar
+         * @return Posición del usuario en el archivo o -1 si no está
+         */
+        int buscar(String nombre) {
+            if (numero == 0 || nombre == null) {
+                return -1;
+            }
+            byte[] clave = nombre.getBytes(StandardCharsets.UTF_8);
+            int bajo = 0;
+            int alto = numero - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                int comparacion = comparar(medio, clave);
+                if (comparacion < 0) {
+                    bajo = medio + 1;
+                } else if (comparacion > 0) {
+                    alto = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Compara el nombre de un registro con una clave sin copiar el nombre.
+         *
+         * @param i Posición del usuario en el archivo
+         * @param clave Bytes UTF-8 del nombre a comparar
+         * @return Negativo, cero o positivo según el nombre del registro sea menor, igual o mayor
+         */
+        int comparar(int i, byte[] clave) {
+            int registro = registro(i);
+            int longitud = buffer.getShort(registro) & 0xFFFF;
+            int n = Math.min(longitud, clave.length);
+            for (int j = 0; j < n; j++) {
+                int diferencia = (buffer.get(registro + 2 + j) & 0xFF) - (clave[j] & 0xFF);
+                if (diferencia != 0) {
+                    return diferencia;
+                }
+            }
+            return longitud - clave.length;
+        }
+
+        /**
+         * Lee la posición del registro de un usuario en la tabla de posiciones.
+         *
+         * @param i Posición del usuario en el archivo
+         * @return Posición de su registro en el archivo
+         */
+        private int registro(int i) {
+            return buffer.getInt(CABECERA + 4 * i);
+        }
+
+        /**
+         * Copia el nombre de un usuario tal como está en el archivo.
+         *
+         * @param i Posición del usuario en el archivo
+         * @return Bytes UTF-8 de su nombre
+         */
+        byte[] bytesNombre(int i) {
+            int registro = registro(i);
+            return copiar(registro + 2, buffer.getShort(registro) & 0xFFFF);
+        }
+
+        /**
+         * Copia la contraseña de un usuario tal como está en el archivo.
+         *
+         * @param i Posición del usuario en el archivo
+         * @return Bytes UTF-8 de su contraseña
+         */
+        byte[] bytesContraseña(int i) {
+            int registro = registro(i);
+            int campo = registro + 2 + (buffer.getShort(registro) & 0xFFFF);
+            return copiar(campo + 2, buffer.getShort(campo) & 0xFFFF);
+        }
+
+        /**
+         * Decodifica el nombre de un usuario.
+         *
+         * @param i Posición del usuario en el archivo
+         * @return Nombre del usuario
+         */
+        String nombre(int i) {
+            return new String(bytesNombre(i), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Crea el usuario de un registro del archivo.
+         *
+         * @param i Posición del usuario en el archivo
+         * @return Usuario leído del registro
+         */
+        Usuario usuario(int i) {
+            return new Usuario(nombre(i), new String(bytesContraseña(i), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Copia bytes del archivo con lecturas absolutas.
+         *
+         * @param desde Posición inicial
+         * @param longitud Número de bytes
+         * @return Copia de los bytes
+         */
+        private byte[] copiar(int desde, int longitud) {
+            byte[] bytes = new byte[longitud];
+            for (int j = 0; j < longitud; j++) {
+                bytes[j] = buffer.get(desde + j);
+            }
+            return bytes;
+        }
+    }
+}
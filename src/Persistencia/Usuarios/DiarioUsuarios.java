@@ -0,0 +1,196 @@
+package Persistencia.Usuarios;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import Cliente.Usuario;
+import Persistencia.Interfaces.GuardarUsuarios;
+import Persistencia.Interfaces.LeerUsuarios;
+
+/**
+ * Diario de registros de usuarios sobre una instantánea.
+ * Cada registro nuevo se añade al final del diario como una línea JSON, de modo
+ * que registrar un usuario cuesta una escritura de un solo registro sea cual
+ * sea el número de cuentas. Periódicamente el diario se compacta: la lista
+ * completa se guarda como instantánea y el diario se vacía.
+ *
+ * Al leer, se cargan los usuarios de la instantánea y se reproducen encima los
+ * registros del diario. Una última línea incompleta (escritura interrumpida)
+ * se descarta y se recorta del archivo.
+ *
+ * Funciona como lector y como guardador de usuarios:
+ * - guardar(Usuario) añade un registro al diario
+ * - guardar(List) compacta el diario con la lista indicada
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class DiarioUsuarios implements LeerUsuarios, GuardarUsuarios {
+
+    /** Instancia de Gson para serializar cada registro en una línea */
+    private final Gson gson = new Gson();
+    /** Ruta del archivo del diario */
+    private final Path archivoPath;
+    /** Lector de la instantánea */
+    private final LeerUsuarios lectorInstantanea;
+    /** Guardador de la instantánea */
+    private final GuardarUsuarios guardadorInstantanea;
+    /** Registros añadidos desde la última compactación */
+    private int registros;
+
+    /**
+     * Constructor que crea el diario sobre una instantánea.
+     *
+     * @param nombreArchivo Nombre del archivo del diario
+     * @param lectorInstantanea Lector de la instantánea de usuarios
+     * @param guardadorInstantanea Guardador de la instantánea de usuarios
+     */
+    public DiarioUsuarios(String nombreArchivo, LeerUsuarios lectorInstantanea, GuardarUsuarios guardadorInstantanea) {
+        this.archivoPath = Paths.get(nombreArchivo);
+        this.lectorInstantanea = lectorInstantanea;
+        this.guardadorInstantanea = guardadorInstantanea;
+    }
+
+    /**
+     * Lee los usuarios de la instantánea y reproduce encima los registros del diario.
+     * Si un nombre aparece varias veces, se conserva la primera aparición.
+     *
+     * @return Lista de usuarios en orden de registro
+     */
+    @Override
+    public synchronized List<Usuario> leer() {
+        List<Usuario> usuarios = new ArrayList<>();
+        Set<String> nombres = new HashSet<>();
+        for (Usuario usuario : lectorInstantanea.leer()) {
+            if (nombres.add(usuario.getName())) {
+                usuarios.add(usuario);
+            }
+        }
+
+        registros = 0;
+        if (!Files.exists(archivoPath)) {
+            return usuarios;
+        }
+        try {
+            byte[] contenido = Files.readAllBytes(archivoPath);
+            int valido = 0;
+            for (int fin = 0; fin < contenido.length; fin++) {
+                if (contenido[fin] != '\n') {
+                    continue;
+                }
+                String linea = new String(contenido, valido, fin - valido, StandardCharsets.UTF_8);
+                Usuario usuario;
+                try {
+                    usuario = linea.trim().isEmpty() ? null : gson.fromJson(linea, Usuario.class);
+                } catch (JsonParseException e) {
+                    break;
+                }
+                valido = fin + 1;
+                if (usuario == null) {
+                    continue;
+                }
+                registros++;
+                if (usuario.getName() != null && nombres.add(usuario.getName())) {
+                    usuarios.add(usuario);
+                }
+            }
+            if (valido < contenido.length) {
+                System.err.println("Registro de usuario incompleto descartado en " + archivoPath);
+                truncar(valido);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reproduciendo el diario de usuarios: " + e.getMessage());
+        }
+        return usuarios;
+    }
+
+    /**
+     * Recorta el diario hasta el último registro completo, para que los
+     * registros siguientes no se añadan detrás de uno interrumpido.
+     *
+     * @param longitud Longitud en bytes de la parte válida del diario
+     * @throws IOException Si no se puede recortar el archivo
+     */
+    private void truncar(long longitud) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivoPath, StandardOpenOption.WRITE)) {
+            canal.truncate(longitud);
+            canal.force(false);
+        }
+    }
+
+    /**
+     * Añade un usuario al diario o compacta el diario con una lista completa.
+     *
+     * @param datos Usuario a añadir o List<Usuario> con todos los usuarios
+     * @throws IllegalArgumentException Si los datos son null o de tipo incorrecto
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void guardar(Object datos) {
+        if (datos instanceof Usuario) {
+            añadir((Usuario) datos);
+        } else if (datos instanceof List<?>) {
+            compactar((List<Usuario>) datos);
+        } else {
+            throw new IllegalArgumentException("Tipo de datos no soportado");
+        }
+    }
+
+    /**
+     * Añade el registro de un usuario al final del diario y lo fuerza a disco.
+     *
+     * @param usuario Usuario registrado
+     * @throws RuntimeException Si no se puede escribir el registro
+     */
+    public synchronized void añadir(Usuario usuario) {
+        byte[] linea = (gson.toJson(usuario) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel canal = FileChannel.open(archivoPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(linea);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false);
+            registros++;
+        } catch (IOException e) {
+            throw new RuntimeException("Error al añadir usuario al diario: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda la lista completa como instantánea y vacía el diario.
+     * La lista debe contener todos los usuarios, incluidos los del diario.
+     *
+     * @param usuarios Lista completa de usuarios
+     * @throws RuntimeException Si no se puede guardar la instantánea
+     */
+    public synchronized void compactar(List<Usuario> usuarios) {
+        guardadorInstantanea.guardar(usuarios);
+        try {
+            Files.deleteIfExists(archivoPath);
+            registros = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Error al vaciar el diario de usuarios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el tamaño actual del diario en registros.
+     *
+     * @return Número de registros añadidos desde la última compactación
+     */
+    public synchronized int getRegistros() {
+        return registros;
+    }
+}
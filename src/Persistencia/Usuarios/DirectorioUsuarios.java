@@ -0,0 +1,240 @@
+package Persistencia.Usuarios;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Cliente.Usuario;
+import Persistencia.Interfaces.GuardarUsuarios;
+import Persistencia.Interfaces.LeerUsuarios;
+
+/**
+ * Directorio en memoria de los usuarios registrados.
+ * Carga los usuarios una sola vez desde el lector configurado y los indexa por
+ * nombre en un mapa concurrente, de modo que validar un login es una consulta
+ * al mapa sin bloqueos ni lecturas de disco.
+ *
+ * Cada registro nuevo se añade al mapa y se entrega de inmediato al guardador
+ * como un único usuario; con un DiarioUsuarios eso es añadir una línea al diario.
+ * En segundo plano, la lista completa se vuelca al guardador (la compactación
+ * del diario) al cabo de un intervalo o en cuanto se acumulan suficientes
+ * registros sin volcar.
+ *
+ * Si el lector es indexado (por ejemplo un AlmacenUsuariosMapeado), el directorio
+ * no carga los usuarios en memoria: las búsquedas se delegan en el lector y los
+ * registros en el guardador, que se encarga de su propia compactación.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public class DirectorioUsuarios {
+
+    /** Tiempo que espera un registro antes de volcarse, en milisegundos */
+    public static final long INTERVALO_VOLCADO_MS = 60_000L;
+    /** Registros sin volcar a partir de los cuales se vuelca sin esperar al intervalo */
+    public static final int UMBRAL_VOLCADO = 256;
+
+    /** Lector del que se cargan los usuarios */
+    private final LeerUsuarios lector;
+    /** Guardador al que se vuelcan los usuarios */
+    private final GuardarUsuarios guardador;
+    /** Usuarios indexados por nombre */
+    private final ConcurrentHashMap<String, Usuario> usuarios = new ConcurrentHashMap<>();
+    /** Usuarios en orden de carga y registro, para volcarlos en ese orden */
+    private final ConcurrentLinkedQueue<Usuario> orden = new ConcurrentLinkedQueue<>();
+    /** Indica si hay un volcado programado */
+    private final AtomicBoolean pendiente = new AtomicBoolean();
+    /** Registros entregados al guardador desde el último volcado */
+    private final AtomicInteger sinVolcar = new AtomicInteger();
+    /** Monitor que ordena los registros respecto a los volcados */
+    private final Object escritura = new Object();
+    /** Hilo que realiza los volcados */
+    private final ScheduledExecutorService volcador;
+    /** Indica si los usuarios ya se han cargado */
+    private volatile boolean cargado;
+    /** Indica si las búsquedas se delegan en el lector en lugar del mapa */
+    private final boolean indexado;
+
+    /**
+     * Constructor que crea el directorio sin cargar aún los usuarios.
+     *
+     * @param lector Lector del que cargar los usuarios
+     * @param guardador Guardador al que volcar los usuarios
+     */
+    public DirectorioUsuarios(LeerUsuarios lector, GuardarUsuarios guardador) {
+        this.lector = lector;
+        this.guardador = guardador;
+        this.indexado = lector.esIndexado();
+        this.volcador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "Usuarios-Volcado");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Carga los usuarios desde el lector. Solo la primera llamada lee el origen.
+     * Con un lector indexado no se carga nada.
+     */
+    public synchronized void cargar() {
+        if (cargado) {
+            return;
+        }
+        if (indexado) {
+            cargado = true;
+            return;
+        }
+        for (Usuario usuario : lector.leer()) {
+            if (usuario.getName() != null && usuarios.putIfAbsent(usuario.getName(), usuario) == null) {
+                orden.add(usuario);
+            }
+        }
+        cargado = true;
+    }
+
+    /**
+     * Busca un usuario por su nombre.
+     *
+     * @param nombre Nombre del usuario
+     * @return Usuario registrado o null si no existe
+     */
+    public Usuario buscar(String nombre) {
+        if (!cargado) {
+            cargar();
+        }
+        return indexado ? lector.buscarUsuario(nombre) : usuarios.get(nombre);
+    }
+
+    /**
+     * Verifica si existe un usuario con el nombre indicado.
+     *
+     * @param nombre Nombre del usuario
+     * @return true si el usuario está registrado
+     */
+    public boolean existe(String nombre) {
+        return buscar(nombre) != null;
+    }
+
+    /**
+     * Registra un usuario nuevo, lo entrega al guardador y programa el volcado.
+     * Si dos hilos registran el mismo nombre a la vez, solo uno lo consigue.
+     * Los registros se ordenan entre sí y con los volcados, pero no con los logins.
+     *
+     * @param usuario Usuario a registrar
+     * @return true si se ha registrado, false si el nombre ya existía
+     * @throws RuntimeException Si el guardador no puede guardar el registro
+     */
+    public boolean registrar(Usuario usuario) {
+        if (!cargado) {
+            cargar();
+        }
+        if (indexado) {
+            synchronized (escritura) {
+                if (lector.existeUsuario(usuario.getName())) {
+                    return false;
+                }
+                guardador.guardar(usuario);
+            }
+            return true;
+        }
+        synchronized (escritura) {
+            if (usuarios.putIfAbsent(usuario.getName(), usuario) != null) {
+                return false;
+            }
+            try {
+                guardador.guardar(usuario);
+            } catch (RuntimeException e) {
+                usuarios.remove(usuario.getName());
+                throw e;
+            }
+            orden.add(usuario);
+        }
+        if (sinVolcar.incrementAndGet() == UMBRAL_VOLCADO) {
+            volcador.execute(this::volcar);
+        } else if (pendiente.compareAndSet(false, true)) {
+            volcador.schedule(this::volcar, INTERVALO_VOLCADO_MS, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Vuelca al guardador la lista completa de usuarios si hay registros sin volcar.
+     * Si el volcado falla, los registros siguen pendientes y se reintentan
+     * en el siguiente volcado.
+     */
+    public void volcar() {
+        synchronized (escritura) {
+            pendiente.set(false);
+            int volcados = sinVolcar.get();
+            if (volcados == 0) {
+                return;
+            }
+            try {
+                guardador.guardar(new ArrayList<>(orden));
+                sinVolcar.addAndGet(-volcados);
+            } catch (RuntimeException e) {
+                System.err.println("Error volcando usuarios: " + e.getMessage());
+                if (pendiente.compareAndSet(false, true)) {
+                    volcador.schedule(this::volcar, INTERVALO_VOLCADO_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vuelca los registros pendientes y detiene el hilo de volcado.
+     */
+    public void detener() {
+        volcar();
+        volcador.shutdown();
+    }
+
+    /**
+     * Obtiene los usuarios del directorio en orden de carga y registro.
+     * Con un lector indexado recorre el almacén completo.
+     *
+     * @return Copia de la lista de usuarios
+     */
+    public List<Usuario> getUsuarios() {
+        if (!cargado) {
+            cargar();
+        }
+        return indexado ? lector.leer() : new ArrayList<>(orden);
+    }
+
+    /**
+     * Obtiene el número de usuarios, cargando el directorio si aún no se ha hecho.
+     *
+     * @return Número de usuarios registrados
+     */
+    public int getTamaño() {
+        if (!cargado) {
+            cargar();
+        }
+        return indexado ? lector.leer().size() : usuarios.size();
+    }
+
+    /**
+     * Indica si el directorio busca en el almacén sin cargarlo en memoria.
+     *
+     * @return true si las búsquedas se delegan en un lector indexado
+     */
+    public boolean esIndexado() {
+        return indexado;
+    }
+
+    /**
+     * Indica si quedan usuarios registrados pendientes de volcar a disco.
+     *
+     * @return true si hay registros que aún no se han volcado
+     */
+    public boolean hayPendientes() {
+        return sinVolcar.get() > 0;
+    }
+}
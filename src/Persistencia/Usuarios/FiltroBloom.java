@@ -0,0 +1,93 @@
+package Persistencia.Usuarios;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre nombres de usuario.
+ * Responde "seguro que no está" sin falsos negativos, con una tasa de falsos
+ * positivos de alrededor del 1% mientras no se supere la capacidad indicada.
+ *
+ * Las consultas no toman bloqueos y pueden hacerse mientras otro hilo añade nombres.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+final class FiltroBloom {
+
+    /** Bits por elemento para una tasa de falsos positivos del 1% */
+    private static final int BITS_POR_ELEMENTO = 10;
+    /** Número de funciones hash */
+    private static final int FUNCIONES = 7;
+
+    /** Bits del filtro agrupados en palabras de 64 bits */
+    private final AtomicLongArray palabras;
+    /** Número total de bits */
+    private final long bits;
+
+    /**
+     * Constructor que dimensiona el filtro para el número de nombres indicado.
+     *
+     * @param capacidad Número de nombres previsto
+     */
+    FiltroBloom(int capacidad) {
+        long deseados = Math.max(64L, (long) Math.max(capacidad, 1) * BITS_POR_ELEMENTO);
+        int numPalabras = (int) Math.min(Integer.MAX_VALUE - 8, (deseados + 63) / 64);
+        this.palabras = new AtomicLongArray(numPalabras);
+        this.bits = numPalabras * 64L;
+    }
+
+    /**
+     * Añade un nombre al filtro.
+     *
+     * @param nombre Nombre de usuario
+     */
+    void añadir(String nombre) {
+        long hash = hash(nombre);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < FUNCIONES; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            while (((actual = palabras.get(palabra)) & mascara) == 0
+                    && !palabras.compareAndSet(palabra, actual, actual | mascara)) {
+                // reintentar con la palabra actualizada
+            }
+        }
+    }
+
+    /**
+     * Indica si el nombre puede estar en el filtro.
+     *
+     * @param nombre Nombre de usuario
+     * @return false si el nombre seguro que no se ha añadido; true si puede haberse añadido
+     */
+    boolean puedeContener(String nombre) {
+        long hash = hash(nombre);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < FUNCIONES; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcula un hash FNV-1a de 64 bits sobre los caracteres del nombre.
+     *
+     * @param nombre Nombre de usuario
+     * @return Hash de 64 bits
+     */
+    private static long hash(String nombre) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < nombre.length(); i++) {
+            hash ^= nombre.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ (hash >>> 29);
+    }
+}
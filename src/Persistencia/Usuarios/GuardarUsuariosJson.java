@@ -4,6 +4,7 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import com.google.gson.Gson;
@@ -186,14 +187,17 @@ public class GuardarUsuariosJson implements GuardarUsuarios {
     
     /**
      * Escribe contenido al archivo de usuarios.
-     * Sobrescribe el archivo existente con el nuevo contenido.
+     * El contenido se escribe en un archivo temporal que después sustituye al
+     * existente, de modo que una escritura interrumpida no deja el archivo a medias.
      * 
      * @param contenido Contenido JSON a escribir
      * @throws IOException Si ocurre un error de escritura
      */
     private void escribirArchivo(String contenido) throws IOException {
-        try (FileWriter writer = new FileWriter(archivoPath.toFile(), false)) {
+        Path temporal = archivoPath.resolveSibling(archivoPath.getFileName() + ".tmp");
+        try (FileWriter writer = new FileWriter(temporal.toFile(), false)) {
             writer.write(contenido);
         }
+        Files.move(temporal, archivoPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 }
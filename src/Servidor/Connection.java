@@ -4,10 +4,13 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
 import java.util.List;
+import java.util.function.Supplier;
 
 import Cliente.Usuario;
+import Partida.FasePartida;
 import Partida.Partida;
-import Tablero.Tablero;
+import Partida.SesionJugador;
+import Sistema.AmbitoTareas;
 
 /**
  * Clase que maneja la conexión individual de cada cliente al servidor.
@@ -17,7 +20,7 @@ import Tablero.Tablero;
  * 
  * Funcionalidades principales:
  * - Autenticación de usuarios (login/registro)
- * - Gestión de comandos de partida (crear, unirse, estado)
+ * - Gestión de comandos de partida (crear, unirse, reanudar, estado)
  * - Manejo de la fase de colocación de barcos
  * - Procesamiento de ataques y notificaciones
  * - Limpieza automática de recursos al desconectar
@@ -25,7 +28,7 @@ import Tablero.Tablero;
  * @author Sistema Hundir la Flota
  * @version 1.0
  */
-class Connection extends Thread {
+class Connection extends Thread implements SesionJugador {
     
     /** Flujo de entrada de datos desde el cliente */
     private DataInputStream entrada;
@@ -37,6 +40,8 @@ class Connection extends Thread {
     private Usuario usuarioActual;
     /** ID de la partida actual del usuario */
     private String partidaActual;
+    /** Ámbito de las tareas en segundo plano de esta conexión; se cancela al desconectar */
+    private final AmbitoTareas tareas = new AmbitoTareas("Conexion");
     
     /**
      * Constructor que inicializa una nueva conexión con un cliente.
@@ -77,6 +82,8 @@ class Connection extends Thread {
             salida.flush();
             
             Servidor.registrarConexion(usuarioActual.getName(), this);
+            // Al volver a conectarse se retoma la partida en curso, si la hay
+            partidaActual = Servidor.retomarPartida(usuarioActual);
             
             while(!fin && usuarioActual != null) {
                 try {
@@ -96,6 +103,10 @@ class Connection extends Thread {
                             unirseAPartidaSeleccionada(idPartida);
                             break;
                             
+                        case "reanudar_partida":
+                            reanudarPartida();
+                            break;
+                            
                         case "iniciar_colocacion":
                             iniciarFaseColocacion();
                             break;
@@ -104,6 +115,14 @@ class Connection extends Thread {
                             procesarColocacionBarco();
                             break;
                             
+                        case "colocacion_automatica":
+                            procesarColocacionAutomatica();
+                            break;
+                            
+                        case "posiciones_legales":
+                            enviarPosicionesLegales();
+                            break;
+                            
                         case "finalizar_colocacion":
                             finalizarColocacionBarcos();
                             break;
@@ -118,7 +137,13 @@ class Connection extends Thread {
                             break;
                             
                         case "comprobar_listo":
-                            boolean ambosListos = Servidor.ambosJugadoresListos(partidaActual);
+                            boolean ambosListos = enPartida(() -> {
+                                if (!Servidor.ambosJugadoresListos(partidaActual)) {
+                                    return false;
+                                }
+                                Servidor.iniciarCombate(partidaActual);
+                                return true;
+                            });
                             if (ambosListos) {
                                 enviarPartidaReady();
                             } else {
@@ -131,6 +156,15 @@ class Connection extends Thread {
                             procesarAtaque();
                             break;
                             
+                        case "secuencia_turno":
+                            if (partidaActual == null) {
+                                salida.writeUTF("error:No estás en ninguna partida");
+                            } else {
+                                salida.writeUTF("secuencia_turno:" + Servidor.obtenerSecuenciaTurno(partidaActual));
+                            }
+                            salida.flush();
+                            break;
+                            
                         case "quien_empieza":
                             if (Servidor.esTurnoDeUsuario(partidaActual, usuarioActual)) {
                                 salida.writeUTF("tu_turno");
@@ -220,8 +254,9 @@ class Connection extends Thread {
      * @throws IOException Si ocurre un error de comunicación
      */
     private boolean procesarRegistro(String nombre, String contraseña) throws IOException {
-        if (Servidor.registrarUsuario(nombre, contraseña)) {
-            usuarioActual = new Usuario(nombre, contraseña);
+        Usuario registrado = Servidor.registrarUsuario(nombre, contraseña);
+        if (registrado != null) {
+            usuarioActual = registrado;
             Servidor.conectarUsuario(nombre, usuarioActual);
             salida.writeUTF("auth_success:Usuario registrado correctamente");
             return true;
@@ -312,6 +347,24 @@ class Connection extends Thread {
         salida.flush();
     }
     
+    /**
+     * Retoma la partida en curso del usuario, por ejemplo una partida recuperada
+     * tras reiniciar el servidor, y envía al cliente su ID y su fase.
+     * 
+     * @throws IOException Si ocurre un error de comunicación
+     */
+    private void reanudarPartida() throws IOException {
+        String idPartida = Servidor.retomarPartida(usuarioActual);
+        Partida partida = idPartida != null ? Servidor.obtenerPartida(idPartida) : null;
+        if (partida == null) {
+            salida.writeUTF("error:No tienes ninguna partida en curso");
+        } else {
+            partidaActual = idPartida;
+            salida.writeUTF("partida_reanudada:" + idPartida + ":" + partida.getFase());
+        }
+        salida.flush();
+    }
+    
     /**
      * Une al usuario a una partida específica seleccionada.
      * Valida que la partida exista y tenga espacio disponible.
@@ -375,18 +428,19 @@ class Connection extends Thread {
     }
     
     /**
-     * Inicia un hilo separado para esperar que se una un rival a la partida.
+     * Inicia una tarea en el ámbito de la conexión para esperar que se una un rival a la partida.
      * Monitorea periódicamente si la partida se ha completado con un segundo jugador.
+     * La espera termina en cuanto se cancela el ámbito al desconectar el cliente.
      * 
      * @param idPartida ID de la partida que espera rival
      */
     private void esperarRival(String idPartida) {
-        new Thread(() -> {
+        tareas.lanzar("EsperarRival-" + idPartida, () -> {
             try {
                 int intentos = 0;
                 final int MAX_INTENTOS = 150;
                 
-                while (intentos < MAX_INTENTOS) {
+                while (intentos < MAX_INTENTOS && !tareas.isCancelado()) {
                     Thread.sleep(2000);
                     intentos++;
                     
@@ -398,7 +452,7 @@ class Connection extends Thread {
                         break;
                     }
                     
-                    if (partida.getUsuarioRival() != null) {
+                    if (partida.getFase() != FasePartida.LOBBY) {
                         System.out.println("Rival encontrado para partida " + idPartida);
                         notificarPartidaCompleta(partida);
                         break;
@@ -410,7 +464,12 @@ class Connection extends Thread {
                     salida.flush();
                 }
                 
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
+                if (tareas.isCancelado()) {
+                    return;
+                }
                 System.err.println("Error esperando rival: " + e.getMessage());
                 try {
                     salida.writeUTF("error:Error interno esperando rival");
@@ -419,7 +478,7 @@ class Connection extends Thread {
                     System.err.println("Error enviando mensaje de error: " + ex.getMessage());
                 }
             }
-        }, "EsperarRival-" + idPartida).start();
+        });
     }
     
     /**
@@ -496,14 +555,19 @@ class Connection extends Thread {
         int fila = Integer.parseInt(filaStr);
         int columna = Integer.parseInt(columnaStr);
 
-        if (!Servidor.puedeColocarBarco(partidaActual, usuarioActual, tipoBarco)) {
+        Boolean colocado = enPartida(() -> {
+            if (!Servidor.puedeColocarBarco(partidaActual, usuarioActual, tipoBarco)) {
+                return null;
+            }
+            return Servidor.colocarBarco(partidaActual, usuarioActual, tipoBarco, fila, columna, orientacion);
+        });
+
+        if (colocado == null) {
             salida.writeUTF("error_colocacion:Límite alcanzado para " + tipoBarco);
             salida.flush();
             return;
         }
 
-        boolean colocado = Servidor.colocarBarco(partidaActual, usuarioActual, tipoBarco, fila, columna, orientacion);
-
         if (colocado) {
             salida.writeUTF("barco_colocado:Barco " + tipoBarco + " colocado correctamente en (" + fila + "," + columna + ")");
             salida.flush();
@@ -518,6 +582,65 @@ class Connection extends Thread {
         }
     }
     
+    /**
+     * Completa aleatoriamente la flota del usuario en el servidor.
+     * Responde con las colocaciones realizadas, separadas por "|", y con los
+     * barcos restantes igual que tras una colocación manual.
+     * 
+     * @throws IOException Si ocurre un error de comunicación
+     */
+    private void procesarColocacionAutomatica() throws IOException {
+        if (partidaActual == null) {
+            salida.writeUTF("error_colocacion:No estás en ninguna partida");
+            salida.flush();
+            return;
+        }
+
+        List<String> colocaciones = enPartida(() -> Servidor.colocacionAutomatica(partidaActual, usuarioActual));
+        if (colocaciones == null) {
+            salida.writeUTF("error_colocacion:No se pudo completar la flota automáticamente");
+            salida.flush();
+            return;
+        }
+
+        salida.writeUTF("colocacion_automatica:" + String.join("|", colocaciones));
+        salida.flush();
+
+        String restantes = Servidor.obtenerBarcosRestantes(partidaActual, usuarioActual);
+        salida.writeUTF("barcos_restantes:" + restantes);
+        salida.flush();
+    }
+    
+    /**
+     * Envía al cliente las casillas donde puede empezar un barco del tipo y
+     * orientación solicitados, como pares "fila,columna" separados por "|".
+     * 
+     * @throws IOException Si ocurre un error de comunicación
+     */
+    private void enviarPosicionesLegales() throws IOException {
+        String tipoBarco = entrada.readUTF();
+        String orientacion = entrada.readUTF();
+
+        if (partidaActual == null) {
+            salida.writeUTF("error_colocacion:No estás en ninguna partida");
+            salida.flush();
+            return;
+        }
+
+        long legales = Servidor.obtenerPosicionesLegales(partidaActual, usuarioActual, tipoBarco, orientacion);
+        StringBuilder posiciones = new StringBuilder("posiciones_legales:");
+        while (legales != 0L) {
+            int anclaje = Long.numberOfTrailingZeros(legales);
+            if (posiciones.length() > "posiciones_legales:".length()) {
+                posiciones.append('|');
+            }
+            posiciones.append(anclaje / 8).append(',').append(anclaje % 8);
+            legales &= legales - 1;
+        }
+        salida.writeUTF(posiciones.toString());
+        salida.flush();
+    }
+    
     /**
      * Valida que los datos de entrada para colocación de barco sean correctos.
      * Verifica tipo de barco, coordenadas dentro del tablero y orientación válida.
@@ -601,10 +724,6 @@ class Connection extends Thread {
         }
         
         Partida partida = Servidor.obtenerPartida(partidaActual);
-        if (partida != null) {
-        partida.inicializarTurno(); 
-        }
-        
         if (partida == null) {
             salida.writeUTF("error:Partida no encontrada");
             salida.flush();
@@ -616,7 +735,7 @@ class Connection extends Thread {
             boolean ambosListos = false;
             
             try {
-                finalizado = Servidor.finalizarColocacionUsuario(partidaActual, usuarioActual);
+                finalizado = enPartida(() -> Servidor.finalizarColocacionUsuario(partidaActual, usuarioActual));
             } catch (Exception e) {
                 System.err.println("Método finalizarColocacionUsuario no implementado: " + e.getMessage());
                 finalizado = true;
@@ -631,6 +750,7 @@ class Connection extends Thread {
                 }
                 
                 if (ambosListos) {
+                    enPartida(() -> Servidor.iniciarCombate(partidaActual));
                     salida.writeUTF("partida_ready:Ambos jugadores listos - ¡Comienza la batalla!");
                 } else {
                     salida.writeUTF("colocacion_finalizada:Esperando que el rival termine de colocar...");
@@ -673,20 +793,12 @@ class Connection extends Thread {
         
         if (ambosListos) {
             Servidor.guardarPartida(partidaActual);
+            Servidor.iniciarCombate(partidaActual);
 
-            Partida partida = Servidor.obtenerPartida(partidaActual);
-            if (partida != null) {
-                partida.inicializarTurno();
-            }
-
-            Connection conn1 = this;
-            Connection conn2 = Servidor.getConexionRival(partidaActual, usuarioActual);
-
-            if (conn1 != null) {
-                conn1.enviarPartidaReady();
-            }
-            if (conn2 != null) {
-                conn2.enviarPartidaReady();
+            enviarPartidaReady();
+            SesionJugador sesionRival = Servidor.getSesionRival(partidaActual, usuarioActual);
+            if (sesionRival != null) {
+                sesionRival.enviarPartidaReady();
             }
         } else {
             salida.writeUTF("colocacion_finalizada:Esperando que el rival termine de colocar...");
@@ -700,8 +812,21 @@ class Connection extends Thread {
      * 
      * @throws IOException Si ocurre un error de comunicación
      */
+    @Override
     public void enviarPartidaReady() throws IOException {
-        salida.writeUTF("partida_ready:Ambos jugadores listos - ¡Comienza la batalla!");
+        enviarMensaje("partida_ready:Ambos jugadores listos - ¡Comienza la batalla!");
+    }
+
+    /**
+     * Envía un mensaje a este cliente.
+     * Método público para ser llamado desde la conexión del rival.
+     * 
+     * @param mensaje Mensaje del protocolo a enviar
+     * @throws IOException Si ocurre un error de comunicación
+     */
+    @Override
+    public void enviarMensaje(String mensaje) throws IOException {
+        salida.writeUTF(mensaje);
         salida.flush();
     }
     
@@ -712,6 +837,11 @@ class Connection extends Thread {
      */
     private void limpiarRecursos() {
         
+        int canceladas = tareas.cancelar();
+        if (canceladas > 0) {
+            System.out.println("Tareas canceladas al desconectar: " + tareas);
+        }
+        
         if (usuarioActual != null) {
             try {
                 Servidor.desconectarUsuario(usuarioActual.getName());
@@ -781,64 +911,89 @@ class Connection extends Thread {
 
     /**
      * Procesa un ataque del usuario hacia el rival.
-     * Valida que sea el turno del usuario, ejecuta el ataque y notifica el resultado.
+     * Las coordenadas llegan como "fila,columna" o "fila,columna,secuencia",
+     * traspuestas respecto a la matriz del tablero: el primer valor es la
+     * columna de la matriz y el segundo su fila. Con secuencia, un reintento de un ataque ya aceptado recibe el resultado
+     * original sin volver a aplicarse; sin ella se usa el turno actual.
      * 
      * @throws IOException Si ocurre un error de comunicación
      */
     private void procesarAtaque() throws IOException {
         String coords = entrada.readUTF();
         String[] partes = coords.split(",");
-        int fila = Integer.parseInt(partes[0]);
-        int columna = Integer.parseInt(partes[1]);
+        int columna = Integer.parseInt(partes[0]);
+        int fila = Integer.parseInt(partes[1]);
+        long secuencia = partes.length > 2
+            ? Long.parseLong(partes[2].trim())
+            : Servidor.obtenerSecuenciaTurno(partidaActual);
 
-        if (!Servidor.esTurnoDeUsuario(partidaActual, usuarioActual)) {
-            salida.writeUTF("error:No es tu turno");
+        // La partida se obtiene antes del ataque: si termina, la persistencia la retira de las activas
+        Partida partida = Servidor.obtenerPartida(partidaActual);
+        String[] respuesta = enPartida(() -> {
+            String repetido = Servidor.obtenerAtaqueRepetido(partidaActual, usuarioActual, secuencia);
+            if (repetido != null) {
+                return new String[] { repetido, null };
+            }
+            return new String[] { null, Servidor.procesarAtaque(partidaActual, usuarioActual, fila, columna, secuencia) };
+        });
+        if (respuesta[0] != null) {
+            salida.writeUTF("resultado_ataque:" + respuesta[0]);
             salida.flush();
             return;
         }
 
-        String resultado = Servidor.procesarAtaque(partidaActual, usuarioActual, fila, columna);
+        String resultado = respuesta[1];
+        if (resultado == null) {
+            salida.writeUTF("error:No es tu turno");
+            salida.flush();
+            return;
+        }
 
         salida.writeUTF("resultado_ataque:" + resultado);
         salida.flush();
 
-        Connection rivalConn = Servidor.getConexionRival(partidaActual, usuarioActual);
-        if (rivalConn != null) {
-            rivalConn.notificarAtaqueRecibido(fila, columna, resultado);
-        }
-
-        Partida partida = Servidor.obtenerPartida(partidaActual);
-        if (partida != null) {
-            Usuario rival = usuarioActual.equals(partida.getUsuarioPrincipal())
-                ? partida.getUsuarioRival()
-                : partida.getUsuarioPrincipal();
-            Tablero tableroRival = partida.getTableroJugador(rival);
-            if (tableroRival != null && tableroRival.todosBarcosHundidos()) {
-                salida.writeUTF("fin_partida:¡Has ganado! Todos los barcos rivales han sido hundidos.");
-                salida.flush();
-                if (rivalConn != null) {
-                    rivalConn.getSalida().writeUTF("fin_partida:¡Has perdido! Todos tus barcos han sido hundidos.");
-                    rivalConn.getSalida().flush();
-                }
-                Servidor.finalizarPartida(partidaActual);
-                return;
-            }
+        if (partida != null && partida.getFase() == FasePartida.FINISHED && usuarioActual.equals(partida.getGanador())) {
+            salida.writeUTF("fin_partida:¡Has ganado! Todos los barcos rivales han sido hundidos.");
+            salida.flush();
         }
+    }
 
-        Servidor.cambiarTurno(partidaActual);
+    /**
+     * Ejecuta un comando de la partida actual en el bucle de eventos al que está fijada.
+     * Los argumentos del comando se leen antes en el hilo de la conexión y la respuesta
+     * se escribe después, de modo que el bucle no espera nunca al socket.
+     * El bucle solo añade los registros del comando al diario y devuelve su lote;
+     * la espera a que el lote llegue a disco se hace aquí, antes de responder,
+     * de modo que el bucle tampoco espera nunca al disco.
+     * 
+     * @param comando Comando a ejecutar sobre la partida actual
+     * @return Resultado del comando
+     */
+    private <T> T enPartida(Supplier<T> comando) {
+        String idPartida = partidaActual;
+        long[] lote = new long[1];
+        T resultado = Servidor.getPlanificador().ejecutar(idPartida, () -> {
+            T valor = comando.get();
+            lote[0] = Servidor.obtenerLoteDiario(idPartida);
+            return valor;
+        });
+        Servidor.esperarDiario(idPartida, lote[0]);
+        return resultado;
     }
 
     /**
      * Notifica a este cliente que ha recibido un ataque del rival.
-     * Envía las coordenadas atacadas y el resultado del ataque.
+     * Envía las coordenadas atacadas en el orden del protocolo, traspuestas
+     * respecto a la matriz del tablero como en procesarAtaque, y el resultado.
      * 
-     * @param fila Fila atacada por el rival
-     * @param columna Columna atacada por el rival
+     * @param fila Fila de la matriz del tablero atacada por el rival
+     * @param columna Columna de la matriz del tablero atacada por el rival
      * @param resultado Resultado del ataque (agua, tocado, hundido)
      */
+    @Override
     public void notificarAtaqueRecibido(int fila, int columna, String resultado) {
         try {
-            salida.writeUTF("ataque_recibido:" + fila + "," + columna + "," + resultado);
+            salida.writeUTF("ataque_recibido:" + columna + "," + fila + "," + resultado);
             salida.flush();
         } catch (IOException e) {
             System.err.println("Error notificando ataque recibido al rival: " + e.getMessage());
@@ -0,0 +1,32 @@
+package Servidor;
+
+import Eventos.ConsumidorEventos;
+import Eventos.EventoPartida;
+import Eventos.TipoEvento;
+
+/**
+ * Consumidor de eventos que persiste las partidas fuera del hilo de juego.
+ * Mientras se juega, cada colocación y cada ataque quedan en el diario de la
+ * partida, por lo que no hace falta guardar instantáneas intermedias: al
+ * terminar una partida se finaliza en el servidor, que guarda la instantánea
+ * completa, borra el diario y la retira de las partidas activas.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+class PersistenciaEventos implements ConsumidorEventos {
+
+    /**
+     * Finaliza en el servidor las partidas terminadas.
+     *
+     * @param evento Evento a procesar
+     * @param secuencia Número de secuencia del evento
+     * @param finDeLote true si es el último evento del lote
+     */
+    @Override
+    public void alEvento(EventoPartida evento, long secuencia, boolean finDeLote) {
+        if (evento.getTipo() == TipoEvento.FIN_PARTIDA) {
+            Servidor.finalizarPartida(evento.getIdPartida());
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package Servidor;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Planificador que reparte las partidas entre varios bucles de eventos.
+ * Cada bucle tiene un único hilo y su propia cola; una partida queda fijada a un
+ * bucle según el hash de su ID, de modo que todos los comandos de esa partida se
+ * procesan en el mismo hilo, en orden y sin competir con los de otras partidas.
+ *
+ * El número de bucles se configura con la propiedad del sistema "hundir.shards"
+ * y por defecto es el número de procesadores disponibles. Cada bucle lleva
+ * métricas de profundidad de cola para detectar los que están saturados.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class PlanificadorPartidas {
+
+    /** Propiedad del sistema con el número de bucles */
+    public static final String PROPIEDAD_SHARDS = "hundir.shards";
+
+    /** Bucles de eventos, uno por shard */
+    private final Bucle[] bucles;
+    /** Indica si el planificador se ha detenido */
+    private volatile boolean detenido;
+
+    /**
+     * Constructor que crea tantos bucles como indique la propiedad "hundir.shards"
+     * o, si no está definida, uno por procesador disponible.
+     */
+    public PlanificadorPartidas() {
+        this(Integer.getInteger(PROPIEDAD_SHARDS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Constructor que crea el número de bucles indicado y arranca sus hilos.
+     *
+     * @param shards Número de bucles de eventos
+     * @throws IllegalArgumentException Si el número de bucles no es positivo
+     */
+    public PlanificadorPartidas(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("El número de shards debe ser positivo: " + shards);
+        }
+        this.bucles = new Bucle[shards];
+        for (int i = 0; i < shards; i++) {
+            bucles[i] = new Bucle("Partidas-" + i);
+            bucles[i].hilo.start();
+        }
+    }
+
+    /**
+     * Obtiene el shard al que está fijada una partida.
+     *
+     * @param idPartida ID de la partida
+     * @return Índice del bucle que procesa la partida
+     */
+    public int getShard(String idPartida) {
+        int hash = idPartida.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), bucles.length);
+    }
+
+    /**
+     * Ejecuta un comando en el bucle de su partida y espera su resultado.
+     * Sin partida, con el planificador detenido o desde el propio hilo del
+     * bucle, el comando se ejecuta directamente en el hilo que llama.
+     *
+     * @param idPartida ID de la partida o null
+     * @param comando Comando a ejecutar
+     * @return Resultado del comando
+     * @throws IllegalStateException Si el hilo que espera es interrumpido
+     */
+    public <T> T ejecutar(String idPartida, Supplier<T> comando) {
+        if (idPartida == null || detenido) {
+            return comando.get();
+        }
+        Bucle bucle = bucles[getShard(idPartida)];
+        if (Thread.currentThread() == bucle.hilo) {
+            return comando.get();
+        }
+
+        FutureTask<T> tarea = new FutureTask<>(comando::get);
+        bucle.encolar(tarea);
+        try {
+            return tarea.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando a la partida " + idPartida, e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    /**
+     * Encola un comando en el bucle de su partida sin esperar a que se ejecute.
+     * Sirve a los hilos que no deben bloquearse en un bucle, como los
+     * consumidores del bus de eventos. Sin partida, con el planificador
+     * detenido o desde el propio hilo del bucle, el comando se ejecuta
+     * directamente en el hilo que llama. Los errores del comando se registran.
+     *
+     * @param idPartida ID de la partida o null
+     * @param comando Comando a ejecutar
+     */
+    public void enviar(String idPartida, Runnable comando) {
+        Runnable protegido = () -> {
+            try {
+                comando.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en comando de la partida " + idPartida + ": " + e.getMessage());
+            }
+        };
+        if (idPartida == null || detenido) {
+            protegido.run();
+            return;
+        }
+        Bucle bucle = bucles[getShard(idPartida)];
+        if (Thread.currentThread() == bucle.hilo) {
+            protegido.run();
+            return;
+        }
+        bucle.encolar(protegido);
+    }
+
+    /**
+     * Obtiene el número de bucles de eventos entre los que se reparten las partidas.
+     *
+     * @return Número de bucles de eventos
+     */
+    public int getShards() {
+        return bucles.length;
+    }
+
+    /**
+     * Obtiene el número de comandos en cola de un shard.
+     *
+     * @param shard Índice del bucle
+     * @return Comandos pendientes en la cola del bucle
+     */
+    public int getProfundidad(int shard) {
+        return bucles[shard].cola.size();
+    }
+
+    /**
+     * Obtiene la mayor profundidad de cola observada en un shard.
+     *
+     * @param shard Índice del bucle
+     * @return Profundidad máxima de la cola del bucle
+     */
+    public int getProfundidadMaxima(int shard) {
+        return bucles[shard].profundidadMaxima.get();
+    }
+
+    /**
+     * Obtiene el número de comandos procesados por un shard.
+     *
+     * @param shard Índice del bucle
+     * @return Comandos procesados por el bucle
+     */
+    public long getProcesados(int shard) {
+        return bucles[shard].procesados.get();
+    }
+
+    /**
+     * Obtiene un resumen de las colas de todos los shards.
+     *
+     * @return String con la profundidad actual, la máxima y los comandos procesados de cada shard
+     */
+    public String getMetricas() {
+        StringBuilder resumen = new StringBuilder("Shards: ").append(bucles.length);
+        for (int i = 0; i < bucles.length; i++) {
+            resumen.append(" | ").append(i)
+                   .append(": cola=").append(getProfundidad(i))
+                   .append(" max=").append(getProfundidadMaxima(i))
+                   .append(" procesados=").append(getProcesados(i));
+        }
+        return resumen.toString();
+    }
+
+    /**
+     * Detiene los hilos de los bucles. Los comandos posteriores se ejecutan
+     * directamente en el hilo que los envía.
+     */
+    public void detener() {
+        detenido = true;
+        for (Bucle bucle : bucles) {
+            bucle.hilo.interrupt();
+        }
+    }
+
+    /**
+     * Bucle de eventos de un shard: un hilo que procesa en orden los comandos de su cola.
+     */
+    private final class Bucle implements Runnable {
+
+        /** Cola de comandos pendientes */
+        private final LinkedBlockingQueue<Runnable> cola = new LinkedBlockingQueue<>();
+        /** Mayor profundidad de cola observada */
+        private final AtomicInteger profundidadMaxima = new AtomicInteger();
+        /** Comandos procesados */
+        private final AtomicLong procesados = new AtomicLong();
+        /** Hilo del bucle */
+        private final Thread hilo;
+
+        /**
+         * Constructor que crea el hilo del bucle sin arrancarlo.
+         *
+         * @param nombre Nombre del hilo
+         */
+        Bucle(String nombre) {
+            this.hilo = new Thread(this, nombre);
+            this.hilo.setDaemon(true);
+        }
+
+        /**
+         * Añade un comando a la cola y actualiza la profundidad máxima.
+         *
+         * @param tarea Comando a encolar
+         */
+        void encolar(Runnable tarea) {
+            cola.add(tarea);
+            int profundidad = cola.size();
+            int maxima;
+            while (profundidad > (maxima = profundidadMaxima.get())
+                    && !profundidadMaxima.compareAndSet(maxima, profundidad)) {
+                // reintentar con el nuevo máximo
+            }
+        }
+
+        /**
+         * Procesa los comandos de la cola hasta que se detiene el planificador.
+         */
+        @Override
+        public void run() {
+            try {
+                while (!detenido) {
+                    Runnable tarea = cola.take();
+                    tarea.run();
+                    procesados.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Runnable pendiente;
+            while ((pendiente = cola.poll()) != null) {
+                pendiente.run();
+            }
+        }
+    }
+}
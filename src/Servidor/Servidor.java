@@ -1,33 +1,47 @@
 package Servidor;
 import java.net.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import Barcos.*;
 import Cliente.Usuario;
-import Estados.Estado;
+import Eventos.BusEventosPartida;
+import Eventos.MetricasEventos;
+import Eventos.NotificadorRival;
+import Eventos.TipoEvento;
+import Motor.MotorJuego;
+import Partida.FasePartida;
+import Partida.InstantaneaPartida;
 import Partida.Partida;
+import Partida.SesionJugador;
 import Persistencia.Estrategias.GuardadoSimple;
 import Persistencia.Estrategias.LecturaSimple;
-import Persistencia.Usuarios.LeerUsuariosJson;
+import Persistencia.Partidas.CachePartidas;
+import Persistencia.Partidas.DiarioPartidas;
+import Persistencia.Partidas.RecuperacionPartidas;
+import Persistencia.Partidas.RegistrosPartida;
+import Persistencia.Usuarios.AlmacenUsuariosMapeado;
+import Persistencia.Usuarios.DiarioUsuarios;
+import Persistencia.Usuarios.DirectorioUsuarios;
+import Sistema.AmbitoTareas;
 import Sistema.EstadoColocacion;
 import Sistema.ContadorBarcosJugador;
 import Sistema.TipoBarco;
 import Sistema.ValidadorColocacion;
 import Sistema.FabricaBarcos;
-import Persistencia.Usuarios.GuardarUsuariosJson;
-import Tablero.Casilla;
-import Tablero.Coordenadas;
+import Sistema.GeneradorFlota;
+import Tablero.PoolTableros;
 import Tablero.Tablero;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 
 /**
  * Clase principal del servidor del juego Hundir la Flota.
@@ -56,6 +70,10 @@ public class Servidor {
     private static final GuardadoSimple guardar = GuardadoSimple.getInstancia();
     /** Instancia singleton para operaciones de lectura */
     private static final LecturaSimple leer = LecturaSimple.getInstancia();
+    /** Propiedad del sistema que selecciona el almacén de usuarios ("json" o "mapeado") */
+    public static final String PROPIEDAD_USUARIOS = "hundir.usuarios";
+    /** Directorio de los usuarios registrados */
+    private static final DirectorioUsuarios directorioUsuarios = crearDirectorioUsuarios();
     
     /** Mapa de partidas activas indexadas por ID */
     private static final ConcurrentHashMap<String, Partida> partidasActivas = new ConcurrentHashMap<>();
@@ -65,18 +83,181 @@ public class Servidor {
     private static final ConcurrentHashMap<String, EstadoColocacion> estadosColocacion = new ConcurrentHashMap<>();
     /** Mapa de conexiones activas indexadas por nombre de usuario */
     private static final ConcurrentHashMap<String, Connection> conexionesActivas = new ConcurrentHashMap<>();
+    /** Bus de eventos de partida; los efectos secundarios de cada comando se procesan en sus consumidores */
+    private static final BusEventosPartida eventos = new BusEventosPartida();
+    /** Consumidor que cuenta los eventos procesados */
+    private static final MetricasEventos metricasEventos = new MetricasEventos();
+    /** Motor con las reglas del juego */
+    private static final MotorJuego motor = MotorJuego.getInstancia();
+    /** Diario de movimientos de las partidas en curso */
+    private static final DiarioPartidas diarioPartidas = new DiarioPartidas("partidas/diarios");
+    /** Bucles de eventos que procesan los comandos de cada partida */
+    private static final PlanificadorPartidas planificador = new PlanificadorPartidas();
+    /** Propiedad del sistema con los minutos que una partida recuperada espera a sus jugadores */
+    public static final String PROPIEDAD_PLAZO_RECUPERADAS = "hundir.plazoRecuperadas";
+    /** Minutos que una partida recuperada espera a sus jugadores si no se configura otro plazo */
+    private static final long PLAZO_RECUPERADAS_MINUTOS = 10;
+    /** Partidas recuperadas al arrancar que aún no ha retomado ningún jugador */
+    private static final Set<String> recuperadasSinRetomar = ConcurrentHashMap.newKeySet();
+
+    static {
+        eventos.registrar("NotificadorRival", new NotificadorRival());
+        eventos.registrar("Persistencia", new PersistenciaEventos());
+        eventos.registrar("Metricas", metricasEventos);
+    }
+
+    /**
+     * Crea el directorio de usuarios sobre el almacén seleccionado con PROPIEDAD_USUARIOS.
+     * Por defecto los usuarios se guardan en usuarios.json con un diario de registros
+     * y se mantienen en memoria. Con "mapeado" se usa un AlmacenUsuariosMapeado en
+     * usuarios.idx, que la primera vez importa los usuarios de usuarios.json.
+     *
+     * @return Directorio de usuarios
+     */
+    private static DirectorioUsuarios crearDirectorioUsuarios() {
+        DiarioUsuarios diario = new DiarioUsuarios("usuarios.diario", leer.getUsuarios(), guardar.setUsuarios());
+        if (!"mapeado".equalsIgnoreCase(System.getProperty(PROPIEDAD_USUARIOS))) {
+            return new DirectorioUsuarios(diario, diario);
+        }
+        AlmacenUsuariosMapeado almacen = new AlmacenUsuariosMapeado("usuarios.idx");
+        if (almacen.getNumeroUsuarios() == 0) {
+            List<Usuario> existentes = diario.leer();
+            if (!existentes.isEmpty()) {
+                almacen.guardar(existentes);
+            }
+        }
+        return new DirectorioUsuarios(almacen, almacen);
+    }
 
     /**
      * Método principal que inicia el servidor.
-     * Carga usuarios existentes e inicia el servidor TCP.
+     * Carga usuarios existentes, recupera las partidas en curso e inicia el servidor TCP.
      * 
      * @param args Argumentos de línea de comandos (no utilizados)
      */
     public static void main(String[] args) {
         cargarUsuariosExistentes();
+        recuperarPartidas();
         iniciarServidor();
+        directorioUsuarios.detener();
+        guardar.detener();
+        diarioPartidas.detener();
     }
     
+    /**
+     * Recupera las partidas que estaban en curso cuando se detuvo el servidor.
+     * Cada partida se reconstruye reproduciendo su diario y vuelve a las partidas
+     * activas con su estado de colocación; los jugadores la retoman al volver a
+     * conectarse. Las que ningún jugador retoma dentro del plazo configurado con
+     * PROPIEDAD_PLAZO_RECUPERADAS se dan por abandonadas. Las partidas que
+     * terminaron sin llegar a guardar su instantánea se guardan ahora y se borra
+     * su diario.
+     */
+    private static void recuperarPartidas() {
+        RecuperacionPartidas.Resultado resultado = new RecuperacionPartidas(diarioPartidas).recuperar();
+        for (Map.Entry<String, Partida> entrada : resultado.getActivas().entrySet()) {
+            Partida partida = entrada.getValue();
+            estadosColocacion.put(entrada.getKey(), reconstruirEstadoColocacion(partida));
+            partidasActivas.put(entrada.getKey(), partida);
+            recuperadasSinRetomar.add(entrada.getKey());
+        }
+        for (Map.Entry<String, Partida> entrada : resultado.getTerminadas().entrySet()) {
+            String idPartida = entrada.getKey();
+            Partida partida = entrada.getValue();
+            guardar.setPartidas().guardar(partida, () -> {
+                diarioPartidas.cerrar(idPartida);
+                partida.liberarTableros();
+            });
+        }
+        for (String idPartida : resultado.getVacios()) {
+            diarioPartidas.cerrar(idPartida);
+        }
+        System.out.println(resultado);
+        if (!recuperadasSinRetomar.isEmpty()) {
+            programarDescarteRecuperadas(Long.getLong(PROPIEDAD_PLAZO_RECUPERADAS, PLAZO_RECUPERADAS_MINUTOS));
+        }
+    }
+
+    /**
+     * Programa el descarte de las partidas recuperadas que nadie retome a tiempo.
+     *
+     * @param minutos Minutos que se espera a los jugadores
+     */
+    private static void programarDescarteRecuperadas(long minutos) {
+        ScheduledExecutorService temporizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "Partidas-Recuperadas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        temporizador.schedule(() -> {
+            descartarRecuperadasAbandonadas();
+            temporizador.shutdown();
+        }, minutos, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Da por abandonadas las partidas recuperadas que ningún jugador ha retomado:
+     * las finaliza como cualquier otra partida, de modo que se guardan tal como
+     * quedaron, se borra su diario y se devuelven sus tableros al pool.
+     */
+    private static synchronized void descartarRecuperadasAbandonadas() {
+        for (String idPartida : recuperadasSinRetomar) {
+            recuperadasSinRetomar.remove(idPartida);
+            estadosColocacion.remove(idPartida);
+            finalizarPartida(idPartida);
+            System.out.println("Partida recuperada abandonada: " + idPartida);
+        }
+    }
+
+    /**
+     * Busca la partida en curso de un usuario para que la retome al volver a
+     * conectarse, por ejemplo una partida recuperada tras reiniciar el servidor.
+     * Una partida recuperada que se retoma deja de estar sujeta al plazo de abandono.
+     *
+     * @param usuario Usuario que vuelve a conectarse
+     * @return ID de la partida sin terminar en la que participa, o null si no tiene ninguna
+     */
+    public static synchronized String retomarPartida(Usuario usuario) {
+        if (usuario == null) {
+            return null;
+        }
+        for (Map.Entry<String, Partida> entrada : partidasActivas.entrySet()) {
+            Partida partida = entrada.getValue();
+            if (partida.participaUsuario(usuario) && partida.getFase() != FasePartida.FINISHED) {
+                recuperadasSinRetomar.remove(entrada.getKey());
+                return entrada.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reconstruye los contadores de colocación de una partida a partir de los
+     * barcos que hay en los tableros de ambos jugadores.
+     * 
+     * @param partida Partida recuperada
+     * @return Estado de colocación con los barcos ya colocados
+     */
+    private static EstadoColocacion reconstruirEstadoColocacion(Partida partida) {
+        EstadoColocacion estado = new EstadoColocacion();
+        contarBarcos(partida.getTableroPrincipal(), estado.getContadorPrincipal());
+        contarBarcos(partida.getTableroRival(), estado.getContadorRival());
+        return estado;
+    }
+
+    /**
+     * Anota en un contador los barcos de un tablero.
+     * 
+     * @param tablero Tablero con los barcos colocados
+     * @param contador Contador de barcos del jugador
+     */
+    private static void contarBarcos(Tablero tablero, ContadorBarcosJugador contador) {
+        TablaBarcos barcos = tablero.getBarcos();
+        for (int id = 0; id < barcos.getNumeroBarcos(); id++) {
+            contador.colocarBarco(barcos.getTipo(id));
+        }
+    }
+
     /**
      * Inicia el servidor TCP y acepta conexiones de clientes.
      * Crea un hilo nuevo para cada cliente que se conecta.
@@ -96,36 +277,46 @@ public class Servidor {
     }
     
     /**
-     * Carga los usuarios existentes desde el sistema de persistencia.
-     * Se ejecuta al iniciar el servidor para recuperar datos previos.
+     * Carga los usuarios existentes en el directorio de usuarios.
+     * Se ejecuta al iniciar el servidor para recuperar datos previos y
+     * registra el volcado de los usuarios pendientes al cerrar el proceso.
      */
     private static void cargarUsuariosExistentes() {
         try {
-            List<Usuario> usuarios = leer.getUsuarios().leer();
+            directorioUsuarios.cargar();
+            Runtime.getRuntime().addShutdownHook(new Thread(directorioUsuarios::volcar, "Usuarios-Cierre"));
+            // Los IDs enteros se asignan en el orden de carga; con un almacén
+            // indexado se asignan al iniciar sesión, sin recorrer todas las cuentas
+            if (!directorioUsuarios.esIndexado()) {
+                for (Usuario usuario : directorioUsuarios.getUsuarios()) {
+                    usuario.registrar();
+                }
+            }
         } catch (Exception e) {
             System.out.println("No se pudieron cargar usuarios existentes: " + e.getMessage());
         }
     }
     
     /**
-     * Valida las credenciales de un usuario contra la base de datos.
+     * Valida las credenciales de un usuario contra el directorio de usuarios.
      * Verifica que el nombre y contraseña coincidan con un usuario registrado.
+     * No toma ningún bloqueo: la búsqueda es una consulta al mapa del directorio.
+     * Un inicio de sesión correcto registra el ID entero del usuario.
      * 
      * @param nombre Nombre del usuario a validar
      * @param contraseña Contraseña del usuario
      * @return Usuario válido o null si las credenciales son incorrectas
      */
-    public static synchronized Usuario validarUsuario(String nombre, String contraseña) {
+    public static Usuario validarUsuario(String nombre, String contraseña) {
         if (nombre == null || contraseña == null || nombre.trim().isEmpty() || contraseña.trim().isEmpty()) {
             System.err.println("Error: credenciales vacías o nulas");
             return null;
         }
         
         try {
-            LeerUsuariosJson lectorUsuarios = (LeerUsuariosJson) leer.getUsuarios();
-            
-            Usuario usuario = lectorUsuarios.buscarUsuario(nombre);
+            Usuario usuario = directorioUsuarios.buscar(nombre);
             if (usuario != null && usuario.getPassword().equals(contraseña)) {
+                usuario.registrar();
                 return usuario;
             }
             return null;
@@ -137,28 +328,28 @@ public class Servidor {
     
     /**
      * Registra un nuevo usuario en el sistema.
-     * Verifica que el nombre no esté en uso antes de crear el usuario.
+     * El usuario queda disponible de inmediato en el directorio y se añade
+     * como un único registro al diario de usuarios.
      * 
      * @param nombre Nombre del usuario a registrar
      * @param contraseña Contraseña del usuario
-     * @return true si el registro fue exitoso, false si el usuario ya existe
+     * @return Usuario registrado, con su ID ya asignado, o null si el usuario ya existe
      */
-    public static synchronized boolean registrarUsuario(String nombre, String contraseña) {
+    public static Usuario registrarUsuario(String nombre, String contraseña) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return null;
+        }
         try {
-            LeerUsuariosJson lectorUsuarios = (LeerUsuariosJson) leer.getUsuarios();
-            GuardarUsuariosJson guardadorUsuarios = (GuardarUsuariosJson) guardar.setUsuarios();
-            
-            if (lectorUsuarios.existeUsuario(nombre)) {
-                return false;
-            }
-            
             Usuario nuevoUsuario = new Usuario(nombre, contraseña);
-            guardadorUsuarios.guardar(nuevoUsuario);
-            return true;
+            if (!directorioUsuarios.registrar(nuevoUsuario)) {
+                return null;
+            }
+            nuevoUsuario.registrar();
+            return nuevoUsuario;
             
         } catch (Exception e) {
             System.err.println("Error registrando usuario: " + e.getMessage());
-            return false;
+            return null;
         }
     }
     
@@ -204,7 +395,9 @@ public class Servidor {
         String idPartida = "partida_" + creador.getName() + "_" + System.currentTimeMillis();
         
         Partida partida = new Partida(creador, null);
+        partida.setSesion(creador, conexionesActivas.get(creador.getName()));
         partidasActivas.put(idPartida, partida);
+        eventos.publicar(TipoEvento.PARTIDA_CREADA, idPartida, partida, creador);
         
         return idPartida;
     }
@@ -212,16 +405,17 @@ public class Servidor {
     /**
      * Obtiene la lista de partidas disponibles para unirse.
      * Retorna solo partidas que necesitan un segundo jugador.
+     * Lee las instantáneas publicadas, por lo que no bloquea a las partidas en curso.
      * 
      * @return Lista de strings describiendo las partidas disponibles
      */
-    public static synchronized List<String> obtenerPartidasDisponibles() {
+    public static List<String> obtenerPartidasDisponibles() {
         List<String> disponibles = new ArrayList<>();
         
-        for (String id : partidasActivas.keySet()) {
-            Partida partida = partidasActivas.get(id);
-            if (partida.getUsuarioRival() == null) {
-                disponibles.add(id + " - Creada por: " + partida.getUsuarioPrincipal().getName());
+        for (Map.Entry<String, Partida> entrada : partidasActivas.entrySet()) {
+            InstantaneaPartida instantanea = entrada.getValue().getInstantanea();
+            if (instantanea.estaDisponible()) {
+                disponibles.add(entrada.getKey() + " - Creada por: " + instantanea.getNombrePrincipal());
             }
         }
         
@@ -230,7 +424,8 @@ public class Servidor {
     
     /**
      * Une un jugador a una partida existente.
-     * Verifica que la partida exista y tenga espacio disponible.
+     * Verifica que la partida exista y tenga espacio disponible, y abre el
+     * diario de la partida con el registro de inicio.
      * 
      * @param idPartida ID de la partida a la cual unirse
      * @param jugador Usuario que se une a la partida
@@ -239,11 +434,12 @@ public class Servidor {
     public static synchronized boolean unirseAPartida(String idPartida, Usuario jugador) {
         Partida partida = partidasActivas.get(idPartida);
         
-        if (partida != null && partida.getUsuarioRival() == null) {
-            Partida partidaCompleta = new Partida(partida.getUsuarioPrincipal(), jugador);
-            partidasActivas.put(idPartida, partidaCompleta);
+        if (partida != null && partida.unirRival(jugador)) {
+            partida.setSesion(jugador, conexionesActivas.get(jugador.getName()));
+            // No hace falta esperar: el diario escribe este registro antes que los siguientes de la partida
+            diarioPartidas.añadir(idPartida, RegistrosPartida.inicio(partida));
             
-            guardar.setPartidas().guardar(partidaCompleta);
+            eventos.publicar(TipoEvento.RIVAL_UNIDO, idPartida, partida, jugador);
             return true;
         }
         
@@ -252,29 +448,45 @@ public class Servidor {
     
     /**
      * Obtiene una partida específica por su ID.
+     * El mapa de partidas es concurrente, por lo que no toma el bloqueo del servidor.
      * 
      * @param idPartida ID de la partida buscada
      * @return Objeto Partida o null si no existe
      */
-    public static synchronized Partida obtenerPartida(String idPartida) {
+    public static Partida obtenerPartida(String idPartida) {
         return partidasActivas.get(idPartida);
     }
     
+    /**
+     * Obtiene la última instantánea publicada de una partida.
+     * Pensado para espectadores y monitorización: no toma ningún bloqueo.
+     * 
+     * @param idPartida ID de la partida
+     * @return Instantánea más reciente o null si la partida no existe
+     */
+    public static InstantaneaPartida obtenerInstantanea(String idPartida) {
+        Partida partida = partidasActivas.get(idPartida);
+        return partida != null ? partida.getInstantanea() : null;
+    }
+    
     /**
      * Finaliza una partida y la remueve de las partidas activas.
-     * Guarda la partida finalizada en el sistema de persistencia.
+     * Envía al bucle de la partida, sin esperar, la codificación de la partida
+     * finalizada y el encolado de su escritura, de modo que el consumidor de
+     * eventos que la finaliza nunca se bloquea en un bucle. Cuando queda
+     * escrita se borra su diario de movimientos y se devuelven sus tableros al
+     * pool. Si la escritura falla, el diario se conserva para poder
+     * reconstruir la partida.
      * 
      * @param idPartida ID de la partida a finalizar
      */
-    public static synchronized void finalizarPartida(String idPartida) {
+    public static void finalizarPartida(String idPartida) {
         Partida partida = partidasActivas.remove(idPartida);
         if (partida != null) {
-            try {
-                Persistencia.Partidas.GuardarPartidasJson guardador = new Persistencia.Partidas.GuardarPartidasJson();
-                guardador.actualizarPartida(partida);
-            } catch (Exception e) {
-                System.err.println("Error actualizando partida: " + e.getMessage());
-            }
+            planificador.enviar(idPartida, () -> guardar.setPartidas().guardar(partida, () -> {
+                diarioPartidas.cerrar(idPartida);
+                partida.liberarTableros();
+            }));
         }
     }
     
@@ -284,7 +496,8 @@ public class Servidor {
      * @return String con información de usuarios conectados y partidas activas
      */
     public static synchronized String obtenerEstadoServidor() {
-        return String.format("Usuarios conectados: %d | Partidas activas: %d", usuariosConectados.size(), partidasActivas.size());
+        return String.format("Usuarios conectados: %d | Partidas activas: %d | Tareas en segundo plano: %d",
+                usuariosConectados.size(), partidasActivas.size(), AmbitoTareas.getTareasActivasTotales());
     }
     
     /**
@@ -335,16 +548,35 @@ public class Servidor {
     
     /**
      * Verifica si es el turno de un usuario específico en una partida.
+     * Solo hay turno durante la fase de combate; no toma el bloqueo del servidor.
      * 
      * @param idPartida ID de la partida
      * @param usuario Usuario a verificar
      * @return true si es su turno, false en caso contrario
      */
     public static boolean esTurnoDeUsuario(String idPartida, Usuario usuario) {
-        Partida partida = obtenerPartida(idPartida);
-        if (partida == null) return false;
-        boolean esTurno = usuario.equals(partida.getTurnoActual());
-        return esTurno;
+        Partida partida = partidasActivas.get(idPartida);
+        return partida != null && partida.esTurnoDe(usuario);
+    }
+
+    /**
+     * Inicia la fase de combate de una partida cuyas flotas ya están colocadas.
+     * Lo invocan las conexiones de ambos jugadores; solo la primera llamada
+     * cambia la fase y las siguientes no tienen efecto.
+     * 
+     * @param idPartida ID de la partida
+     * @return true si la partida está en combate tras la llamada
+     */
+    public static boolean iniciarCombate(String idPartida) {
+        Partida partida = partidasActivas.get(idPartida);
+        if (partida == null) {
+            return false;
+        }
+        if (partida.iniciarCombate()) {
+            diarioPartidas.añadir(idPartida, RegistrosPartida.combate(partida.getTurnoCodificado()));
+            eventos.publicar(TipoEvento.COMBATE_INICIADO, idPartida, partida, null);
+        }
+        return partida.getFase() == FasePartida.PLAYING;
     }
 
     /**
@@ -422,21 +654,20 @@ public class Servidor {
      * Valida la posición y crea el barco usando la fábrica correspondiente.
      * 
      * @param tablero Tablero donde colocar el barco
-     * @param tipoBarco Tipo de barco a colocar
+     * @param tipo Tipo de barco a colocar
      * @param fila Fila de colocación
      * @param columna Columna de colocación
      * @param orientacion Orientación del barco
      * @return true si se colocó exitosamente, false en caso contrario
      */
-    private static boolean colocarBarcoEnTablero(Tablero tablero, String tipoBarco, int fila, int columna, String orientacion) {
-        ValidadorColocacion validador = new ValidadorColocacion(tablero);
-        
-        if (!validador.esValidaColocacion(tipoBarco, fila, columna, orientacion)) {
+    private static boolean colocarBarcoEnTablero(Tablero tablero, TipoBarco tipo, int fila, int columna, String orientacion) {
+        boolean esHorizontal = ValidadorColocacion.esOrientacionHorizontal(orientacion);
+        if (!ValidadorColocacion.esValidaColocacion(tablero, tipo, fila, columna, esHorizontal)) {
             return false;
         }
         
         FabricaBarcos fabrica = new FabricaBarcos(tablero);
-        Barco barco = fabrica.crearBarco(tipoBarco, fila, columna, orientacion);
+        Barco barco = fabrica.crearBarco(tipo.getNombre(), fila, columna, orientacion);
         
         return barco != null;
     }
@@ -456,14 +687,20 @@ public class Servidor {
 
         EstadoColocacion estado = obtenerOCrearEstadoColocacion(idPartida);
         boolean esPrincipal = usuario.equals(partida.getUsuarioPrincipal());
-        ContadorBarcosJugador contador = estado.getContador(esPrincipal);
-
-        boolean completo = contador.getPortaviones() == 1 &&
-                           contador.getSubmarinos() == 2 &&
-                           contador.getDestructores() == 3 &&
-                           contador.getFragatas() == 4;
+        return flotaCompleta(estado.getContador(esPrincipal));
+    }
 
-        return completo;
+    /**
+     * Verifica si un contador refleja la flota completa de un jugador.
+     * 
+     * @param contador Contador de barcos del jugador
+     * @return true si ha colocado todos los barcos requeridos
+     */
+    private static boolean flotaCompleta(ContadorBarcosJugador contador) {
+        return contador.getPortaviones() == 1 &&
+               contador.getSubmarinos() == 2 &&
+               contador.getDestructores() == 3 &&
+               contador.getFragatas() == 4;
     }
 
     /**
@@ -504,26 +741,22 @@ public class Servidor {
 
     /**
      * Verifica si ambos jugadores han completado la colocación de barcos.
+     * La fase READY se fija al colocar el último barco, por lo que basta
+     * con leer la fase de la partida.
      * 
      * @param idPartida ID de la partida a verificar
      * @return true si ambos jugadores están listos, false en caso contrario
      */
     public static boolean ambosJugadoresListos(String idPartida) {
-        Partida partida = obtenerPartida(idPartida);
-        if (partida == null) {
-            return false;
-        }
-        Usuario principal = partida.getUsuarioPrincipal();
-        Usuario rival = partida.getUsuarioRival();
-        boolean principalListo = usuarioCompletoColocacion(idPartida, principal);
-        boolean rivalListo = rival != null && usuarioCompletoColocacion(idPartida, rival);
-
-        return principalListo && rivalListo;
+        Partida partida = partidasActivas.get(idPartida);
+        return partida != null && partida.getFase().alcanzada(FasePartida.READY);
     }
 
     /**
      * Coloca un barco en el tablero de un usuario.
      * Coordina la validación, colocación física y actualización de contadores.
+     * La colocación se añade al diario de la partida sin esperar: la conexión
+     * no responde hasta que el diario la ha llevado a disco (ver esperarDiario).
      * 
      * @param idPartida ID de la partida
      * @param usuario Usuario que coloca el barco
@@ -535,7 +768,7 @@ public class Servidor {
      */
     public static boolean colocarBarco(String idPartida, Usuario usuario, String tipoBarco, int fila, int columna, String orientacion) {
         Partida partida = obtenerPartida(idPartida);
-        if (partida == null) {
+        if (partida == null || !partida.getFase().permiteColocacion()) {
             return false;
         }
 
@@ -557,16 +790,82 @@ public class Servidor {
             return false;
         }
 
-        boolean exito = colocarBarcoEnTablero(tablero, tipoBarco, fila, columna, orientacion);
+        boolean exito = colocarBarcoEnTablero(tablero, tipo, fila, columna, orientacion);
 
         if (!exito) {
             return false;
         }
 
         contador.colocarBarco(tipo);
+        partida.addColocacion(usuario, tipoBarco, fila, columna, orientacion);
+        diarioPartidas.añadir(idPartida, RegistrosPartida.colocacion(!esPrincipal, tipo, fila, columna,
+            ValidadorColocacion.esOrientacionHorizontal(orientacion)));
+        eventos.publicar(TipoEvento.BARCO_COLOCADO, idPartida, partida, usuario, fila, columna, tipo.getNombre());
+        if (flotaCompleta(contador) && partida.getUsuarioRival() != null) {
+            // Si ambos jugadores terminan a la vez, el monitor garantiza que el último vea los dos contadores
+            synchronized (estado) {
+                if (flotaCompleta(estado.getContadorPrincipal()) && flotaCompleta(estado.getContadorRival())) {
+                    partida.marcarLista();
+                }
+            }
+        }
         return true;
     }
 
+    /**
+     * Coloca aleatoriamente todos los barcos que le faltan a un usuario.
+     * La flota restante se muestrea de forma uniforme entre las colocaciones
+     * legales respetando los barcos que ya estén en el tablero, y cada barco
+     * se coloca por el mismo camino que una colocación manual.
+     * 
+     * @param idPartida ID de la partida
+     * @param usuario Usuario cuya flota se completa
+     * @return Lista de colocaciones realizadas como "TIPO,fila,columna,ORIENTACION", o null si falla
+     */
+    public static List<String> colocacionAutomatica(String idPartida, Usuario usuario) {
+        Partida partida = obtenerPartida(idPartida);
+        if (partida == null) {
+            return null;
+        }
+        Tablero tablero = partida.getTableroJugador(usuario);
+        if (tablero == null) {
+            return null;
+        }
+
+        EstadoColocacion estado = obtenerOCrearEstadoColocacion(idPartida);
+        ContadorBarcosJugador contador = estado.getContador(usuario.equals(partida.getUsuarioPrincipal()));
+
+        GeneradorFlota generador = new GeneradorFlota();
+        TipoBarco[] flota = generador.getFlota();
+        TipoBarco[] pendientes = new TipoBarco[flota.length];
+        int cantidad = 0;
+        for (TipoBarco tipo : TipoBarco.values()) {
+            for (int i = contador.getColocados(tipo); i < tipo.getCantidadMaxima(); i++) {
+                pendientes[cantidad++] = tipo;
+            }
+        }
+        Arrays.sort(pendientes, 0, cantidad, (a, b) -> b.getTamaño() - a.getTamaño());
+
+        int[] colocaciones = new int[cantidad];
+        try {
+            generador.generar(tablero.getMascaraBarcos(), pendientes, cantidad, colocaciones);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+
+        List<String> realizadas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            int fila = GeneradorFlota.getFila(colocaciones[i]);
+            int columna = GeneradorFlota.getColumna(colocaciones[i]);
+            String orientacion = GeneradorFlota.esHorizontal(colocaciones[i]) ? "HORIZONTAL" : "VERTICAL";
+            if (!colocarBarco(idPartida, usuario, pendientes[i].getNombre(), fila, columna, orientacion)) {
+                return null;
+            }
+            realizadas.add(pendientes[i].getNombre() + "," + fila + "," + columna + "," + orientacion);
+        }
+        return realizadas;
+    }
+
     /**
      * Verifica si un usuario puede colocar un tipo específico de barco.
      * 
@@ -586,116 +885,253 @@ public class Servidor {
         return contador.puedeColocarBarco(tipo);
     }
 
+    /**
+     * Obtiene los anclajes donde un usuario puede colocar un barco en su tablero.
+     * El bit f * 8 + c indica que el barco puede empezar en la fila f y columna c.
+     * 
+     * @param idPartida ID de la partida
+     * @param usuario Usuario que quiere colocar el barco
+     * @param tipoBarco Tipo de barco a colocar
+     * @param orientacion Orientación del barco
+     * @return Máscara de anclajes legales, 0 si no hay partida o el tipo no existe
+     */
+    public static long obtenerPosicionesLegales(String idPartida, Usuario usuario, String tipoBarco, String orientacion) {
+        Partida partida = obtenerPartida(idPartida);
+        TipoBarco tipo = TipoBarco.fromString(tipoBarco);
+        if (partida == null || tipo == null) {
+            return 0L;
+        }
+        return ValidadorColocacion.posicionesLegales(partida.getTableroJugador(usuario), tipo,
+            ValidadorColocacion.esOrientacionHorizontal(orientacion));
+    }
+
     /**
      * Guarda una partida específica en el sistema de persistencia.
+     * La partida se codifica en el bucle de su partida, sin solaparse con sus
+     * comandos; la escritura se encola y no bloquea al jugador que la pide.
      * 
      * @param idPartida ID de la partida a guardar
      */
     public static void guardarPartida(String idPartida) {
         Partida partida = obtenerPartida(idPartida);
-        if (partida == null) {
-            return;
+        if (partida != null) {
+            planificador.ejecutar(idPartida, () -> {
+                guardar.setPartidas().guardar(partida);
+                return null;
+            });
         }
-        try {
-            String nombreArchivo = "partidas/" + partida.getUsuarioPrincipal().getName() + "vs" + partida.getUsuarioRival().getName() + ".json";
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            String json = gson.toJson(partida);
-            Files.write(Paths.get(nombreArchivo), json.getBytes(StandardCharsets.UTF_8));
-        } catch (Exception e) {}
     }
 
     /**
      * Registra una conexión activa asociada a un usuario.
+     * Si el usuario participa en partidas activas (reconexión), su nueva
+     * conexión pasa a ser la sesión de esas partidas.
      * 
      * @param nombreUsuario Nombre del usuario
      * @param conexion Objeto Connection del usuario
      */
     public static void registrarConexion(String nombreUsuario, Connection conexion) {
         conexionesActivas.put(nombreUsuario, conexion);
+        Usuario usuario = conexion.getUsuarioActual();
+        if (usuario == null) {
+            return;
+        }
+        for (Partida partida : partidasActivas.values()) {
+            if (partida.participaUsuario(usuario)) {
+                partida.setSesion(usuario, conexion);
+            }
+        }
     }
 
     /**
-     * Elimina una conexión del registro de conexiones activas.
+     * Elimina una conexión del registro de conexiones activas
+     * y la desasocia de las partidas en las que era la sesión del usuario.
      * 
      * @param nombreUsuario Nombre del usuario cuya conexión eliminar
      */
     public static void eliminarConexion(String nombreUsuario) {
-        conexionesActivas.remove(nombreUsuario);
+        Connection conexion = conexionesActivas.remove(nombreUsuario);
+        if (conexion == null) {
+            return;
+        }
+        for (Partida partida : partidasActivas.values()) {
+            partida.eliminarSesion(conexion);
+        }
     }
 
     /**
-     * Obtiene la conexión del rival de un usuario en una partida específica.
+     * Obtiene la sesión del rival de un usuario en una partida específica.
+     * Lee la referencia guardada en la partida, sin bloqueos ni búsquedas por nombre.
      * 
      * @param idPartida ID de la partida
      * @param usuarioActual Usuario del cual obtener el rival
-     * @return Connection del rival o null si no existe
+     * @return Sesión del rival o null si no existe o no está conectado
      */
-    public static Connection getConexionRival(String idPartida, Usuario usuarioActual) {
-        Partida partida = obtenerPartida(idPartida);
-        if (partida == null) {
-            return null;
-        }
-        Usuario rival = usuarioActual.equals(partida.getUsuarioPrincipal())
-            ? partida.getUsuarioRival()
-            : partida.getUsuarioPrincipal();
-        if (rival == null) {
-            return null;
-        }
-        Connection conn = conexionesActivas.get(rival.getName());
-        return conn;
+    public static SesionJugador getSesionRival(String idPartida, Usuario usuarioActual) {
+        Partida partida = partidasActivas.get(idPartida);
+        return partida != null ? partida.getSesionRival(usuarioActual) : null;
     }
 
     /**
-     * Procesa un ataque de un usuario hacia su rival en una partida.
-     * Ejecuta la lógica del ataque y retorna el resultado.
+     * Obtiene el bus de eventos de partida, para registrar consumidores
+     * adicionales como espectadores o estadísticas.
      * 
-     * @param idPartida ID de la partida donde ocurre el ataque
-     * @param atacante Usuario que realiza el ataque
-     * @param fila Fila de la coordenada objetivo
-     * @param columna Columna de la coordenada objetivo
-     * @return Resultado del ataque (tocado, hundido, agua, error)
+     * @return Bus de eventos del servidor
      */
-    public static String procesarAtaque(String idPartida, Usuario atacante, int fila, int columna) {
-        Partida partida = obtenerPartida(idPartida);
-        if (partida == null) return "error:Partida no encontrada";
+    public static BusEventosPartida getBusEventos() {
+        return eventos;
+    }
 
-        Usuario defensor = atacante.equals(partida.getUsuarioPrincipal())
-            ? partida.getUsuarioRival()
-            : partida.getUsuarioPrincipal();
+    /**
+     * Obtiene un resumen de los eventos procesados y de los pendientes en el bus.
+     * 
+     * @return String con las métricas de eventos
+     */
+    public static String obtenerMetricasEventos() {
+        return metricasEventos.getResumen() + " | Pendientes: " + eventos.getPendientes();
+    }
 
-        Tablero tableroDefensor = partida.getTableroJugador(defensor);
-        Coordenadas coords = new Coordenadas(fila, columna);
+    /**
+     * Obtiene el planificador que ejecuta los comandos de cada partida en su bucle de eventos.
+     * 
+     * @return Planificador que reparte las partidas entre los bucles de eventos
+     */
+    public static PlanificadorPartidas getPlanificador() {
+        return planificador;
+    }
 
-        Casilla casilla = tableroDefensor.getCasilla(coords);
-        if (casilla == null) {
-            return "error:Coordenada inválida";
-        }
+    /**
+     * Obtiene la profundidad de cola y los comandos procesados de cada bucle de eventos.
+     * 
+     * @return String con las métricas de los shards
+     */
+    public static String obtenerMetricasPlanificador() {
+        return planificador.getMetricas();
+    }
 
-        Estado estadoAntes = casilla.getEstado();
-        
-        if (estadoAntes.equals(Estados.Agua.getInstancia()) || estadoAntes.equals(Estados.Tocado.getInstancia())) {
-            return "error:Casilla ya atacada";
-        }
+    /**
+     * Obtiene los contadores del pool de tableros.
+     * 
+     * @return String con los tableros libres, creados, reutilizados y descartados
+     */
+    public static String obtenerMetricasTableros() {
+        return PoolTableros.getInstancia().getResumen();
+    }
 
-        casilla.getDaño();
-        Estado estadoDespues = casilla.getEstado();
-        
-        if (estadoAntes instanceof Estados.DesconocidoAgua && estadoDespues.equals(Estados.Agua.getInstancia())) {
-            return "agua";
+    /**
+     * Obtiene las métricas de la confirmación en grupo del diario de partidas.
+     * 
+     * @return String con los lotes confirmados, diarios por lote y tiempo medio de forzado
+     */
+    public static String obtenerMetricasDiario() {
+        return diarioPartidas.getResumen();
+    }
+
+    /**
+     * Obtiene la profundidad de la cola de escritura de partidas y su latencia.
+     * 
+     * @return String con las métricas de la cola de escritura
+     */
+    public static String obtenerMetricasGuardado() {
+        return guardar.getMetricasPartidas();
+    }
+
+    /**
+     * Obtiene la ocupación y la tasa de aciertos de la caché de partidas leídas.
+     * 
+     * @return String con las métricas de la caché de partidas
+     */
+    public static String obtenerMetricasCachePartidas() {
+        return CachePartidas.getInstancia().getResumen();
+    }
+
+    /**
+     * Obtiene el último lote del diario con registros de una partida.
+     * Se consulta en el bucle de eventos al terminar un comando, para
+     * esperarlo después con esperarDiario desde el hilo de la conexión.
+     * 
+     * @param idPartida ID de la partida
+     * @return Lote a esperar, o 0 si la partida no tiene registros pendientes
+     */
+    public static long obtenerLoteDiario(String idPartida) {
+        return diarioPartidas.getLote(idPartida);
+    }
+
+    /**
+     * Espera a que un lote del diario de partidas esté en disco.
+     * Se llama desde el hilo de la conexión antes de responder, nunca desde
+     * un bucle de eventos, para que el bucle siga atendiendo otras partidas
+     * mientras el lote se confirma.
+     * 
+     * @param idPartida ID de la partida cuyos registros se esperan
+     * @param lote Lote devuelto por obtenerLoteDiario
+     * @throws RuntimeException Si el diario de la partida no ha podido escribir el lote
+     */
+    public static void esperarDiario(String idPartida, long lote) {
+        diarioPartidas.esperar(idPartida, lote);
+    }
+
+    /**
+     * Obtiene la secuencia del turno actual de una partida.
+     * 
+     * @param idPartida ID de la partida
+     * @return Secuencia del turno actual o 0 si la partida no existe o no ha empezado
+     */
+    public static long obtenerSecuenciaTurno(String idPartida) {
+        Partida partida = partidasActivas.get(idPartida);
+        return partida != null ? partida.getSecuenciaTurno() : 0L;
+    }
+
+    /**
+     * Obtiene el resultado de un ataque ya aceptado, para responder a un reintento.
+     * 
+     * @param idPartida ID de la partida
+     * @param atacante Usuario que reintenta el ataque
+     * @param secuencia Secuencia del turno indicada por el cliente
+     * @return Resultado original del ataque o null si ese ataque no se ha aceptado
+     */
+    public static String obtenerAtaqueRepetido(String idPartida, Usuario atacante, long secuencia) {
+        Partida partida = partidasActivas.get(idPartida);
+        return partida != null ? partida.getResultadoAtaque(secuencia, atacante) : null;
+    }
+
+    /**
+     * Procesa un ataque asociado a una secuencia de turno.
+     * Las reglas las aplica MotorJuego: el ataque solo se aplica si el usuario
+     * consigue reclamar el turno (secuencia, atacante), el resultado se recuerda
+     * para responder a reintentos y, si hunde el último barco del rival, la
+     * partida termina. Una casilla repetida o fuera del tablero se rechaza sin
+     * consumir el turno ni pasar por el diario. Todo ataque aceptado se añade
+     * al diario de la partida, y la conexión espera a que llegue a disco antes
+     * de responder (ver esperarDiario). Publica el ataque en el bus de eventos y, si la
+     * partida ha terminado, también el fin de partida.
+     * 
+     * @param idPartida ID de la partida donde ocurre el ataque
+     * @param atacante Usuario que realiza el ataque
+     * @param fila Fila de la matriz del tablero atacada
+     * @param columna Columna de la matriz del tablero atacada
+     * @param secuencia Secuencia del turno en el que ataca el usuario
+     * @return Resultado del ataque o null si no es el turno del usuario
+     */
+    public static String procesarAtaque(String idPartida, Usuario atacante, int fila, int columna, long secuencia) {
+        Partida partida = partidasActivas.get(idPartida);
+        if (partida == null) {
+            return null;
         }
-        
-        if (estadoAntes instanceof Estados.DesconocidoBarco && estadoDespues.equals(Estados.Tocado.getInstancia())) {
-            Barco barco = casilla.getBarco();
-            if (barco != null && barco.estaHundido()) {
-                return "hundido";
-            }
-            return "tocado";
+        int codigo = motor.atacar(partida, atacante, fila, columna, secuencia);
+        if (codigo == MotorJuego.ERROR_TURNO) {
+            return null;
         }
-        
-        if (estadoDespues.getClass().getSimpleName().contains("Hundido")) {
-            return "hundido";
+        if (MotorJuego.esRechazado(codigo)) {
+            return MotorJuego.describir(codigo);
         }
-
-        return "error:Estado inesperado";
+        diarioPartidas.añadir(idPartida,
+            RegistrosPartida.ataque(!atacante.equals(partida.getUsuarioPrincipal()), fila, columna, secuencia));
+        String resultado = MotorJuego.describir(codigo);
+        eventos.publicar(TipoEvento.ATAQUE, idPartida, partida, atacante, fila, columna, resultado);
+        if (codigo == MotorJuego.VICTORIA) {
+            eventos.publicar(TipoEvento.FIN_PARTIDA, idPartida, partida, atacante);
+        }
+        return resultado;
     }
 }
\ No newline at end of file
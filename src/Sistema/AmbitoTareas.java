@@ -0,0 +1,181 @@
+package Sistema;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ámbito que agrupa las tareas en segundo plano de una sesión.
+ * Cada conexión crea su propio ámbito y lanza en él sus hilos auxiliares
+ * (esperas, notificaciones, temporizadores); al cerrar la sesión se cancela el
+ * ámbito y se interrumpen a la vez todas las tareas que sigan vivas.
+ *
+ * Los contadores del ámbito y el contador global de tareas activas permiten
+ * comprobar que no queda ninguna tarea huérfana tras una desconexión.
+ * Las tareas deben terminar al ser interrumpidas; una lectura bloqueada en un
+ * socket termina cuando su propietario cierra el socket.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class AmbitoTareas {
+
+    /** Tareas activas en todos los ámbitos */
+    private static final AtomicInteger TAREAS_ACTIVAS = new AtomicInteger();
+
+    /** Nombre del ámbito, usado como prefijo de los hilos */
+    private final String nombre;
+    /** Hilos de las tareas que aún no han terminado */
+    private final Set<Thread> activas = ConcurrentHashMap.newKeySet();
+    /** Tareas lanzadas en el ámbito */
+    private final AtomicLong lanzadas = new AtomicLong();
+    /** Tareas terminadas, por sí mismas o por cancelación */
+    private final AtomicLong finalizadas = new AtomicLong();
+    /** Tareas interrumpidas al cancelar el ámbito */
+    private final AtomicLong canceladas = new AtomicLong();
+    /** Indica si el ámbito se ha cancelado */
+    private volatile boolean cancelado;
+
+    /**
+     * Constructor que crea un ámbito vacío.
+     *
+     * @param nombre Nombre del ámbito
+     */
+    public AmbitoTareas(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Lanza una tarea en un hilo nuevo del ámbito.
+     * Si el ámbito ya está cancelado, la tarea no se lanza.
+     *
+     * @param nombreTarea Nombre de la tarea, usado en el nombre del hilo
+     * @param tarea Tarea a ejecutar
+     * @return true si la tarea se ha lanzado, false si el ámbito está cancelado
+     */
+    public synchronized boolean lanzar(String nombreTarea, Runnable tarea) {
+        if (cancelado) {
+            return false;
+        }
+        Thread hilo = new Thread(() -> {
+            try {
+                tarea.run();
+            } finally {
+                activas.remove(Thread.currentThread());
+                finalizadas.incrementAndGet();
+                TAREAS_ACTIVAS.decrementAndGet();
+            }
+        }, nombre + "-" + nombreTarea);
+        activas.add(hilo);
+        lanzadas.incrementAndGet();
+        TAREAS_ACTIVAS.incrementAndGet();
+        hilo.start();
+        return true;
+    }
+
+    /**
+     * Cancela el ámbito: interrumpe las tareas activas e impide lanzar otras nuevas.
+     * Solo la primera llamada tiene efecto.
+     *
+     * @return Número de tareas interrumpidas
+     */
+    public synchronized int cancelar() {
+        if (cancelado) {
+            return 0;
+        }
+        cancelado = true;
+        int interrumpidas = 0;
+        for (Thread hilo : activas) {
+            hilo.interrupt();
+            interrumpidas++;
+        }
+        canceladas.addAndGet(interrumpidas);
+        return interrumpidas;
+    }
+
+    /**
+     * Espera a que terminen todas las tareas del ámbito.
+     *
+     * @param milisegundos Tiempo máximo de espera
+     * @return true si no queda ninguna tarea activa
+     * @throws InterruptedException Si el hilo que espera es interrumpido
+     */
+    public boolean esperarTerminacion(long milisegundos) throws InterruptedException {
+        long limite = System.currentTimeMillis() + milisegundos;
+        for (Thread hilo : activas) {
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) {
+                break;
+            }
+            hilo.join(restante);
+        }
+        return activas.isEmpty();
+    }
+
+    /**
+     * Indica si el ámbito ya se ha cancelado y no admite más tareas.
+     *
+     * @return true si el ámbito se ha cancelado
+     */
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * Obtiene el número de tareas del ámbito que siguen en ejecución.
+     *
+     * @return Número de tareas del ámbito que aún no han terminado
+     */
+    public int getActivas() {
+        return activas.size();
+    }
+
+    /**
+     * Obtiene el número de tareas lanzadas desde que se creó el ámbito.
+     *
+     * @return Número de tareas lanzadas en el ámbito
+     */
+    public long getLanzadas() {
+        return lanzadas.get();
+    }
+
+    /**
+     * Obtiene el número de tareas del ámbito que ya han terminado.
+     *
+     * @return Número de tareas del ámbito que han terminado
+     */
+    public long getFinalizadas() {
+        return finalizadas.get();
+    }
+
+    /**
+     * Obtiene el número de tareas interrumpidas al cancelar el ámbito.
+     *
+     * @return Número de tareas interrumpidas al cancelar el ámbito
+     */
+    public long getCanceladas() {
+        return canceladas.get();
+    }
+
+    /**
+     * Obtiene el número de tareas activas sumando todos los ámbitos.
+     * Sin sesiones abiertas debe ser cero.
+     *
+     * @return Tareas activas en todos los ámbitos
+     */
+    public static int getTareasActivasTotales() {
+        return TAREAS_ACTIVAS.get();
+    }
+
+    /**
+     * Representación textual del ámbito con sus contadores de tareas.
+     *
+     * @return Resumen de los contadores del ámbito
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: lanzadas=%d finalizadas=%d canceladas=%d activas=%d",
+                nombre, getLanzadas(), getFinalizadas(), getCanceladas(), getActivas());
+    }
+}
@@ -136,4 +136,25 @@ public class ContadorBarcosJugador {
     public int getFragatas() { 
         return fragatas; 
     }
+
+    /**
+     * Obtiene la cantidad de barcos colocados de un tipo concreto.
+     * 
+     * @param tipo Tipo de barco
+     * @return Número de barcos de ese tipo colocados
+     */
+    public int getColocados(TipoBarco tipo) {
+        switch (tipo) {
+            case PORTAVIONES:
+                return portaviones;
+            case SUBMARINO:
+                return submarinos;
+            case DESTRUCTOR:
+                return destructores;
+            case FRAGATA:
+                return fragatas;
+            default:
+                return 0;
+        }
+    }
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package Sistema;
 
 import Barcos.*;
 import Tablero.Casilla;
-import Tablero.Coordenadas;
 import Tablero.Tablero;
 
 /**
@@ -43,20 +42,23 @@ public class FabricaBarcos {
             return null;
         }
         
-        boolean esHorizontal = esOrientacionHorizontal(orientacion);
+        // Las fragatas solo ocupan una casilla, por lo que no tienen orientación
+        boolean esHorizontal = tipo == TipoBarco.FRAGATA || esOrientacionHorizontal(orientacion);
+        Casilla[] casillas = obtenerCasillas(tipo.getTamaño(), fila, columna, esHorizontal);
+        if (casillas == null) {
+            return null;
+        }
         
-        switch (tipo) {
-            case PORTAVIONES:
-                return crearPortaviones(fila, columna, esHorizontal);
-            case SUBMARINO:
-                return crearSubmarino(fila, columna, esHorizontal);
-            case DESTRUCTOR:
-                return crearDestructor(fila, columna, esHorizontal);
-            case FRAGATA:
-                return crearFragata(fila, columna);
-            default:
-                return null;
+        long huella = 0L;
+        for (Casilla casilla : casillas) {
+            huella |= 1L << (casilla.getColumna() * tablero.cas.length + casilla.getFila());
         }
+        
+        TablaBarcos tabla = tablero.getBarcos();
+        int id = tabla.añadir(tipo, fila, columna, esHorizontal, huella);
+        Barco barco = instanciarBarco(tipo, tabla, id);
+        asignarBarcoACasillas(barco, casillas, huella);
+        return barco;
     }
     
     /**
@@ -70,83 +72,30 @@ public class FabricaBarcos {
     }
     
     /**
-     * Crea un portaviones en la posición y orientación especificadas.
-     * 
-     * @param fila Fila donde colocar el portaviones
-     * @param columna Columna donde colocar el portaviones
-     * @param esHorizontal true si es horizontal, false si es vertical
-     * @return Instancia de Portaviones creada o null si no se puede crear
-     */
-    private Portaviones crearPortaviones(int fila, int columna, boolean esHorizontal) {
-        Casilla[] casillas = obtenerCasillas(4, fila, columna, esHorizontal);
-        if (casillas == null) {
-            return null;
-        }
-        
-        Portaviones portaviones = new Portaviones(casillas[0], casillas[1], casillas[2], casillas[3]);
-        asignarBarcoACasillas(portaviones, casillas);
-        return portaviones;
-    }
-    
-    /**
-     * Crea un submarino en la posición y orientación especificadas.
+     * Crea la fachada del tipo de barco correspondiente a una entrada de la tabla.
      * 
-     * @param fila Fila donde colocar el submarino
-     * @param columna Columna donde colocar el submarino
-     * @param esHorizontal true si es horizontal, false si es vertical
-     * @return Instancia de Submarino creada o null si no se puede crear
+     * @param tipo Tipo de barco
+     * @param tabla Tabla de barcos del tablero
+     * @param id Identificador del barco en la tabla
+     * @return Instancia del barco creado
      */
-    private Submarino crearSubmarino(int fila, int columna, boolean esHorizontal) {
-        Casilla[] casillas = obtenerCasillas(3, fila, columna, esHorizontal);
-        if (casillas == null) {
-            return null;
-        }
-        
-        Submarino submarino = new Submarino(casillas[0], casillas[1], casillas[2]);
-        asignarBarcoACasillas(submarino, casillas);
-        return submarino;
-    }
-    
-    /**
-     * Crea un destructor en la posición y orientación especificadas.
-     * 
-     * @param fila Fila donde colocar el destructor
-     * @param columna Columna donde colocar el destructor
-     * @param esHorizontal true si es horizontal, false si es vertical
-     * @return Instancia de Destructor creada o null si no se puede crear
-     */
-    private Destructor crearDestructor(int fila, int columna, boolean esHorizontal) {
-        Casilla[] casillas = obtenerCasillas(2, fila, columna, esHorizontal);
-        if (casillas == null) {
-            return null;
-        }
-        
-        Destructor destructor = new Destructor(casillas[0], casillas[1]);
-        asignarBarcoACasillas(destructor, casillas);
-        return destructor;
-    }
-    
-    /**
-     * Crea una fragata en la posición especificada.
-     * Las fragatas solo ocupan una casilla, por lo que no tienen orientación.
-     * 
-     * @param fila Fila donde colocar la fragata
-     * @param columna Columna donde colocar la fragata
-     * @return Instancia de Fragata creada o null si no se puede crear
-     */
-    private Fragata crearFragata(int fila, int columna) {
-        Casilla[] casillas = obtenerCasillas(1, fila, columna, true);
-        if (casillas == null) {
-            return null;
+    private Barco instanciarBarco(TipoBarco tipo, TablaBarcos tabla, int id) {
+        switch (tipo) {
+            case PORTAVIONES:
+                return new Portaviones(tabla, id);
+            case SUBMARINO:
+                return new Submarino(tabla, id);
+            case DESTRUCTOR:
+                return new Destructor(tabla, id);
+            default:
+                return new Fragata(tabla, id);
         }
-        
-        Fragata fragata = new Fragata(casillas[0]);
-        asignarBarcoACasillas(fragata, casillas);
-        return fragata;
     }
     
     /**
      * Obtiene las casillas necesarias para colocar un barco del tamaño especificado.
+     * Accede directamente a la matriz del tablero: la casilla de fila f y
+     * columna c es cas[f][c].
      * 
      * @param cantidad Número de casillas necesarias
      * @param fila Fila de inicio
@@ -155,17 +104,19 @@ public class FabricaBarcos {
      * @return Array de casillas o null si no se pueden obtener
      */
     private Casilla[] obtenerCasillas(int cantidad, int fila, int columna, boolean esHorizontal) {
-        Casilla[] casillas = new Casilla[cantidad];
+        Casilla[][] cas = tablero.cas;
+        if (cas == null || fila < 0 || columna < 0) {
+            return null;
+        }
         
+        Casilla[] casillas = new Casilla[cantidad];
         for (int i = 0; i < cantidad; i++) {
             int targetFila = esHorizontal ? fila : fila + i;
             int targetColumna = esHorizontal ? columna + i : columna;
-            Coordenadas coord = new Coordenadas((char)('A' + targetColumna), targetFila);
-            casillas[i] = tablero.getCasilla(coord);
-
-            if (casillas[i] == null) {
+            if (targetFila >= cas.length || targetColumna >= cas[targetFila].length) {
                 return null;
             }
+            casillas[i] = cas[targetFila][targetColumna];
         }
         
         return casillas;
@@ -173,14 +124,17 @@ public class FabricaBarcos {
     
     /**
      * Asigna un barco a todas las casillas que ocupa.
-     * Establece la referencia del barco en cada casilla correspondiente.
+     * Establece la referencia del barco en cada casilla correspondiente
+     * y actualiza la máscara de ocupación del tablero.
      * 
      * @param barco Barco a asignar
      * @param casillas Array de casillas que ocupará el barco
+     * @param huella Máscara de casillas que ocupa el barco
      */
-    private void asignarBarcoACasillas(Barco barco, Casilla[] casillas) {
+    private void asignarBarcoACasillas(Barco barco, Casilla[] casillas, long huella) {
         for (Casilla casilla : casillas) {
             casilla.setBarco(barco);
         }
+        tablero.ocupar(huella);
     }
 }
@@ -0,0 +1,256 @@
+package Sistema;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de flotas aleatorias legales.
+ * Muestrea una flota uniformemente entre todas las colocaciones legales
+ * (sin solapes y dentro del tablero) para el conjunto de barcos de TipoBarco.
+ *
+ * Cada barco se elige uniformemente entre todas sus colocaciones posibles y,
+ * si se solapa con alguno anterior, se descarta la flota entera y se vuelve
+ * a empezar. Este muestreo por rechazo mantiene la distribución uniforme y,
+ * colocando primero los barcos grandes, descarta pronto los intentos fallidos.
+ * El generador es determinista para una misma semilla y no reserva memoria
+ * al generar: el resultado se escribe en un array proporcionado por quien llama.
+ *
+ * Cada colocación se codifica en un int: fila en los bits 8-15, columna en
+ * los bits 1-7 y orientación horizontal en el bit 0.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class GeneradorFlota {
+
+    /** Número máximo de flotas rechazadas antes de considerar imposible la colocación */
+    private static final int MAX_INTENTOS = 1_000_000;
+
+    /** Lado del tablero */
+    private final int tamaño;
+    /** Flota completa ordenada de mayor a menor tamaño */
+    private final TipoBarco[] flota;
+    /** Huellas de todas las colocaciones posibles por tipo de barco */
+    private final long[][] huellas;
+    /** Colocación codificada correspondiente a cada huella */
+    private final int[][] codigos;
+    /** Estado del generador pseudoaleatorio (SplitMix64), reproducible a partir de la semilla */
+    private long estado;
+
+    /**
+     * Constructor que crea un generador para el tablero estándar con semilla aleatoria.
+     */
+    public GeneradorFlota() {
+        this(MascarasColocacion.TAMAÑO_MAXIMO, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor que crea un generador reproducible para el tablero estándar.
+     *
+     * @param semilla Semilla del generador
+     */
+    public GeneradorFlota(long semilla) {
+        this(MascarasColocacion.TAMAÑO_MAXIMO, semilla);
+    }
+
+    /**
+     * Constructor que crea un generador reproducible para un tamaño de tablero.
+     *
+     * @param tamaño Lado del tablero (entre 1 y 8)
+     * @param semilla Semilla del generador
+     */
+    public GeneradorFlota(int tamaño, long semilla) {
+        MascarasColocacion mascaras = MascarasColocacion.paraTamaño(tamaño);
+        this.tamaño = tamaño;
+        this.estado = semilla;
+
+        TipoBarco[] tipos = TipoBarco.values();
+        this.huellas = new long[tipos.length][];
+        this.codigos = new int[tipos.length][];
+        int totalBarcos = 0;
+        for (TipoBarco tipo : tipos) {
+            prepararColocaciones(mascaras, tipo);
+            totalBarcos += tipo.getCantidadMaxima();
+        }
+
+        this.flota = new TipoBarco[totalBarcos];
+        int indice = 0;
+        for (TipoBarco tipo : ordenarPorTamaño(tipos)) {
+            for (int i = 0; i < tipo.getCantidadMaxima(); i++) {
+                flota[indice++] = tipo;
+            }
+        }
+    }
+
+    /**
+     * Calcula la lista de colocaciones posibles de un tipo de barco.
+     * Los barcos de una casilla solo se cuentan una vez para no duplicar
+     * posiciones que son idénticas en ambas orientaciones.
+     *
+     * @param mascaras Tablas de colocación del tablero
+     * @param tipo Tipo de barco
+     */
+    private void prepararColocaciones(MascarasColocacion mascaras, TipoBarco tipo) {
+        int orientaciones = tipo.getTamaño() == 1 ? 1 : 2;
+        long[] listaHuellas = new long[tamaño * tamaño * orientaciones];
+        int[] listaCodigos = new int[listaHuellas.length];
+        int n = 0;
+
+        for (int o = 0; o < orientaciones; o++) {
+            boolean esHorizontal = o == 0;
+            for (int fila = 0; fila < tamaño; fila++) {
+                for (int columna = 0; columna < tamaño; columna++) {
+                    long huella = mascaras.getHuella(tipo, esHorizontal, fila, columna);
+                    if (huella != 0L) {
+                        listaHuellas[n] = huella;
+                        listaCodigos[n] = codificar(fila, columna, esHorizontal);
+                        n++;
+                    }
+                }
+            }
+        }
+
+        huellas[tipo.ordinal()] = Arrays.copyOf(listaHuellas, n);
+        codigos[tipo.ordinal()] = Arrays.copyOf(listaCodigos, n);
+    }
+
+    /**
+     * Ordena los tipos de barco de mayor a menor tamaño.
+     *
+     * @param tipos Tipos de barco
+     * @return Nuevo array ordenado
+     */
+    private static TipoBarco[] ordenarPorTamaño(TipoBarco[] tipos) {
+        TipoBarco[] ordenados = tipos.clone();
+        Arrays.sort(ordenados, (a, b) -> b.getTamaño() - a.getTamaño());
+        return ordenados;
+    }
+
+    /**
+     * Obtiene la flota completa que genera este generador, de mayor a menor tamaño.
+     *
+     * @return Copia de la lista de barcos de la flota
+     */
+    public TipoBarco[] getFlota() {
+        return flota.clone();
+    }
+
+    /**
+     * Genera una flota completa sobre un tablero vacío.
+     * La colocación del barco getFlota()[i] se escribe en destino[i].
+     *
+     * @param destino Array de al menos getFlota().length posiciones
+     * @return Máscara de ocupación de la flota generada
+     */
+    public long generar(int[] destino) {
+        return generar(0L, flota, flota.length, destino);
+    }
+
+    /**
+     * Genera colocaciones para un conjunto de barcos sobre un tablero parcialmente ocupado.
+     * La colocación de barcos[i] se escribe en destino[i]. Para que el rechazo sea
+     * rápido conviene pasar los barcos de mayor a menor tamaño.
+     *
+     * @param ocupacion Máscara de casillas ya ocupadas
+     * @param barcos Barcos a colocar
+     * @param cantidad Número de barcos de la lista a colocar
+     * @param destino Array donde escribir las colocaciones
+     * @return Máscara de ocupación final, incluida la ocupación inicial
+     * @throws IllegalStateException Si no se encuentra ninguna colocación legal
+     */
+    public long generar(long ocupacion, TipoBarco[] barcos, int cantidad, int[] destino) {
+        long semilla = estado;
+        try {
+            for (int intento = 0; intento < MAX_INTENTOS; intento++) {
+                long ocupadas = ocupacion;
+                int i = 0;
+                while (i < cantidad) {
+                    long[] candidatas = huellas[barcos[i].ordinal()];
+                    semilla += 0x9E3779B97F4A7C15L;
+                    int elegida = reducir(mezclar(semilla), candidatas.length);
+                    long huella = candidatas[elegida];
+                    if ((huella & ocupadas) != 0L) {
+                        break;
+                    }
+                    ocupadas |= huella;
+                    destino[i] = codigos[barcos[i].ordinal()][elegida];
+                    i++;
+                }
+                if (i == cantidad) {
+                    return ocupadas;
+                }
+            }
+            throw new IllegalStateException("No se ha encontrado una colocación legal para la flota");
+        } finally {
+            estado = semilla;
+        }
+    }
+
+    /**
+     * Función de mezcla de SplitMix64: convierte el contador del generador
+     * en un valor pseudoaleatorio de 64 bits.
+     *
+     * @param z Valor del contador
+     * @return Valor mezclado
+     */
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Reduce un valor pseudoaleatorio al rango [0, limite) por multiplicación
+     * de sus 32 bits altos, lo que evita la división; el sesgo es inferior
+     * a limite / 2^32 y despreciable aquí.
+     *
+     * @param aleatorio Valor pseudoaleatorio de 64 bits
+     * @param limite Número de valores posibles
+     * @return Índice en el rango [0, limite)
+     */
+    private static int reducir(long aleatorio, int limite) {
+        return (int) (((aleatorio >>> 32) * limite) >>> 32);
+    }
+
+    /**
+     * Codifica una colocación en un único entero.
+     *
+     * @param fila Fila de anclaje
+     * @param columna Columna de anclaje
+     * @param esHorizontal true si el barco es horizontal
+     * @return Colocación codificada
+     */
+    public static int codificar(int fila, int columna, boolean esHorizontal) {
+        return fila << 8 | columna << 1 | (esHorizontal ? 1 : 0);
+    }
+
+    /**
+     * Obtiene la fila de anclaje de una colocación codificada.
+     *
+     * @param codigo Colocación codificada
+     * @return Fila de anclaje
+     */
+    public static int getFila(int codigo) {
+        return codigo >>> 8;
+    }
+
+    /**
+     * Obtiene la columna de anclaje de una colocación codificada.
+     *
+     * @param codigo Colocación codificada
+     * @return Columna de anclaje
+     */
+    public static int getColumna(int codigo) {
+        return (codigo >>> 1) & 0x7F;
+    }
+
+    /**
+     * Indica si una colocación codificada es horizontal.
+     *
+     * @param codigo Colocación codificada
+     * @return true si el barco es horizontal
+     */
+    public static boolean esHorizontal(int codigo) {
+        return (codigo & 1) != 0;
+    }
+}
@@ -0,0 +1,166 @@
+package Sistema;
+
+/**
+ * Tabla precalculada de posiciones legales para cada tipo de barco y orientación.
+ * Para un tamaño de tablero dado guarda, por cada casilla de anclaje, la máscara
+ * de 64 bits con las casillas que ocuparía el barco (0 si no cabe en el tablero)
+ * y la máscara de anclajes en los que el barco cabe.
+ *
+ * Con estas tablas comprobar una colocación se reduce a un AND entre la huella
+ * del barco y la máscara de ocupación del tablero. El bit f * n + c corresponde
+ * a la casilla de fila f y columna c de un tablero de lado n.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class MascarasColocacion {
+
+    /** Tamaño máximo de tablero representable en una máscara de 64 bits */
+    public static final int TAMAÑO_MAXIMO = 8;
+    /** Índice de la orientación horizontal en las tablas */
+    private static final int HORIZONTAL = 0;
+    /** Índice de la orientación vertical en las tablas */
+    private static final int VERTICAL = 1;
+
+    /** Tablas ya calculadas, indexadas por tamaño de tablero */
+    private static final MascarasColocacion[] TABLAS = new MascarasColocacion[TAMAÑO_MAXIMO + 1];
+
+    static {
+        for (int tamaño = 1; tamaño <= TAMAÑO_MAXIMO; tamaño++) {
+            TABLAS[tamaño] = new MascarasColocacion(tamaño);
+        }
+    }
+
+    /** Lado del tablero para el que se han calculado las tablas */
+    private final int tamaño;
+    /** Huella de cada barco por tipo, orientación y casilla de anclaje */
+    private final long[][][] huellas;
+    /** Anclajes en los que cabe cada tipo de barco por orientación */
+    private final long[][] anclajes;
+
+    /**
+     * Constructor privado que calcula las tablas para un tamaño de tablero.
+     *
+     * @param tamaño Lado del tablero
+     */
+    private MascarasColocacion(int tamaño) {
+        this.tamaño = tamaño;
+        TipoBarco[] tipos = TipoBarco.values();
+        this.huellas = new long[tipos.length][2][tamaño * tamaño];
+        this.anclajes = new long[tipos.length][2];
+
+        for (TipoBarco tipo : tipos) {
+            for (int orientacion = HORIZONTAL; orientacion <= VERTICAL; orientacion++) {
+                for (int fila = 0; fila < tamaño; fila++) {
+                    for (int columna = 0; columna < tamaño; columna++) {
+                        long huella = calcularHuella(tipo.getTamaño(), fila, columna, orientacion == HORIZONTAL);
+                        int anclaje = fila * tamaño + columna;
+                        huellas[tipo.ordinal()][orientacion][anclaje] = huella;
+                        if (huella != 0L) {
+                            anclajes[tipo.ordinal()][orientacion] |= 1L << anclaje;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula la máscara de casillas que ocupa un barco, o 0 si se sale del tablero.
+     *
+     * @param longitud Número de casillas del barco
+     * @param fila Fila de anclaje
+     * @param columna Columna de anclaje
+     * @param esHorizontal true si el barco es horizontal
+     * @return Huella del barco o 0 si no cabe
+     */
+    private long calcularHuella(int longitud, int fila, int columna, boolean esHorizontal) {
+        if (esHorizontal ? columna + longitud > tamaño : fila + longitud > tamaño) {
+            return 0L;
+        }
+        long huella = 0L;
+        for (int i = 0; i < longitud; i++) {
+            int f = esHorizontal ? fila : fila + i;
+            int c = esHorizontal ? columna + i : columna;
+            huella |= 1L << (f * tamaño + c);
+        }
+        return huella;
+    }
+
+    /**
+     * Obtiene las tablas precalculadas para un tamaño de tablero.
+     *
+     * @param tamaño Lado del tablero (entre 1 y 8)
+     * @return Tablas de colocación para ese tamaño
+     * @throws IllegalArgumentException Si el tamaño no cabe en una máscara de 64 bits
+     */
+    public static MascarasColocacion paraTamaño(int tamaño) {
+        if (tamaño < 1 || tamaño > TAMAÑO_MAXIMO) {
+            throw new IllegalArgumentException("Tamaño de tablero no soportado: " + tamaño);
+        }
+        return TABLAS[tamaño];
+    }
+
+    /**
+     * Obtiene el lado del tablero de estas tablas.
+     *
+     * @return Tamaño del tablero
+     */
+    public int getTamaño() {
+        return tamaño;
+    }
+
+    /**
+     * Obtiene la huella de un barco anclado en la posición indicada.
+     *
+     * @param tipo Tipo de barco
+     * @param esHorizontal true si el barco es horizontal
+     * @param fila Fila de anclaje
+     * @param columna Columna de anclaje
+     * @return Máscara de casillas del barco o 0 si no cabe en el tablero
+     */
+    public long getHuella(TipoBarco tipo, boolean esHorizontal, int fila, int columna) {
+        if (fila < 0 || fila >= tamaño || columna < 0 || columna >= tamaño) {
+            return 0L;
+        }
+        return huellas[tipo.ordinal()][esHorizontal ? HORIZONTAL : VERTICAL][fila * tamaño + columna];
+    }
+
+    /**
+     * Comprueba si un barco puede colocarse sin salirse del tablero ni solaparse.
+     *
+     * @param tipo Tipo de barco
+     * @param esHorizontal true si el barco es horizontal
+     * @param fila Fila de anclaje
+     * @param columna Columna de anclaje
+     * @param ocupacion Máscara de casillas ya ocupadas por barcos
+     * @return true si la colocación es legal
+     */
+    public boolean esLegal(TipoBarco tipo, boolean esHorizontal, int fila, int columna, long ocupacion) {
+        long huella = getHuella(tipo, esHorizontal, fila, columna);
+        return huella != 0L && (huella & ocupacion) == 0L;
+    }
+
+    /**
+     * Obtiene todos los anclajes legales para un barco dada la ocupación actual.
+     * El bit f * n + c indica que el barco puede anclarse en la fila f y columna c.
+     *
+     * @param tipo Tipo de barco
+     * @param esHorizontal true si el barco es horizontal
+     * @param ocupacion Máscara de casillas ya ocupadas por barcos
+     * @return Máscara de anclajes legales
+     */
+    public long posicionesLegales(TipoBarco tipo, boolean esHorizontal, long ocupacion) {
+        int orientacion = esHorizontal ? HORIZONTAL : VERTICAL;
+        long candidatos = anclajes[tipo.ordinal()][orientacion];
+        long legales = 0L;
+        while (candidatos != 0L) {
+            int anclaje = Long.numberOfTrailingZeros(candidatos);
+            if ((huellas[tipo.ordinal()][orientacion][anclaje] & ocupacion) == 0L) {
+                legales |= 1L << anclaje;
+            }
+            candidatos &= candidatos - 1;
+        }
+        return legales;
+    }
+}
@@ -1,13 +1,12 @@
 package Sistema;
 
-import Tablero.Casilla;
-import Tablero.Coordenadas;
 import Tablero.Tablero;
 
 /**
  * Validador para verificar si la colocación de barcos es válida según las reglas del juego.
  * Realiza verificaciones de tipo de barco, posición en el tablero y colisiones
- * con otros barcos ya colocados.
+ * con otros barcos ya colocados apoyándose en las máscaras precalculadas
+ * de MascarasColocacion.
  * 
  * @author Sistema Hundir la Flota
  * @version 1.0
@@ -37,92 +36,58 @@ public class ValidadorColocacion {
      * @return true si la colocación es válida, false en caso contrario
      */
     public boolean esValidaColocacion(String tipoBarco, int fila, int columna, String orientacion) {
-        if (!esValidoTipoBarco(tipoBarco)) {
+        TipoBarco tipo = TipoBarco.fromString(tipoBarco);
+        if (tipo == null) {
             return false;
         }
-        
-        TipoBarco tipo = TipoBarco.fromString(tipoBarco);
-        boolean esHorizontal = esOrientacionHorizontal(orientacion);
-        
-        return esValidaPosicion(tipo.getTamaño(), fila, columna, esHorizontal) &&
-               noHayColisiones(tipo.getTamaño(), fila, columna, esHorizontal);
+        return esValidaColocacion(tablero, tipo, fila, columna, esOrientacionHorizontal(orientacion));
     }
     
     /**
-     * Verifica si el tipo de barco especificado es válido.
+     * Valida una colocación sin crear un validador.
+     * Consulta la huella precalculada del barco y la compara con la máscara
+     * de ocupación del tablero, por lo que no recorre ninguna casilla.
      * 
-     * @param tipoBarco Tipo de barco a verificar
-     * @return true si el tipo es válido, false en caso contrario
-     */
-    private boolean esValidoTipoBarco(String tipoBarco) {
-        return TipoBarco.fromString(tipoBarco) != null;
-    }
-    
-    /**
-     * Determina si la orientación especificada es horizontal.
-     * 
-     * @param orientacion Orientación a verificar
-     * @return true si la orientación es horizontal, false si es vertical
-     */
-    private boolean esOrientacionHorizontal(String orientacion) {
-        return "HORIZONTAL".equalsIgnoreCase(orientacion);
-    }
-    
-    /**
-     * Verifica si el barco cabe en la posición especificada dentro del tablero.
-     * 
-     * @param tamaño Tamaño del barco en casillas
-     * @param fila Fila de inicio
-     * @param columna Columna de inicio
+     * @param tablero Tablero donde se quiere colocar el barco
+     * @param tipo Tipo de barco a colocar
+     * @param fila Fila donde colocar el barco
+     * @param columna Columna donde colocar el barco
      * @param esHorizontal true si el barco es horizontal, false si es vertical
-     * @return true si el barco cabe en el tablero, false en caso contrario
+     * @return true si la colocación es válida, false en caso contrario
      */
-    private boolean esValidaPosicion(int tamaño, int fila, int columna, boolean esHorizontal) {
-        if (esHorizontal) {
-            return columna + tamaño <= 8;
-        } else {
-            return fila + tamaño <= 8;
+    public static boolean esValidaColocacion(Tablero tablero, TipoBarco tipo, int fila, int columna, boolean esHorizontal) {
+        if (tablero == null || tablero.cas == null) {
+            return false;
         }
+        return MascarasColocacion.paraTamaño(tablero.cas.length)
+            .esLegal(tipo, esHorizontal, fila, columna, tablero.getMascaraBarcos());
     }
     
     /**
-     * Verifica que no haya colisiones con otros barcos en las posiciones objetivo.
+     * Obtiene todos los anclajes donde se puede colocar un barco en el tablero.
+     * Útil para mostrar sugerencias al cliente. El bit f * 8 + c indica que
+     * el barco puede empezar en la fila f y columna c.
      * 
-     * @param tamaño Tamaño del barco en casillas
-     * @param fila Fila de inicio
-     * @param columna Columna de inicio
+     * @param tablero Tablero donde se quiere colocar el barco
+     * @param tipo Tipo de barco a colocar
      * @param esHorizontal true si el barco es horizontal, false si es vertical
-     * @return true si no hay colisiones, false si hay conflictos
+     * @return Máscara de anclajes legales
      */
-    private boolean noHayColisiones(int tamaño, int fila, int columna, boolean esHorizontal) {
-        for (int i = 0; i < tamaño; i++) {
-            int checkFila = esHorizontal ? fila : fila + i;
-            int checkColumna = esHorizontal ? columna + i : columna;
-            boolean colision = existeBarcoEnPosicion(checkFila, checkColumna);
-            if (colision) {
-                return false;
-            }
+    public static long posicionesLegales(Tablero tablero, TipoBarco tipo, boolean esHorizontal) {
+        if (tablero == null || tablero.cas == null) {
+            return 0L;
         }
-        return true;
+        return MascarasColocacion.paraTamaño(tablero.cas.length)
+            .posicionesLegales(tipo, esHorizontal, tablero.getMascaraBarcos());
     }
     
     /**
-     * Verifica si existe un barco en la posición especificada.
+     * Determina si la orientación especificada es horizontal.
      * 
-     * @param fila Fila a verificar
-     * @param columna Columna a verificar
-     * @return true si existe un barco en la posición, false en caso contrario
+     * @param orientacion Orientación a verificar
+     * @return true si la orientación es horizontal, false si es vertical
      */
-    private boolean existeBarcoEnPosicion(int fila, int columna) {
-        try {
-            Coordenadas coordenadas = new Coordenadas((char)('A' + columna), fila);
-            Casilla casilla = tablero.getCasilla(coordenadas);
-            if (casilla == null) {
-                return true;
-            }
-            return casilla.getEstado() instanceof Estados.DesconocidoBarco;
-        } catch (Exception e) {
-            return true;
-        }
+    public static boolean esOrientacionHorizontal(String orientacion) {
+        return "HORIZONTAL".equalsIgnoreCase(orientacion);
     }
-}
\ No newline at end of file
+}
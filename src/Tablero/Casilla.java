@@ -56,10 +56,16 @@ public class Casilla {
     
     /**
      * Aplica daño a la casilla, cambiando su estado según las reglas del juego.
-     * Delega el cambio de estado al patrón State implementado en la clase Estado.
+     * Delega el cambio de estado al patrón State implementado en la clase Estado
+     * y, si la casilla pasa a estar tocada, lo registra en el barco que la ocupa.
      */
     public void getDaño() {
+        Estado anterior = this.estado;
         this.estado = this.estado.getDaño();
+        if (this.barco != null && this.estado != anterior) {
+            // getColumna() guarda la fila del tablero y getFila() la columna
+            this.barco.registrarImpacto(getColumna(), getFila());
+        }
     }
 
     /**
@@ -92,6 +98,15 @@ public class Casilla {
         this.estado = DesconocidoBarco.getInstancia();
     }
     
+    /**
+     * Devuelve la casilla a su estado inicial: agua desconocida sin barco.
+     * Lo usa el pool de tableros para reutilizar las casillas.
+     */
+    public void reiniciar() {
+        this.barco = null;
+        this.estado = DesconocidoAgua.getInstancia();
+    }
+    
     /**
      * Obtiene el barco que ocupa esta casilla.
      * 
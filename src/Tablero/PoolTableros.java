@@ -0,0 +1,141 @@
+package Tablero;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de tableros reutilizables implementado como Singleton.
+ * Las partidas obtienen sus tableros del pool al entrar en la fase de colocación
+ * y los devuelven al terminar, una vez guardadas; el pool reinicia cada tablero
+ * devuelto para que la siguiente partida lo reciba vacío sin volver a crear
+ * sus casillas y coordenadas.
+ *
+ * El pool guarda como máximo un número fijo de tableros libres; los que se
+ * devuelven con el pool lleno se descartan.
+ *
+ * @author Sistema Hundir la Flota
+ * @version 1.0
+ */
+public final class PoolTableros {
+
+    /** Número máximo de tableros libres que guarda el pool */
+    public static final int CAPACIDAD = 64;
+
+    /** Instancia única del pool */
+    private static final PoolTableros instancia = new PoolTableros(CAPACIDAD);
+
+    /** Tableros libres, ya reiniciados */
+    private final ConcurrentLinkedDeque<Tablero> libres = new ConcurrentLinkedDeque<>();
+    /** Número de tableros libres */
+    private final AtomicInteger disponibles = new AtomicInteger();
+    /** Número máximo de tableros libres */
+    private final int capacidad;
+    /** Tableros creados porque el pool estaba vacío */
+    private final AtomicLong creados = new AtomicLong();
+    /** Tableros entregados desde el pool */
+    private final AtomicLong reutilizados = new AtomicLong();
+    /** Tableros descartados por estar el pool lleno */
+    private final AtomicLong descartados = new AtomicLong();
+
+    /**
+     * Constructor privado para el patrón Singleton.
+     *
+     * @param capacidad Número máximo de tableros libres
+     */
+    private PoolTableros(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Obtiene la instancia única del pool.
+     *
+     * @return Instancia única de PoolTableros
+     */
+    public static PoolTableros getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * Obtiene un tablero vacío, reutilizando uno libre si lo hay.
+     *
+     * @return Tablero vacío con sus casillas creadas
+     */
+    public Tablero obtener() {
+        Tablero tablero = libres.pollFirst();
+        if (tablero != null) {
+            disponibles.decrementAndGet();
+            reutilizados.incrementAndGet();
+            return tablero;
+        }
+        creados.incrementAndGet();
+        tablero = new Tablero();
+        tablero.RellenaTablero();
+        return tablero;
+    }
+
+    /**
+     * Devuelve un tablero al pool. El tablero se reinicia y no debe
+     * seguir usándose después de devolverlo.
+     *
+     * @param tablero Tablero a devolver
+     */
+    public void liberar(Tablero tablero) {
+        if (tablero == null || tablero.cas == null) {
+            return;
+        }
+        if (disponibles.incrementAndGet() > capacidad) {
+            disponibles.decrementAndGet();
+            descartados.incrementAndGet();
+            return;
+        }
+        tablero.reiniciar();
+        libres.offerFirst(tablero);
+    }
+
+    /**
+     * Obtiene el número de tableros libres que esperan en el pool.
+     *
+     * @return Número de tableros libres en el pool
+     */
+    public int getDisponibles() {
+        return disponibles.get();
+    }
+
+    /**
+     * Obtiene cuántos tableros se han creado por encontrar el pool vacío.
+     *
+     * @return Número de tableros creados porque el pool estaba vacío
+     */
+    public long getCreados() {
+        return creados.get();
+    }
+
+    /**
+     * Obtiene cuántos tableros se han entregado desde el pool sin crearlos.
+     *
+     * @return Número de tableros entregados desde el pool
+     */
+    public long getReutilizados() {
+        return reutilizados.get();
+    }
+
+    /**
+     * Obtiene cuántos tableros devueltos se han descartado por estar el pool lleno.
+     *
+     * @return Número de tableros descartados por estar el pool lleno
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Obtiene un resumen de los contadores del pool para las estadísticas del servidor.
+     *
+     * @return Resumen de los contadores del pool
+     */
+    public String getResumen() {
+        return String.format("Tableros libres: %d | Creados: %d | Reutilizados: %d | Descartados: %d",
+                getDisponibles(), getCreados(), getReutilizados(), getDescartados());
+    }
+}
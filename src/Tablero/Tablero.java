@@ -1,7 +1,10 @@
 package Tablero;
 
 import Barcos.Barco;
+import Barcos.TablaBarcos;
+import Estados.Agua;
 import Estados.Estado;
+import Estados.Tocado;
 
 /**
  * Representa el tablero de juego completo utilizando el patrón Strategy.
@@ -19,13 +22,18 @@ public class Tablero implements Cuadricula {
     public Casilla[][] cas;
     /** Estrategia utilizada para crear y gestionar el tablero */
     private EstrategiaTablero estrategia;
-    
+    /** Máscara de casillas ocupadas por barcos (bit f * 8 + c para cas[f][c]) */
+    private long ocupacion;
+    /** Tabla con los datos de los barcos colocados en el tablero */
+    private transient TablaBarcos barcos;
+
     /**
      * Inicializa el tablero utilizando la estrategia configurada.
      * Delega la creación de la matriz de casillas a la estrategia actual.
      */
     public void RellenaTablero() {
         this.cas = estrategia.crearTablero();
+        this.barcos = new TablaBarcos(cas.length);
     }
     
     /**
@@ -53,7 +61,49 @@ public class Tablero implements Cuadricula {
      * @param barco Barco a colocar en la casilla
      */
     public void setBarco(Coordenadas id, Barco barco) {
-        getCasilla(id).setBarco(barco);
+        Casilla casilla = getCasilla(id);
+        casilla.setBarco(barco);
+        ocupar(1L << (casilla.getColumna() * cas.length + casilla.getFila()));
+    }
+
+    /**
+     * Marca como ocupadas por barcos las casillas de la máscara indicada.
+     * Lo invocan quienes colocan barcos para mantener la máscara de ocupación
+     * sin tener que recorrer el tablero.
+     * 
+     * @param huella Máscara de casillas ocupadas por el nuevo barco
+     */
+    public void ocupar(long huella) {
+        this.ocupacion |= huella;
+    }
+
+    /**
+     * Obtiene la tabla de barcos del tablero, creándola si aún no existe.
+     *
+     * @return Tabla de barcos del tablero
+     */
+    public TablaBarcos getBarcos() {
+        if (barcos == null) {
+            barcos = new TablaBarcos(cas.length);
+        }
+        return barcos;
+    }
+
+    /**
+     * Devuelve el tablero a su estado inicial para reutilizarlo en otra partida.
+     * Conserva las casillas y sus coordenadas, pero elimina los barcos y los ataques.
+     */
+    public void reiniciar() {
+        if (cas == null) {
+            return;
+        }
+        for (int i = 0; i < cas.length; i++) {
+            for (int j = 0; j < cas[i].length; j++) {
+                cas[i][j].reiniciar();
+            }
+        }
+        this.ocupacion = 0L;
+        getBarcos().limpiar();
     }
 
     /**
@@ -103,20 +153,42 @@ public class Tablero implements Cuadricula {
     
     /**
      * Verifica si todos los barcos en el tablero han sido hundidos.
-     * Recorre todas las casillas buscando barcos que aún no estén hundidos.
-     * 
+     * Consulta la tabla de barcos en lugar de recorrer las casillas.
+     *
      * @return true si todos los barcos están hundidos, false si queda alguno flotando
      */
     public boolean todosBarcosHundidos() {
         if (cas == null) return false;
+        return getBarcos().todosHundidos();
+    }
+
+    /**
+     * Obtiene una máscara de 64 bits con las casillas que contienen barco.
+     * El bit f * 8 + c corresponde a la casilla cas[f][c].
+     * 
+     * @return Máscara de casillas ocupadas por barcos
+     */
+    public long getMascaraBarcos() {
+        return ocupacion;
+    }
+    
+    /**
+     * Obtiene una máscara de 64 bits con las casillas que ya han sido atacadas.
+     * El bit f * 8 + c corresponde a la casilla cas[f][c].
+     * 
+     * @return Máscara de casillas en estado Agua o Tocado
+     */
+    public long getMascaraImpactos() {
+        long mascara = 0L;
+        if (cas == null) return mascara;
         for (int i = 0; i < cas.length; i++) {
             for (int j = 0; j < cas[i].length; j++) {
-                Casilla casilla = cas[i][j];
-                if (casilla.tieneBarco() && !casilla.getBarco().estaHundido()) {
-                    return false;
+                Estado estado = cas[i][j].getEstado();
+                if (estado == Agua.getInstancia() || estado == Tocado.getInstancia()) {
+                    mascara |= 1L << (i * cas[i].length + j);
                 }
             }
         }
-        return true;
+        return mascara;
     }
 }